@@ -0,0 +1,88 @@
+package org.example.benchmark;
+
+import org.example.entity.BookLoan;
+import org.example.service.BookLoanService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookLoanServiceBenchmark {
+
+    @State(Scope.Thread)
+    public static class Checkout {
+
+        private BookstoreContext context;
+        private BookLoanService bookLoanService;
+        private final List<Long> loanIds = new ArrayList<>();
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(BookstoreContext context) {
+            this.context = context;
+            this.bookLoanService = context.bean(BookLoanService.class);
+        }
+
+        private BookLoan nextLoan() {
+            int pair = next++;
+            return bookLoanService.createLoan(
+                    context.userId(pair),
+                    context.bookId(pair / BookstoreContext.USERS),
+                    LocalDateTime.now().plusDays(14));
+        }
+
+        @TearDown(Level.Iteration)
+        public void returnLoans() {
+            loanIds.forEach(bookLoanService::returnBook);
+            loanIds.clear();
+            next = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class OpenLoan {
+
+        private BookLoanService bookLoanService;
+        private Long loanId;
+
+        @Setup(Level.Trial)
+        public void setUp(Checkout checkout) {
+            this.bookLoanService = checkout.bookLoanService;
+        }
+
+        @Setup(Level.Invocation)
+        public void openLoan(Checkout checkout) {
+            loanId = checkout.nextLoan().getId();
+        }
+    }
+
+    @Benchmark
+    public BookLoan createLoan(Checkout checkout) {
+        BookLoan loan = checkout.nextLoan();
+        checkout.loanIds.add(loan.getId());
+        return loan;
+    }
+
+    @Benchmark
+    public BookLoan returnBook(OpenLoan openLoan) {
+        return openLoan.bookLoanService.returnBook(openLoan.loanId);
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.benchmark;
+
+import org.example.entity.BookReservation;
+import org.example.service.BookReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BookReservationServiceBenchmark {
+
+    private BookstoreContext context;
+    private BookReservationService bookReservationService;
+    private final List<Long> reservationIds = new ArrayList<>();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(BookstoreContext context) {
+        this.context = context;
+        this.bookReservationService = context.bean(BookReservationService.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void cancelReservations() {
+        reservationIds.forEach(bookReservationService::cancelReservation);
+        reservationIds.clear();
+        next = 0;
+    }
+
+    @Benchmark
+    public BookReservation createReservation() {
+        int pair = next++;
+        BookReservation reservation = bookReservationService.createReservation(
+                context.userId(pair),
+                context.bookId(pair / BookstoreContext.USERS),
+                LocalDateTime.now().plusDays(3));
+        reservationIds.add(reservation.getId());
+        return reservation;
+    }
+}
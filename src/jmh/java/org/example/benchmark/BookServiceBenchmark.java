@@ -0,0 +1,39 @@
+package org.example.benchmark;
+
+import org.example.entity.Book;
+import org.example.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BookServiceBenchmark {
+
+    private BookService bookService;
+
+    @Setup(Level.Trial)
+    public void setUp(BookstoreContext context) {
+        this.bookService = context.bean(BookService.class);
+    }
+
+    @Benchmark
+    public List<Book> findAvailableBooks() {
+        return bookService.findAvailableBooks();
+    }
+}
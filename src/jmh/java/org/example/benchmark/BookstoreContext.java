@@ -0,0 +1,110 @@
+package org.example.benchmark;
+
+import org.example.Main;
+import org.example.entity.Book;
+import org.example.entity.User;
+import org.example.repository.BookRepository;
+import org.example.repository.UserRepository;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+public class BookstoreContext {
+
+    public static final int USERS = 200;
+    public static final int BOOKS = 200;
+
+    private ConfigurableApplicationContext context;
+    private List<Long> userIds;
+    private List<String> usernames;
+    private List<Long> bookIds;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(Main.class).run(arguments());
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public Long userId(int index) {
+        return userIds.get(Math.floorMod(index, USERS));
+    }
+
+    public String username(int index) {
+        return usernames.get(Math.floorMod(index, USERS));
+    }
+
+    public Long bookId(int index) {
+        return bookIds.get(Math.floorMod(index, BOOKS));
+    }
+
+    private void seed() {
+        String prefix = "bench-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+        List<User> users = IntStream.range(0, USERS)
+                .mapToObj(i -> User.builder()
+                        .username(prefix + i)
+                        .password("benchmark")
+                        .email(prefix + i + "@example.com")
+                        .role(User.Role.USER)
+                        .build())
+                .collect(Collectors.toList());
+        List<Book> books = IntStream.range(0, BOOKS)
+                .mapToObj(i -> Book.builder()
+                        .title("Benchmark " + i)
+                        .author(prefix + (i % 20))
+                        .quantity(1_000_000)
+                        .availableQuantity(1_000_000)
+                        .build())
+                .collect(Collectors.toList());
+
+        userIds = new ArrayList<>();
+        usernames = new ArrayList<>();
+        for (User user : bean(UserRepository.class).saveAll(users)) {
+            userIds.add(user.getId());
+            usernames.add(user.getUsername());
+        }
+        bookIds = bean(BookRepository.class).saveAll(books).stream()
+                .map(Book::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static String[] arguments() {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--bookstore.sweeper.enabled=false"));
+        String url = System.getProperty("bookstore.benchmark.url", "");
+        if (url.isBlank()) {
+            arguments.add("--spring.datasource.url=jdbc:h2:mem:benchmark");
+        } else {
+            arguments.add("--spring.datasource.url=" + url);
+            arguments.add("--spring.datasource.username=" + System.getProperty("bookstore.benchmark.username", "postgres"));
+            arguments.add("--spring.datasource.password=" + System.getProperty("bookstore.benchmark.password", "postgres"));
+            arguments.add("--spring.datasource.driver-class-name=org.postgresql.Driver");
+            arguments.add("--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect");
+            arguments.add("--spring.jpa.hibernate.ddl-auto=validate");
+            arguments.add("--spring.flyway.enabled=true");
+        }
+        return arguments.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.loadtest;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class DataSeeder {
+
+    public static final String USERNAME_PREFIX = "loadtest-";
+    public static final String TITLE_PREFIX = "Load test book ";
+    public static final String PASSWORD = "loadtest";
+
+    private static final int CHUNK = 100_000;
+
+    private final Connection connection;
+
+    public DataSeeder(Connection connection) {
+        this.connection = connection;
+    }
+
+    public static void main(String[] args) throws SQLException {
+        String url = property("url", "jdbc:postgresql://localhost:5432/bookstore?reWriteBatchedInserts=true");
+        try (Connection connection = DriverManager.getConnection(url, property("username", "postgres"), property("password", "postgres"))) {
+            connection.setAutoCommit(false);
+            DataSeeder seeder = new DataSeeder(connection);
+            long users = Long.parseLong(property("users", "100000"));
+            long books = Long.parseLong(property("books", "1000000"));
+            long loansPerUser = Long.parseLong(property("loans-per-user", "20"));
+            int authors = Integer.parseInt(property("authors", "50000"));
+
+            long[] userIds = seeder.seedUsers(users);
+            long[] bookIds = seeder.seedBooks(books, authors);
+            long loans = seeder.seedLoanHistory(userIds, bookIds, loansPerUser);
+            seeder.analyze();
+
+            System.out.printf("Seeded %d users (%d-%d), %d books (%d-%d), %d returned loans%n",
+                    users, userIds[0], userIds[1], books, bookIds[0], bookIds[1], loans);
+            System.out.printf("Load test flags: -Dbookstore.loadtest.user-ids=%d-%d -Dbookstore.loadtest.book-ids=%d-%d -Dbookstore.loadtest.authors=%d%n",
+                    userIds[0], userIds[1], bookIds[0], bookIds[1], authors);
+        }
+    }
+
+    public long[] seedUsers(long count) throws SQLException {
+        long first = nextId("users", "users_id_seq");
+        String password = new BCryptPasswordEncoder().encode(PASSWORD);
+        insertInChunks(count, "INSERT INTO users (id, username, password, email, role) " +
+                "SELECT ? + g, '" + USERNAME_PREFIX + "' || (? + g), ?, '" + USERNAME_PREFIX + "' || (? + g) || '@example.com', 'USER' " +
+                "FROM generate_series(?, ?) g", (statement, from, to) -> {
+            statement.setLong(1, first);
+            statement.setLong(2, first);
+            statement.setString(3, password);
+            statement.setLong(4, first);
+            statement.setLong(5, from);
+            statement.setLong(6, to);
+        });
+        resetSequence("users", "users_id_seq");
+        return new long[]{first, first + count - 1};
+    }
+
+    public long[] seedBooks(long count, int authors) throws SQLException {
+        long first = nextId("books", "books_id_seq");
+        insertInChunks(count, "INSERT INTO books (id, title, author, description, quantity, available_quantity, version) " +
+                "SELECT ? + g, '" + TITLE_PREFIX + "' || (? + g), 'Author ' || (g % ?), " +
+                "'Synthetic catalog entry ' || (? + g), 5 + (g % 16), 5 + (g % 16), 0 " +
+                "FROM generate_series(?, ?) g", (statement, from, to) -> {
+            statement.setLong(1, first);
+            statement.setLong(2, first);
+            statement.setInt(3, authors);
+            statement.setLong(4, first);
+            statement.setLong(5, from);
+            statement.setLong(6, to);
+        });
+        resetSequence("books", "books_id_seq");
+        return new long[]{first, first + count - 1};
+    }
+
+    public long seedLoanHistory(long[] userIds, long[] bookIds, long loansPerUser) throws SQLException {
+        long users = userIds[1] - userIds[0] + 1;
+        long books = bookIds[1] - bookIds[0] + 1;
+        long count = users * loansPerUser;
+        long first = nextId("book_loans", "book_loans_id_seq");
+        insertInChunks(count, "INSERT INTO book_loans (id, user_id, book_id, loan_date, due_date, return_date, returned, overdue) " +
+                "SELECT ? + g, ? + (g % ?), ? + ((g * 7919) % ?), " +
+                "now() - make_interval(days => (30 + g % 700)::int), " +
+                "now() - make_interval(days => (16 + g % 700)::int), " +
+                "now() - make_interval(days => (16 + g % 700 + g % 10)::int), true, false " +
+                "FROM generate_series(?, ?) g", (statement, from, to) -> {
+            statement.setLong(1, first);
+            statement.setLong(2, userIds[0]);
+            statement.setLong(3, users);
+            statement.setLong(4, bookIds[0]);
+            statement.setLong(5, books);
+            statement.setLong(6, from);
+            statement.setLong(7, to);
+        });
+        resetSequence("book_loans", "book_loans_id_seq");
+        return count;
+    }
+
+    public void analyze() throws SQLException {
+        connection.commit();
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE users");
+            statement.execute("ANALYZE books");
+            statement.execute("ANALYZE book_loans");
+        }
+        connection.setAutoCommit(false);
+    }
+
+    private void insertInChunks(long count, String sql, ChunkBinder binder) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (long from = 0; from < count; from += CHUNK) {
+                long to = Math.min(count, from + CHUNK) - 1;
+                binder.bind(statement, from, to);
+                statement.executeUpdate();
+                connection.commit();
+            }
+        }
+    }
+
+    private long nextId(String table, String sequence) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT GREATEST((SELECT COALESCE(MAX(id), 0) FROM " + table + "), " +
+                     "(SELECT last_value FROM " + sequence + ")) + 1")) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    private void resetSequence(String table, String sequence) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT setval('" + sequence + "', (SELECT COALESCE(MAX(id), 0) + 50 FROM " + table + "))");
+        }
+        connection.commit();
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("bookstore.seed." + name, defaultValue);
+    }
+
+    @FunctionalInterface
+    private interface ChunkBinder {
+        void bind(PreparedStatement statement, long from, long to) throws SQLException;
+    }
+}
@@ -0,0 +1,185 @@
+package org.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class LibraryTraffic {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int MAX_OPEN_ITEMS = 20;
+
+    private final LoadTestConfig config;
+    private final HttpClient client;
+    private final EndpointStats stats;
+    private final ObjectMapper objectMapper;
+    private final long userId;
+    private final String authorization;
+    private final Deque<Long> openLoans = new ArrayDeque<>();
+    private final Deque<Long> openReservations = new ArrayDeque<>();
+    private volatile boolean recording;
+
+    public LibraryTraffic(LoadTestConfig config, HttpClient client, EndpointStats stats, ObjectMapper objectMapper) {
+        this.config = config;
+        this.client = client;
+        this.stats = stats;
+        this.objectMapper = objectMapper;
+        this.userId = between(config.getFirstUserId(), config.getLastUserId());
+        String credentials = DataSeeder.USERNAME_PREFIX + userId + ":" + config.getPassword();
+        this.authorization = "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void startRecording() {
+        recording = true;
+    }
+
+    public void run(LoadTestConfig.Scenario scenario) {
+        switch (scenario) {
+            case CATALOG:
+                browseCatalog();
+                break;
+            case LOANS:
+                checkoutOrReturn();
+                break;
+            case RESERVATIONS:
+                reserveOrCancel();
+                break;
+            case AUTH:
+                authenticate();
+                break;
+        }
+    }
+
+    private void browseCatalog() {
+        int pick = ThreadLocalRandom.current().nextInt(100);
+        long bookId = randomBookId();
+        if (pick < 40) {
+            get("GET /api/books/get/{id}", "/api/books/get/" + bookId, false);
+        } else if (pick < 55) {
+            get("GET /api/books/quantity/{id}", "/api/books/quantity/" + bookId, false);
+        } else if (pick < 70) {
+            get("GET /api/books/available_id/{id}", "/api/books/available_id/" + bookId, false);
+        } else if (pick < 85) {
+            String author = "Author " + ThreadLocalRandom.current().nextInt(config.getAuthors());
+            get("GET /api/books/get_author/{author}", "/api/books/get_author/" + encode(author), false);
+        } else if (pick < 90) {
+            get("GET /api/books/get_title/{title}", "/api/books/get_title/" + encode(DataSeeder.TITLE_PREFIX + bookId), false);
+        } else {
+            get("GET /api/books/all", "/api/books/all?size=50", false);
+        }
+    }
+
+    private void checkoutOrReturn() {
+        if (!openLoans.isEmpty() && (openLoans.size() >= MAX_OPEN_ITEMS || ThreadLocalRandom.current().nextBoolean())) {
+            post("POST /api/loans/return/{id}", "/api/loans/return/" + openLoans.poll());
+            return;
+        }
+        JsonNode loan = post("POST /api/loans/add", "/api/loans/add?userId=" + userId
+                + "&bookId=" + randomBookId()
+                + "&dueDate=" + encode(LocalDateTime.now().plusDays(14).toString()));
+        if (loan != null && loan.hasNonNull("id")) {
+            openLoans.add(loan.get("id").asLong());
+        }
+    }
+
+    private void reserveOrCancel() {
+        if (!openReservations.isEmpty() && (openReservations.size() >= MAX_OPEN_ITEMS || ThreadLocalRandom.current().nextBoolean())) {
+            post("POST /api/reservations/cancel/{id}", "/api/reservations/cancel/" + openReservations.poll());
+            return;
+        }
+        JsonNode reservation = post("POST /api/reservations/add", "/api/reservations/add?userId=" + userId
+                + "&bookId=" + randomBookId()
+                + "&expirationDate=" + encode(LocalDateTime.now().plusDays(3).toString()));
+        if (reservation != null && reservation.hasNonNull("id")) {
+            openReservations.add(reservation.get("id").asLong());
+        }
+    }
+
+    private void authenticate() {
+        if (ThreadLocalRandom.current().nextInt(5) > 0) {
+            get("GET /api/auth/me", "/api/auth/me", true);
+            return;
+        }
+        String username = "loadtest-new-" + UUID.randomUUID();
+        Map<String, String> user = Map.of(
+                "username", username,
+                "password", config.getPassword(),
+                "email", username + "@example.com");
+        send("POST /api/auth/register", HttpRequest.newBuilder(uri("/api/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json(user))));
+    }
+
+    private JsonNode get(String endpoint, String path, boolean authenticated) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path)).GET();
+        if (authenticated) {
+            request.header("Authorization", authorization);
+        }
+        return send(endpoint, request);
+    }
+
+    private JsonNode post(String endpoint, String path) {
+        return send(endpoint, HttpRequest.newBuilder(uri(path))
+                .header("Authorization", authorization)
+                .POST(HttpRequest.BodyPublishers.noBody()));
+    }
+
+    private JsonNode send(String endpoint, HttpRequest.Builder request) {
+        long start = System.nanoTime();
+        boolean success = false;
+        JsonNode body = null;
+        try {
+            HttpResponse<byte[]> response = client.send(request.timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.ofByteArray());
+            success = response.statusCode() < 400;
+            if (success && response.body().length > 0) {
+                body = objectMapper.readTree(response.body());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            success = false;
+        }
+        if (recording) {
+            stats.record(endpoint, System.nanoTime() - start, success);
+        }
+        return body;
+    }
+
+    private URI uri(String path) {
+        return URI.create(config.getBaseUrl() + path);
+    }
+
+    private long randomBookId() {
+        return between(config.getFirstBookId(), config.getLastBookId());
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long between(long first, long last) {
+        return ThreadLocalRandom.current().nextLong(first, last + 1);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
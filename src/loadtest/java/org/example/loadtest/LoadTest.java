@@ -0,0 +1,69 @@
+package org.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+public class LoadTest {
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        EndpointStats stats = new EndpointStats();
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(Math.max(4, config.getConcurrency() / 4));
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(clientExecutor)
+                .build();
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        List<LibraryTraffic> workers = new ArrayList<>();
+        for (int i = 0; i < config.getConcurrency(); i++) {
+            workers.add(new LibraryTraffic(config, client, stats, objectMapper));
+        }
+
+        System.out.printf("Driving %s with %d workers, mix %s, warm-up %s, duration %s%n",
+                config.getBaseUrl(), config.getConcurrency(), config.getMix(), config.getWarmup(), config.getDuration());
+
+        long warmupEnd = System.nanoTime() + config.getWarmup().toNanos();
+        long end = warmupEnd + config.getDuration().toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(config.getConcurrency());
+        for (LibraryTraffic worker : workers) {
+            executor.submit(() -> {
+                boolean recording = false;
+                while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                    if (!recording && System.nanoTime() >= warmupEnd) {
+                        worker.startRecording();
+                        recording = true;
+                    }
+                    worker.run(pick(config.getMix()));
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(config.getWarmup().plus(config.getDuration()).toMillis() + 60_000, TimeUnit.MILLISECONDS);
+        executor.shutdownNow();
+        clientExecutor.shutdownNow();
+
+        stats.print(System.out, config.getDuration());
+    }
+
+    private static LoadTestConfig.Scenario pick(Map<LoadTestConfig.Scenario, Integer> mix) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int roll = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<LoadTestConfig.Scenario, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty traffic mix");
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.loadtest;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Value
+@Builder
+public class LoadTestConfig {
+
+    String baseUrl;
+    Duration duration;
+    Duration warmup;
+    int concurrency;
+    Map<Scenario, Integer> mix;
+    long firstUserId;
+    long lastUserId;
+    long firstBookId;
+    long lastBookId;
+    int authors;
+    String password;
+
+    public static LoadTestConfig fromSystemProperties() {
+        long[] users = range(property("user-ids", "1-100000"));
+        long[] books = range(property("book-ids", "1-1000000"));
+        return LoadTestConfig.builder()
+                .baseUrl(property("url", "http://localhost:8080"))
+                .duration(Duration.parse(property("duration", "PT60S")))
+                .warmup(Duration.parse(property("warmup", "PT10S")))
+                .concurrency(Integer.parseInt(property("concurrency", "32")))
+                .mix(mix(property("mix", "catalog=80,loans=10,reservations=5,auth=5")))
+                .firstUserId(users[0])
+                .lastUserId(users[1])
+                .firstBookId(books[0])
+                .lastBookId(books[1])
+                .authors(Integer.parseInt(property("authors", "50000")))
+                .password(property("password", DataSeeder.PASSWORD))
+                .build();
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("bookstore.loadtest." + name, defaultValue);
+    }
+
+    private static long[] range(String value) {
+        String[] bounds = value.split("-");
+        return new long[]{Long.parseLong(bounds[0].trim()), Long.parseLong(bounds[1].trim())};
+    }
+
+    private static Map<Scenario, Integer> mix(String value) {
+        Map<Scenario, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] weight = entry.split("=");
+            mix.put(Scenario.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+
+    public enum Scenario {
+        CATALOG,
+        LOANS,
+        RESERVATIONS,
+        AUTH
+    }
+}
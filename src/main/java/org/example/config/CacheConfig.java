@@ -0,0 +1,13 @@
+package org.example.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String BOOKS = "books";
+    public static final String BOOK_AVAILABLE_QUANTITY = "bookAvailableQuantity";
+    public static final String BOOK_AVAILABLE = "bookAvailable";
+}
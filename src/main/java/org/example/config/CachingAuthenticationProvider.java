@@ -0,0 +1,98 @@
+package org.example.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private static final int SALT_LENGTH = 32;
+
+    private final AuthenticationProvider delegate;
+    private final Cache<String, UserDetails> verifiedCredentials;
+    private final Cache<String, Long> evictions;
+    private final AtomicLong generation = new AtomicLong();
+    private final byte[] salt = new byte[SALT_LENGTH];
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, Duration ttl, long maxSize) {
+        this.delegate = delegate;
+        this.verifiedCredentials = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+        this.evictions = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+        new SecureRandom().nextBytes(salt);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        Object credentials = authentication.getCredentials();
+        if (credentials == null) {
+            return delegate.authenticate(authentication);
+        }
+
+        String key = credentialKey(authentication.getName(), credentials.toString());
+        UserDetails cached = verifiedCredentials.getIfPresent(key);
+        if (cached != null) {
+            UsernamePasswordAuthenticationToken result =
+                    new UsernamePasswordAuthenticationToken(cached, null, cached.getAuthorities());
+            result.setDetails(authentication.getDetails());
+            return result;
+        }
+
+        long started = generation.get();
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.getPrincipal() instanceof UserDetails) {
+            UserDetails user = (UserDetails) result.getPrincipal();
+            verifiedCredentials.put(key, user);
+            // evict() records the generation before removing entries, so a put that lands after the removal sees it here
+            if (evictedSince(user.getUsername(), started)) {
+                verifiedCredentials.invalidate(key);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    public void evict(String username) {
+        evictions.put(username, generation.incrementAndGet());
+        verifiedCredentials.asMap().values().removeIf(user -> user.getUsername().equals(username));
+    }
+
+    private boolean evictedSince(String username, long started) {
+        Long evicted = evictions.getIfPresent(username);
+        return evicted != null && evicted > started;
+    }
+
+    private String credentialKey(String username, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            digest.update(username.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(password.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
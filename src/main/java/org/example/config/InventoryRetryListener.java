@@ -0,0 +1,55 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.listener.RetryListenerSupport;
+import org.springframework.stereotype.Component;
+
+@Component("inventoryRetryListener")
+public class InventoryRetryListener extends RetryListenerSupport implements MeterBinder {
+
+    private Counter conflicts;
+    private Counter retries;
+    private Counter exhausted;
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        this.conflicts = Counter.builder("bookstore.inventory.conflicts")
+                .description("Optimistic locking conflicts on book inventory updates")
+                .register(meterRegistry);
+        this.retries = Counter.builder("bookstore.inventory.retries")
+                .description("Retried book inventory updates")
+                .register(meterRegistry);
+        this.exhausted = Counter.builder("bookstore.inventory.retries.exhausted")
+                .description("Book inventory updates that failed after all retry attempts")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+        if (conflicts != null && throwable instanceof OptimisticLockingFailureException) {
+            conflicts.increment();
+        }
+    }
+
+    @Override
+    public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+        if (retries == null) {
+            return;
+        }
+        int failedAttempts = context.getRetryCount();
+        if (throwable != null) {
+            failedAttempts--;
+            if (throwable instanceof OptimisticLockingFailureException) {
+                exhausted.increment();
+            }
+        }
+        if (failedAttempts > 0) {
+            retries.increment(failedAttempts);
+        }
+    }
+}
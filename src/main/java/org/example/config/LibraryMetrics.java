@@ -0,0 +1,75 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.example.repository.BookLoanRepository;
+import org.example.repository.BookRepository;
+import org.example.repository.BookReservationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+@Component
+public class LibraryMetrics implements MeterBinder {
+
+    private final BookRepository bookRepository;
+    private final BookLoanRepository bookLoanRepository;
+    private final BookReservationRepository bookReservationRepository;
+    private final Duration refreshInterval;
+
+    public LibraryMetrics(BookRepository bookRepository,
+                          BookLoanRepository bookLoanRepository,
+                          BookReservationRepository bookReservationRepository,
+                          @Value("${bookstore.metrics.refresh-interval:PT30S}") Duration refreshInterval) {
+        this.bookRepository = bookRepository;
+        this.bookLoanRepository = bookLoanRepository;
+        this.bookReservationRepository = bookReservationRepository;
+        this.refreshInterval = refreshInterval;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        register(registry, "bookstore.loans.active", "Loans that have not been returned",
+                bookLoanRepository::countByReturnedFalse);
+        register(registry, "bookstore.loans.overdue", "Unreturned loans flagged overdue by the expiry sweeper",
+                bookLoanRepository::countByOverdueTrue);
+        register(registry, "bookstore.reservations.active", "Active reservations",
+                bookReservationRepository::countByActiveTrue);
+        register(registry, "bookstore.books.out_of_stock", "Titles with no available copies",
+                bookRepository::countOutOfStock);
+    }
+
+    private void register(MeterRegistry registry, String name, String description, LongSupplier query) {
+        Gauge.builder(name, new CachedCount(query, refreshInterval), CachedCount::value)
+                .description(description)
+                .strongReference(true)
+                .register(registry);
+    }
+
+    static final class CachedCount {
+
+        private final LongSupplier query;
+        private final long refreshNanos;
+        private long value;
+        private long refreshedAt;
+        private boolean loaded;
+
+        CachedCount(LongSupplier query, Duration refreshInterval) {
+            this.query = query;
+            this.refreshNanos = refreshInterval.toNanos();
+        }
+
+        synchronized double value() {
+            long now = System.nanoTime();
+            if (!loaded || now - refreshedAt >= refreshNanos) {
+                value = query.getAsLong();
+                refreshedAt = now;
+                loaded = true;
+            }
+            return value;
+        }
+    }
+}
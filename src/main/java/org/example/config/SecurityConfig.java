@@ -1,8 +1,11 @@
 package org.example.config;
 
+import org.example.service.TokenService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -13,6 +16,9 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+
+import java.time.Duration;
 
 @Configuration
 @EnableWebSecurity
@@ -30,13 +36,24 @@ public class SecurityConfig {
         return new BCryptPasswordEncoder();
     }
 
+    @Bean
+    public CachingAuthenticationProvider cachingAuthenticationProvider(
+            @Value("${bookstore.security.credential-cache.ttl:PT30S}") Duration ttl,
+            @Value("${bookstore.security.credential-cache.max-size:10000}") long maxSize) {
+        DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
+        daoAuthenticationProvider.setUserDetailsService(userDetailsService);
+        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder());
+
+        return new CachingAuthenticationProvider(daoAuthenticationProvider, ttl, maxSize);
+    }
+
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration authConfig) throws Exception {
         return authConfig.getAuthenticationManager();
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, TokenService tokenService) throws Exception {
         http.csrf().disable();
 
         http.authorizeRequests()
@@ -49,6 +66,9 @@ public class SecurityConfig {
 
             .antMatchers("/api/admin/**").hasAuthority("ROLE_ADMIN")
 
+            .antMatchers("/actuator/health").permitAll()
+            .antMatchers("/actuator/**").hasAuthority("ROLE_ADMIN")
+
             .anyRequest().authenticated();
 
         http.sessionManagement()
@@ -56,16 +76,18 @@ public class SecurityConfig {
 
         http.httpBasic();
 
+        http.addFilterBefore(new TokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class);
+
         return http.build();
     }
 
     @Bean
-    public AuthenticationManager authManager(HttpSecurity http) throws Exception {
+    public AuthenticationManager authManager(HttpSecurity http,
+                                             CachingAuthenticationProvider cachingAuthenticationProvider) throws Exception {
         AuthenticationManagerBuilder authManagerBuilder = 
             http.getSharedObject(AuthenticationManagerBuilder.class);
 
-        authManagerBuilder.userDetailsService(userDetailsService)
-            .passwordEncoder(passwordEncoder());
+        authManagerBuilder.authenticationProvider(cachingAuthenticationProvider);
 
         return authManagerBuilder.build();
     }
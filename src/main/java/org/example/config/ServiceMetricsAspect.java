@@ -0,0 +1,45 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+
+    public static final String METRIC_NAME = "bookstore.service";
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    public ServiceMetricsAspect(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    @Around("execution(public * *(..)) && ("
+            + "within(org.example.service.BookService) || "
+            + "within(org.example.service.BookLoanService) || "
+            + "within(org.example.service.BookReservationService) || "
+            + "within(org.example.service.UserService))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        MeterRegistry meterRegistry = meterRegistryProvider.getObject();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(METRIC_NAME)
+                    .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -6,11 +6,16 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.example.dto.RefreshTokenRequest;
+import org.example.dto.TokenRequest;
+import org.example.dto.TokenResponse;
 import org.example.entity.User;
+import org.example.service.TokenService;
 import org.example.service.UserService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
@@ -24,6 +29,7 @@ import java.util.Map;
 public class AuthController {
 
     private final UserService userService;
+    private final TokenService tokenService;
 
     @PostMapping("/register")
     @Operation(summary = "Register new user",description = "Adds new user to database")
@@ -60,6 +66,32 @@ public class AuthController {
         }
     }
 
+    @PostMapping("/token")
+    @Operation(summary = "Issue tokens",description = "Exchanges username and password for a signed access token and a refresh token")
+    public ResponseEntity<?> issueToken(@Parameter(description = "User credentials",required = true)@Valid @RequestBody TokenRequest request) {
+        try {
+            TokenResponse tokens = tokenService.issueTokens(request.getUsername(), request.getPassword());
+            return ResponseEntity.ok(tokens);
+        } catch (AuthenticationException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+    }
+
+    @PostMapping("/refresh")
+    @Operation(summary = "Refresh tokens",description = "Exchanges a refresh token for a new access token and refresh token")
+    public ResponseEntity<?> refreshToken(@Parameter(description = "Refresh token",required = true)@Valid @RequestBody RefreshTokenRequest request) {
+        try {
+            TokenResponse tokens = tokenService.refreshTokens(request.getRefreshToken());
+            return ResponseEntity.ok(tokens);
+        } catch (AuthenticationException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+    }
+
     @GetMapping("/me")
     @Operation  (summary = "Get current user",description = "Returns current user")
     public ResponseEntity<?> getCurrentUser() {
@@ -5,6 +5,12 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.example.dto.BookFacets;
+import org.example.dto.BookFuzzyMatch;
+import org.example.dto.BookPage;
+import org.example.dto.BookSearchPage;
+import org.example.dto.BookSnapshot;
+import org.example.dto.BookSuggestion;
 import org.example.entity.Book;
 import org.example.service.BookService;
 import org.springframework.http.HttpStatus;
@@ -43,7 +49,7 @@ public class BookController {
     @GetMapping("/get/{id}")
     @Operation (summary = "Get book by id", description = "Returns book with assigned id")
     public ResponseEntity<?> getBookById(@Parameter(description="ID of the book",required = true)@PathVariable Long id) {
-        Optional<Book> bookOptional = bookService.findById(id);
+        Optional<BookSnapshot> bookOptional = bookService.findSnapshotById(id);
         if (bookOptional.isPresent()) {
             return ResponseEntity.ok(bookOptional.get());
         } else {
@@ -54,10 +60,100 @@ public class BookController {
     }
 
     @GetMapping("/all")
-    @Operation (summary = "Get all books", description = "Returns list of all books in database")
-    public ResponseEntity<List<Book>> getAllBooks() {
-        List<Book> books = bookService.findAllBooks();
-        return ResponseEntity.ok(books);
+    @Operation (summary = "Get all books", description = "Returns page of books ordered by id, pass nextCursor to get the following page")
+    public ResponseEntity<?> getAllBooks(
+            @Parameter (description="Cursor returned with the previous page") @RequestParam(required = false) String cursor,
+            @Parameter (description="Number of books on the page (max 100)") @RequestParam(defaultValue = "50") int size) {
+        try {
+            BookPage page = bookService.findBooksPage(cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/search")
+    @Operation (summary = "Search books", description = "Returns books matching the query in title, author or description, ranked by relevance, pass nextCursor to get the following page")
+    public ResponseEntity<?> searchBooks(
+            @Parameter (description="Words to search for, the last one may be a prefix",required = true) @RequestParam String q,
+            @Parameter (description="Cursor returned with the previous page") @RequestParam(required = false) String cursor,
+            @Parameter (description="Number of books on the page (max 100)") @RequestParam(defaultValue = "20") int size) {
+        try {
+            BookSearchPage page = bookService.searchBooks(q, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/index/search")
+    @Operation (summary = "Search books in memory index", description = "Returns books matching the query from the in-memory index sorted by ID, words ending with * match as prefixes, pass nextCursor to get the following page")
+    public ResponseEntity<?> searchBookIndex(
+            @Parameter (description="Words to search for, a word ending with * matches as a prefix",required = true) @RequestParam String q,
+            @Parameter (description="AND to require all words, OR to require any of them") @RequestParam(defaultValue = "AND") String operator,
+            @Parameter (description="Only books with available copies") @RequestParam(defaultValue = "false") boolean available,
+            @Parameter (description="Cursor returned with the previous page") @RequestParam(required = false) String cursor,
+            @Parameter (description="Number of books on the page (max 100)") @RequestParam(defaultValue = "20") int size) {
+        try {
+            BookPage page = bookService.searchIndex(q, operator, available, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/suggest")
+    @Operation (summary = "Suggest books", description = "Returns up to 10 titles and authors starting with the typed text, the most borrowed first")
+    public ResponseEntity<?> suggestBooks(
+            @Parameter (description="Beginning of a title or author",required = true) @RequestParam String q) {
+        try {
+            List<BookSuggestion> suggestions = bookService.suggestBooks(q);
+            return ResponseEntity.ok(suggestions);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/fuzzy")
+    @Operation (summary = "Find books with similar title or author", description = "Returns books whose title or author contains the query with up to 2 typos, closest matches first")
+    public ResponseEntity<?> findSimilarBooks(
+            @Parameter (description="Title or author, may contain typos and skip Polish letters",required = true) @RequestParam String q,
+            @Parameter (description="Maximum number of books (max 100)") @RequestParam(defaultValue = "20") int size) {
+        try {
+            List<BookFuzzyMatch> matches = bookService.findSimilar(q, size);
+            return ResponseEntity.ok(matches);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/facets")
+    @Operation (summary = "Get book facets", description = "Returns the number of matching books per author, availability and quantity range, optionally narrowed by a search query from the in-memory index and by selected facet values")
+    public ResponseEntity<?> getBookFacets(
+            @Parameter (description="Words to search for in the in-memory index, a word ending with * matches as a prefix") @RequestParam(required = false) String q,
+            @Parameter (description="AND to require all words, OR to require any of them") @RequestParam(defaultValue = "AND") String operator,
+            @Parameter (description="Exact author name") @RequestParam(required = false) String author,
+            @Parameter (description="AVAILABLE, RESERVED_OUT or LOANED_OUT") @RequestParam(required = false) String availability,
+            @Parameter (description="Quantity range: 0, 1, 2-4, 5-9 or 10+") @RequestParam(required = false) String quantity,
+            @Parameter (description="Number of authors with the most books (max 100)") @RequestParam(defaultValue = "20") int size) {
+        try {
+            BookFacets facets = bookService.findFacets(q, operator, author, availability, quantity, size);
+            return ResponseEntity.ok(facets);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
     }
 
     @GetMapping("/available")
@@ -1,10 +1,15 @@
 package org.example.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.example.dto.BookLoanSummary;
+import org.example.dto.LoanBatchItem;
+import org.example.dto.LoanReturnReport;
 import org.example.entity.Book;
 import org.example.entity.BookLoan;
 import org.example.entity.User;
@@ -13,10 +18,14 @@ import org.example.service.BookService;
 import org.example.service.UserService;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -32,6 +41,7 @@ public class BookLoanController {
     private final BookLoanService bookLoanService;
     private final UserService userService;
     private final BookService bookService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/add")
     @Operation(summary = "Create new loan", description = "Adds new loan to database")
@@ -49,6 +59,23 @@ public class BookLoanController {
         }
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Create loans for many books", description = "Loans several books to one user in a single transaction and reports the result for every book")
+    public ResponseEntity<?> createLoans(
+            @Parameter(description="ID of the user",required = true) @RequestParam Long userId,
+            @Parameter (description="Due date",required = true) @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dueDate,
+            @Parameter (description="IDs of the books",required = true) @RequestBody List<Long> bookIds) {
+        try {
+            List<LoanBatchItem> items = bookLoanService.createLoans(userId, bookIds, dueDate);
+            boolean created = items.stream().anyMatch(item -> item.getLoanId() != null);
+            return ResponseEntity.status(created ? HttpStatus.CREATED : HttpStatus.BAD_REQUEST).body(items);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @GetMapping("/get/{id}")
     @Operation(summary = "Get loan by id", description = "Returns loan with assigned id")
     public ResponseEntity<?> getLoanById(@Parameter(description="ID of the loan",required = true)@PathVariable Long id) {
@@ -67,7 +94,7 @@ public class BookLoanController {
     public ResponseEntity<?> getLoansByUser(@Parameter(description="ID of the user",required = true) @PathVariable Long userId) {
         Optional<User> userOptional = userService.findById(userId);
         if (userOptional.isPresent()) {
-            List<BookLoan> loans = bookLoanService.findByUser(userOptional.get());
+            List<BookLoanSummary> loans = bookLoanService.findByUser(userOptional.get());
             return ResponseEntity.ok(loans);
         } else {
             Map<String, String> response = new HashMap<>();
@@ -82,7 +109,7 @@ public class BookLoanController {
     public ResponseEntity<?> getLoansByBook(@Parameter(description="ID of the book",required = true) @PathVariable Long bookId) {
         Optional<Book> bookOptional = bookService.findById(bookId);
         if (bookOptional.isPresent()) {
-            List<BookLoan> loans = bookLoanService.findByBook(bookOptional.get());
+            List<BookLoanSummary> loans = bookLoanService.findByBook(bookOptional.get());
             return ResponseEntity.ok(loans);
         } else {
             Map<String, String> response = new HashMap<>();
@@ -94,8 +121,8 @@ public class BookLoanController {
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/active")
     @Operation(summary = "Get loans by active status", description = "Returns list of active loans",security = @SecurityRequirement(name = "basicAuth"))
-    public ResponseEntity<List<BookLoan>> getActiveLoans() {
-        List<BookLoan> loans = bookLoanService.findActiveLoans();
+    public ResponseEntity<List<BookLoanSummary>> getActiveLoans() {
+        List<BookLoanSummary> loans = bookLoanService.findActiveLoans();
         return ResponseEntity.ok(loans);
     }
 
@@ -104,7 +131,7 @@ public class BookLoanController {
     public ResponseEntity<?> getActiveLoansForUser(@Parameter(description="ID of the user",required = true)@PathVariable Long userId) {
         Optional<User> userOptional = userService.findById(userId);
         if (userOptional.isPresent()) {
-            List<BookLoan> loans = bookLoanService.findActiveLoansForUser(userOptional.get());
+            List<BookLoanSummary> loans = bookLoanService.findActiveLoansForUser(userOptional.get());
             return ResponseEntity.ok(loans);
         } else {
             Map<String, String> response = new HashMap<>();
@@ -119,7 +146,7 @@ public class BookLoanController {
     public ResponseEntity<?> getActiveLoansForBook(@Parameter(description="ID of the book",required = true) @PathVariable Long bookId) {
         Optional<Book> bookOptional = bookService.findById(bookId);
         if (bookOptional.isPresent()) {
-            List<BookLoan> loans = bookLoanService.findActiveLoansForBook(bookOptional.get());
+            List<BookLoanSummary> loans = bookLoanService.findActiveLoansForBook(bookOptional.get());
             return ResponseEntity.ok(loans);
         } else {
             Map<String, String> response = new HashMap<>();
@@ -131,16 +158,30 @@ public class BookLoanController {
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/all")
     @Operation(summary = "Get all loans", description = "Returns list of all loans",security = @SecurityRequirement(name = "basicAuth"))
-    public ResponseEntity<List<BookLoan>> getAllLoans() {
-        List<BookLoan> loans = bookLoanService.findAllLoans();
+    public ResponseEntity<List<BookLoanSummary>> getAllLoans() {
+        List<BookLoanSummary> loans = bookLoanService.findAllLoans();
         return ResponseEntity.ok(loans);
     }
 
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/export")
+    @Operation(summary = "Export all loans", description = "Streams all loans as JSON array",security = @SecurityRequirement(name = "basicAuth"))
+    public ResponseEntity<StreamingResponseBody> exportLoans() {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                bookLoanService.exportAllLoans(loan -> writeLoan(generator, loan));
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/overdue")
     @Operation(summary = "Get all overdue loans", description = "Returns list of all overdue loans",security = @SecurityRequirement(name = "basicAuth"))
-    public ResponseEntity<List<BookLoan>> getOverdueLoans() {
-        List<BookLoan> loans = bookLoanService.findOverdueLoans();
+    public ResponseEntity<List<BookLoanSummary>> getOverdueLoans() {
+        List<BookLoanSummary> loans = bookLoanService.findOverdueLoans();
         return ResponseEntity.ok(loans);
     }
 
@@ -157,4 +198,25 @@ public class BookLoanController {
             return ResponseEntity.badRequest().body(response);
         }
     }
-}
\ No newline at end of file
+
+    @PostMapping("/return/batch")
+    @Operation(summary = "Returns many books by ids of the loans", description = "Returns books for all listed loans and reports loans that were already returned or do not exist")
+    public ResponseEntity<?> returnBooks(@Parameter(description="IDs of the loans",required = true) @RequestBody List<Long> loanIds) {
+        try {
+            LoanReturnReport report = bookLoanService.returnBooks(loanIds);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    private void writeLoan(JsonGenerator generator, BookLoanSummary loan) {
+        try {
+            generator.writeObject(loan);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package org.example.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.example.dto.BookReservationSummary;
 import org.example.entity.Book;
 import org.example.entity.BookLoan;
 import org.example.entity.BookReservation;
@@ -14,10 +17,14 @@ import org.example.service.BookService;
 import org.example.service.UserService;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -33,6 +40,7 @@ public class BookReservationController {
     private final BookReservationService bookReservationService;
     private final UserService userService;
     private final BookService bookService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/add")
     @Operation(summary = "Create new reservation", description = "Adds new reservation to database")
@@ -68,7 +76,7 @@ public class BookReservationController {
     public ResponseEntity<?> getReservationsByUser(@Parameter(description="ID of the user",required = true) @PathVariable Long userId) {
         Optional<User> userOptional = userService.findById(userId);
         if (userOptional.isPresent()) {
-            List<BookReservation> reservations = bookReservationService.findByUser(userOptional.get());
+            List<BookReservationSummary> reservations = bookReservationService.findByUser(userOptional.get());
             return ResponseEntity.ok(reservations);
         } else {
             Map<String, String> response = new HashMap<>();
@@ -82,7 +90,7 @@ public class BookReservationController {
     public ResponseEntity<?> getReservationsByBook(@Parameter(description="ID of the book",required = true)@PathVariable Long bookId) {
         Optional<Book> bookOptional = bookService.findById(bookId);
         if (bookOptional.isPresent()) {
-            List<BookReservation> reservations = bookReservationService.findByBook(bookOptional.get());
+            List<BookReservationSummary> reservations = bookReservationService.findByBook(bookOptional.get());
             return ResponseEntity.ok(reservations);
         } else {
             Map<String, String> response = new HashMap<>();
@@ -96,7 +104,7 @@ public class BookReservationController {
     public ResponseEntity<?> getActiveReservationsByUser(@Parameter(description="ID of the user",required = true) @PathVariable Long userId) {
         Optional<User> userOptional = userService.findById(userId);
         if (userOptional.isPresent()) {
-            List<BookReservation> reservations = bookReservationService.findActiveReservationsByUser(userOptional.get());
+            List<BookReservationSummary> reservations = bookReservationService.findActiveReservationsByUser(userOptional.get());
             return ResponseEntity.ok(reservations);
         } else {
             Map<String, String> response = new HashMap<>();
@@ -111,7 +119,7 @@ public class BookReservationController {
     public ResponseEntity<?> getActiveReservationsByBook(@Parameter(description="ID of the book",required = true) @PathVariable Long bookId) {
         Optional<Book> bookOptional = bookService.findById(bookId);
         if (bookOptional.isPresent()) {
-            List<BookReservation> reservations = bookReservationService.findActiveReservationsByBook(bookOptional.get());
+            List<BookReservationSummary> reservations = bookReservationService.findActiveReservationsByBook(bookOptional.get());
             return ResponseEntity.ok(reservations);
         } else {
             Map<String, String> response = new HashMap<>();
@@ -123,26 +131,38 @@ public class BookReservationController {
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/all")
     @Operation(summary = "Get all reservations", description = "Returns list of all reservations",security = @SecurityRequirement(name = "basicAuth"))
-    public ResponseEntity<List<BookReservation>> getAllReservations() {
-        List<BookReservation> reservation = bookReservationService.findAllReservations();
+    public ResponseEntity<List<BookReservationSummary>> getAllReservations() {
+        List<BookReservationSummary> reservation = bookReservationService.findAllReservations();
         return ResponseEntity.ok(reservation);
     }
 
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/export")
+    @Operation(summary = "Export all reservations", description = "Streams all reservations as JSON array",security = @SecurityRequirement(name = "basicAuth"))
+    public ResponseEntity<StreamingResponseBody> exportReservations() {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                bookReservationService.exportAllReservations(reservation -> writeReservation(generator, reservation));
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/active")
     @Operation(summary = "Get all active reservations", description = "Returns list of active reservations",security = @SecurityRequirement(name = "basicAuth"))
-    public ResponseEntity<List<BookReservation>> getActiveReservations() {
-        List<BookReservation> reservations = bookReservationService.findAllReservations().stream()
-                .filter(BookReservation::isActive)
-                .collect(java.util.stream.Collectors.toList());
+    public ResponseEntity<List<BookReservationSummary>> getActiveReservations() {
+        List<BookReservationSummary> reservations = bookReservationService.findActiveReservations();
         return ResponseEntity.ok(reservations);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/expired")
     @Operation(summary = "Get all expired reservations", description = "Returns list of all expired reservations",security = @SecurityRequirement(name = "basicAuth"))
-    public ResponseEntity<List<BookReservation>> getExpiredReservations() {
-        List<BookReservation> reservations = bookReservationService.findExpiredReservations();
+    public ResponseEntity<List<BookReservationSummary>> getExpiredReservations() {
+        List<BookReservationSummary> reservations = bookReservationService.findExpiredReservations();
         return ResponseEntity.ok(reservations);
     }
 
@@ -164,12 +184,20 @@ public class BookReservationController {
     @Operation(summary = "Cancels expired reservations", description = "Using cancel system on overdue reservations",security = @SecurityRequirement(name = "basicAuth"))
     public ResponseEntity<?> processExpiredReservations() {
         try {
-            bookReservationService.processExpiredReservations();
-            return ResponseEntity.ok().build();
+            int expired = bookReservationService.processExpiredReservations();
+            return ResponseEntity.ok(Map.of("expired", expired));
         } catch (Exception e) {
             Map<String, String> response = new HashMap<>();
             response.put("error", e.getMessage());
             return ResponseEntity.badRequest().body(response);
         }
     }
+
+    private void writeReservation(JsonGenerator generator, BookReservationSummary reservation) {
+        try {
+            generator.writeObject(reservation);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -0,0 +1,12 @@
+package org.example.dto;
+
+public interface BookFacetEntry {
+
+    Long getId();
+
+    String getAuthor();
+
+    Integer getQuantity();
+
+    Integer getAvailableQuantity();
+}
@@ -0,0 +1,23 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookFacets {
+
+    private long total;
+
+    private List<BookFacetCount> authors;
+
+    private List<BookFacetCount> availability;
+
+    private List<BookFacetCount> quantity;
+}
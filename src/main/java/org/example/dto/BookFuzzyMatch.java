@@ -0,0 +1,31 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookFuzzyMatch {
+
+    public enum Field {
+        TITLE, AUTHOR
+    }
+
+    private Long id;
+
+    private String title;
+
+    private String author;
+
+    private Integer availableQuantity;
+
+    private Field field;
+
+    private int distance;
+
+    private float similarity;
+}
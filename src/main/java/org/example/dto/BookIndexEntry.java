@@ -0,0 +1,14 @@
+package org.example.dto;
+
+public interface BookIndexEntry {
+
+    Long getId();
+
+    String getTitle();
+
+    String getAuthor();
+
+    String getDescription();
+
+    Integer getAvailableQuantity();
+}
@@ -0,0 +1,8 @@
+package org.example.dto;
+
+public interface BookLoanCount {
+
+    Long getBookId();
+
+    Long getLoans();
+}
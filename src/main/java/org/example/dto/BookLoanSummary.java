@@ -0,0 +1,37 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookLoanSummary {
+
+    private Long id;
+
+    private Long userId;
+
+    private String username;
+
+    private Long bookId;
+
+    private String title;
+
+    private String author;
+
+    private LocalDateTime loanDate;
+
+    private LocalDateTime dueDate;
+
+    private LocalDateTime returnDate;
+
+    private boolean returned;
+
+    private boolean overdue;
+}
@@ -0,0 +1,33 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookReservationSummary {
+
+    private Long id;
+
+    private Long userId;
+
+    private String username;
+
+    private Long bookId;
+
+    private String title;
+
+    private String author;
+
+    private LocalDateTime reservationDate;
+
+    private LocalDateTime expirationDate;
+
+    private boolean active;
+}
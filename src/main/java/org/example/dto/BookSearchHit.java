@@ -0,0 +1,14 @@
+package org.example.dto;
+
+public interface BookSearchHit {
+
+    Long getId();
+
+    String getTitle();
+
+    String getAuthor();
+
+    Integer getAvailableQuantity();
+
+    Float getScore();
+}
@@ -0,0 +1,36 @@
+package org.example.dto;
+
+import lombok.Builder;
+import lombok.Value;
+import org.example.entity.Book;
+
+@Value
+@Builder
+public class BookSnapshot {
+
+    Long id;
+
+    String title;
+
+    String author;
+
+    String description;
+
+    Integer quantity;
+
+    Integer availableQuantity;
+
+    Long version;
+
+    public static BookSnapshot of(Book book) {
+        return BookSnapshot.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .description(book.getDescription())
+                .quantity(book.getQuantity())
+                .availableQuantity(book.getAvailableQuantity())
+                .version(book.getVersion())
+                .build();
+    }
+}
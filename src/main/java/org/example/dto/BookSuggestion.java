@@ -0,0 +1,25 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSuggestion {
+
+    public enum Type {
+        TITLE, AUTHOR
+    }
+
+    private String text;
+
+    private Type type;
+
+    private int books;
+
+    private long loans;
+}
@@ -0,0 +1,27 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanBatchItem {
+
+    private Long bookId;
+
+    private Long loanId;
+
+    private String error;
+
+    public static LoanBatchItem created(Long bookId, Long loanId) {
+        return new LoanBatchItem(bookId, loanId, null);
+    }
+
+    public static LoanBatchItem rejected(Long bookId, String error) {
+        return new LoanBatchItem(bookId, null, error);
+    }
+}
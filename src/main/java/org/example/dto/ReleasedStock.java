@@ -0,0 +1,8 @@
+package org.example.dto;
+
+public interface ReleasedStock {
+
+    Long getBookId();
+
+    Integer getReleased();
+}
@@ -0,0 +1,8 @@
+package org.example.dto;
+
+public interface ReturnedLoan {
+
+    Long getLoanId();
+
+    Long getBookId();
+}
@@ -16,14 +16,15 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class BookLoan {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_loan_seq")
+    @SequenceGenerator(name = "book_loan_seq", sequenceName = "book_loans_id_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id", nullable = false)
     private Book book;
 
@@ -37,4 +38,7 @@ public class BookLoan {
 
     @Column()
     private boolean returned;
+
+    @Column()
+    private boolean overdue;
 }
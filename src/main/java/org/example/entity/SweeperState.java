@@ -0,0 +1,26 @@
+package org.example.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "sweeper_state")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SweeperState {
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDateTime highWaterMark;
+
+    private LocalDateTime lastRunAt;
+}
@@ -0,0 +1,32 @@
+package org.example.event;
+
+import org.example.config.CacheConfig;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+@Component
+public class BookCacheInvalidator {
+
+    private static final List<String> BOOK_CACHES = List.of(
+            CacheConfig.BOOKS, CacheConfig.BOOK_AVAILABLE_QUANTITY, CacheConfig.BOOK_AVAILABLE);
+
+    private final CacheManager cacheManager;
+
+    public BookCacheInvalidator(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        for (String cacheName : BOOK_CACHES) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                event.getBookIds().forEach(cache::evict);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.event;
+
+import lombok.Value;
+
+import java.util.Collection;
+import java.util.Set;
+
+@Value
+public class BookChangedEvent {
+
+    public enum Change {
+        DETAILS,
+        LOANED,
+        STOCK
+    }
+
+    Set<Long> bookIds;
+    Change change;
+
+    public static BookChangedEvent of(Long bookId) {
+        return new BookChangedEvent(Set.of(bookId), Change.DETAILS);
+    }
+
+    public static BookChangedEvent of(Collection<Long> bookIds) {
+        return new BookChangedEvent(Set.copyOf(bookIds), Change.DETAILS);
+    }
+
+    public static BookChangedEvent loaned(Long bookId) {
+        return new BookChangedEvent(Set.of(bookId), Change.LOANED);
+    }
+
+    public static BookChangedEvent loaned(Collection<Long> bookIds) {
+        return new BookChangedEvent(Set.copyOf(bookIds), Change.LOANED);
+    }
+
+    public static BookChangedEvent stock(Long bookId) {
+        return new BookChangedEvent(Set.of(bookId), Change.STOCK);
+    }
+
+    public static BookChangedEvent stock(Collection<Long> bookIds) {
+        return new BookChangedEvent(Set.copyOf(bookIds), Change.STOCK);
+    }
+}
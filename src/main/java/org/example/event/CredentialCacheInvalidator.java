@@ -0,0 +1,20 @@
+package org.example.event;
+
+import org.example.config.CachingAuthenticationProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Component
+public class CredentialCacheInvalidator {
+
+    private final CachingAuthenticationProvider authenticationProvider;
+
+    public CredentialCacheInvalidator(CachingAuthenticationProvider authenticationProvider) {
+        this.authenticationProvider = authenticationProvider;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCredentialsChanged(UserCredentialsChangedEvent event) {
+        authenticationProvider.evict(event.getUsername());
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.event;
+
+import lombok.Value;
+
+@Value
+public class UserCredentialsChangedEvent {
+
+    String username;
+
+    public static UserCredentialsChangedEvent of(String username) {
+        return new UserCredentialsChangedEvent(username);
+    }
+}
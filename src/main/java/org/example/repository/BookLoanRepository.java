@@ -1,29 +1,118 @@
 package org.example.repository;
 
+import org.example.dto.BookLoanCount;
+import org.example.dto.BookLoanSummary;
+import org.example.dto.ReturnedLoan;
 import org.example.entity.Book;
 import org.example.entity.BookLoan;
 import org.example.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
 
 @Repository
 public interface BookLoanRepository extends JpaRepository<BookLoan, Long> {
-    List<BookLoan> findByUser(User user);
-    
-    List<BookLoan> findByBook(Book book);
-    
-    List<BookLoan> findByUserAndReturned(User user, boolean returned);
-    
-    List<BookLoan> findByBookAndReturned(Book book, boolean returned);
+    String ACTIVE_LOAN_CONSTRAINT = "uq_book_loans_active_user_book";
+
+    String SUMMARY_QUERY = "SELECT new org.example.dto.BookLoanSummary(" +
+            "l.id, u.id, u.username, b.id, b.title, b.author, l.loanDate, l.dueDate, l.returnDate, l.returned, l.overdue) " +
+            "FROM BookLoan l JOIN l.user u JOIN l.book b ";
+
+    @Override
+    @EntityGraph(attributePaths = {"user", "book"})
+    Optional<BookLoan> findById(Long id);
+
+    @Query(SUMMARY_QUERY + "WHERE l.user = :user")
+    List<BookLoanSummary> findSummariesByUser(@Param("user") User user);
+
+    @Query(SUMMARY_QUERY + "WHERE l.book = :book")
+    List<BookLoanSummary> findSummariesByBook(@Param("book") Book book);
+
+    @Query(SUMMARY_QUERY + "WHERE l.user = :user AND l.returned = :returned")
+    List<BookLoanSummary> findSummariesByUserAndReturned(@Param("user") User user, @Param("returned") boolean returned);
+
+    @Query(SUMMARY_QUERY + "WHERE l.book = :book AND l.returned = :returned")
+    List<BookLoanSummary> findSummariesByBookAndReturned(@Param("book") Book book, @Param("returned") boolean returned);
+
+    @Query(SUMMARY_QUERY + "WHERE l.returned = :returned")
+    List<BookLoanSummary> findSummariesByReturned(@Param("returned") boolean returned);
+
+    @Query(SUMMARY_QUERY)
+    List<BookLoanSummary> findAllSummaries();
+
+    boolean existsByUserAndBookAndReturnedFalse(User user, Book book);
+
+    @Query("SELECT l.book.id FROM BookLoan l WHERE l.user = :user AND l.returned = false AND l.book.id IN :bookIds")
+    List<Long> findActiveLoanBookIds(@Param("user") User user, @Param("bookIds") Collection<Long> bookIds);
     
-    @Query("SELECT l FROM BookLoan l WHERE l.returned = false AND l.dueDate < :now")
-    List<BookLoan> findOverdueLoans(@Param("now") LocalDateTime now);
+    @Query(SUMMARY_QUERY + "WHERE l.returned = false AND l.dueDate < :now")
+    List<BookLoanSummary> findOverdueLoans(@Param("now") LocalDateTime now);
     
     @Query("SELECT COUNT(l) FROM BookLoan l WHERE l.book = :book AND l.returned = false")
     long countActiveLoans(@Param("book") Book book);
-}
\ No newline at end of file
+
+    @Query("SELECT COUNT(l) FROM BookLoan l WHERE l.returned = false")
+    long countByReturnedFalse();
+
+    @Query("SELECT COUNT(l) FROM BookLoan l WHERE l.overdue = true")
+    long countByOverdueTrue();
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "book_loans"))
+    @Query(value = "WITH due AS (" +
+            "SELECT id FROM book_loans WHERE returned = false AND overdue = false AND due_date < :until " +
+            "ORDER BY id LIMIT :batchSize FOR UPDATE SKIP LOCKED) " +
+            "UPDATE book_loans l SET overdue = true FROM due WHERE l.id = due.id", nativeQuery = true)
+    int flagOverdueLoans(@Param("until") LocalDateTime until, @Param("batchSize") int batchSize);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BookLoan l SET l.returned = true, l.overdue = false, l.returnDate = :returnDate " +
+            "WHERE l.id = :id AND l.returned = false")
+    int markReturned(@Param("id") Long id, @Param("returnDate") LocalDateTime returnDate);
+
+    @Query("SELECT l.id FROM BookLoan l WHERE l.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Query(value = "WITH returned_loans AS (" +
+            "UPDATE book_loans SET returned = true, overdue = false, return_date = :returnDate WHERE id IN (:ids) AND returned = false " +
+            "RETURNING id, book_id), " +
+            "counts AS (" +
+            "SELECT book_id, COUNT(*) AS restored FROM returned_loans GROUP BY book_id), " +
+            "locked AS (" +
+            "SELECT b.id FROM books b JOIN counts c ON c.book_id = b.id ORDER BY b.id FOR UPDATE OF b), " +
+            "restored AS (" +
+            "UPDATE books b SET available_quantity = LEAST(b.quantity, b.available_quantity + c.restored), version = b.version + 1 " +
+            "FROM counts c JOIN locked k ON k.id = c.book_id WHERE b.id = c.book_id RETURNING b.id) " +
+            "SELECT id AS \"loanId\", book_id AS \"bookId\" FROM returned_loans", nativeQuery = true)
+    List<ReturnedLoan> returnLoans(@Param("ids") Collection<Long> ids, @Param("returnDate") LocalDateTime returnDate);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SUMMARY_QUERY)
+    Stream<BookLoanSummary> streamAllSummaries();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT l.book.id AS bookId, COUNT(l) AS loans FROM BookLoan l GROUP BY l.book.id")
+    Stream<BookLoanCount> streamLoanCounts();
+
+    @Query("SELECT l.book.id AS bookId, COUNT(l) AS loans FROM BookLoan l WHERE l.book.id IN :bookIds GROUP BY l.book.id")
+    List<BookLoanCount> findLoanCounts(@Param("bookIds") Collection<Long> bookIds);
+}
@@ -1,20 +1,84 @@
 package org.example.repository;
 
+import org.example.dto.BookFacetEntry;
+import org.example.dto.BookIndexEntry;
+import org.example.dto.BookSearchHit;
 import org.example.entity.Book;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookStockRepository {
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Book> findByTitle(String title);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Book> findByAuthor(String author);
 
     @Query("SELECT b FROM Book b WHERE b.availableQuantity > 0")
     List<Book> findAllAvailableBooks();
-}
\ No newline at end of file
+
+    @Query("SELECT COUNT(b) FROM Book b WHERE b.availableQuantity = 0")
+    long countOutOfStock();
+
+    @Query("SELECT b FROM Book b WHERE b.id > :after ORDER BY b.id")
+    List<Book> findPageAfter(@Param("after") Long after, Pageable pageable);
+
+    @Query(value = "WITH ranked AS (" +
+            "SELECT b.id, b.title, b.author, b.available_quantity, ts_rank_cd(b.search_vector, q, 33) AS score " +
+            "FROM books b, to_tsquery('bookstore_search', :query) q " +
+            "WHERE b.search_vector @@ q) " +
+            "SELECT id AS id, title AS title, author AS author, available_quantity AS availableQuantity, score AS score " +
+            "FROM ranked WHERE score < :afterScore OR (score = :afterScore AND id > :afterId) " +
+            "ORDER BY score DESC, id LIMIT :limit", nativeQuery = true)
+    List<BookSearchHit> search(@Param("query") String query,
+                               @Param("afterScore") float afterScore,
+                               @Param("afterId") long afterId,
+                               @Param("limit") int limit);
+
+    @Query(value = "SELECT set_config('pg_trgm.word_similarity_threshold', :threshold, true)", nativeQuery = true)
+    String setSimilarityThreshold(@Param("threshold") String threshold);
+
+    @Query(value = "SELECT b.id AS id, b.title AS title, b.author AS author, b.available_quantity AS availableQuantity, " +
+            "GREATEST(word_similarity(bookstore_fold(:query), bookstore_fold(b.title)), " +
+            "word_similarity(bookstore_fold(:query), bookstore_fold(b.author))) AS score " +
+            "FROM books b WHERE bookstore_fold(:query) <% bookstore_fold(b.title) " +
+            "OR bookstore_fold(:query) <% bookstore_fold(b.author) " +
+            "ORDER BY GREATEST(word_similarity(bookstore_fold(:query), bookstore_fold(b.title)), " +
+            "word_similarity(bookstore_fold(:query), bookstore_fold(b.author))) DESC, b.id " +
+            "LIMIT :maxCandidates", nativeQuery = true)
+    List<BookSearchHit> findSimilar(@Param("query") String query,
+                                    @Param("maxCandidates") int maxCandidates);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT b.id AS id, b.title AS title, b.author AS author, b.description AS description, " +
+            "b.availableQuantity AS availableQuantity FROM Book b")
+    Stream<BookIndexEntry> streamIndexEntries();
+
+    @Query("SELECT b.id AS id, b.title AS title, b.author AS author, b.description AS description, " +
+            "b.availableQuantity AS availableQuantity FROM Book b WHERE b.id IN :ids")
+    List<BookIndexEntry> findIndexEntries(@Param("ids") Collection<Long> ids);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT b.id AS id, b.author AS author, b.quantity AS quantity, b.availableQuantity AS availableQuantity FROM Book b")
+    Stream<BookFacetEntry> streamFacetEntries();
+
+    @Query("SELECT b.id AS id, b.author AS author, b.quantity AS quantity, b.availableQuantity AS availableQuantity " +
+            "FROM Book b WHERE b.id IN :ids")
+    List<BookFacetEntry> findFacetEntries(@Param("ids") Collection<Long> ids);
+}
@@ -1,29 +1,104 @@
 package org.example.repository;
 
+import org.example.dto.BookReservationSummary;
+import org.example.dto.ReleasedStock;
 import org.example.entity.Book;
 import org.example.entity.BookReservation;
 import org.example.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface BookReservationRepository extends JpaRepository<BookReservation, Long> {
-    List<BookReservation> findByUser(User user);
-    
-    List<BookReservation> findByBook(Book book);
-    
+    String ACTIVE_RESERVATION_CONSTRAINT = "uq_book_reservations_active_user_book";
+
+    String SUMMARY_QUERY = "SELECT new org.example.dto.BookReservationSummary(" +
+            "r.id, u.id, u.username, b.id, b.title, b.author, r.reservationDate, r.expirationDate, r.active) " +
+            "FROM BookReservation r JOIN r.user u JOIN r.book b ";
+
+    @Override
+    @EntityGraph(attributePaths = {"user", "book"})
+    Optional<BookReservation> findById(Long id);
+
     List<BookReservation> findByUserAndActive(User user, boolean active);
+
+    List<BookReservation> findByBookIdInAndActiveTrue(Collection<Long> bookIds);
+
+    @Query(SUMMARY_QUERY + "WHERE r.user = :user")
+    List<BookReservationSummary> findSummariesByUser(@Param("user") User user);
+
+    @Query(SUMMARY_QUERY + "WHERE r.book = :book")
+    List<BookReservationSummary> findSummariesByBook(@Param("book") Book book);
+
+    @Query(SUMMARY_QUERY + "WHERE r.user = :user AND r.active = :active")
+    List<BookReservationSummary> findSummariesByUserAndActive(@Param("user") User user, @Param("active") boolean active);
+
+    @Query(SUMMARY_QUERY + "WHERE r.book = :book AND r.active = :active")
+    List<BookReservationSummary> findSummariesByBookAndActive(@Param("book") Book book, @Param("active") boolean active);
+
+    @Query(SUMMARY_QUERY + "WHERE r.active = :active")
+    List<BookReservationSummary> findSummariesByActive(@Param("active") boolean active);
+
+    @Query(SUMMARY_QUERY)
+    List<BookReservationSummary> findAllSummaries();
+
+    boolean existsByUserAndBookAndActiveTrue(User user, Book book);
     
-    List<BookReservation> findByBookAndActive(Book book, boolean active);
-    
-    @Query("SELECT r FROM BookReservation r WHERE r.expirationDate < :now")
-    List<BookReservation> findExpiredReservations(@Param("now") LocalDateTime now);
+    @Query(SUMMARY_QUERY + "WHERE r.expirationDate < :now")
+    List<BookReservationSummary> findExpiredReservations(@Param("now") LocalDateTime now);
     
     @Query("SELECT COUNT(r) FROM BookReservation r WHERE r.book = :book AND r.active = true")
     long countActiveReservationsByBook(@Param("book") Book book);
-}
\ No newline at end of file
+
+    @Query("SELECT COUNT(r) FROM BookReservation r WHERE r.active = true")
+    long countByActiveTrue();
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BookReservation r SET r.active = false WHERE r.id = :id AND r.active = true")
+    int deactivate(@Param("id") Long id);
+
+    @Transactional
+    @Query(value = "WITH expired AS (" +
+            "SELECT id FROM book_reservations WHERE active = true AND expiration_date < :until " +
+            "ORDER BY id LIMIT :batchSize FOR UPDATE SKIP LOCKED), " +
+            "deactivated AS (" +
+            "UPDATE book_reservations r SET active = false FROM expired e WHERE r.id = e.id RETURNING r.book_id), " +
+            "released AS (" +
+            "SELECT book_id, COUNT(*) AS released FROM deactivated GROUP BY book_id), " +
+            "locked AS (" +
+            "SELECT id FROM books WHERE id IN (SELECT book_id FROM released) ORDER BY id FOR UPDATE), " +
+            "restored AS (" +
+            "UPDATE books b SET available_quantity = LEAST(b.quantity, b.available_quantity + rl.released), version = b.version + 1 " +
+            "FROM released rl JOIN locked k ON k.id = rl.book_id WHERE b.id = rl.book_id RETURNING b.id) " +
+            "SELECT book_id AS \"bookId\", CAST(released AS INTEGER) AS \"released\" FROM released", nativeQuery = true)
+    List<ReleasedStock> expireReservations(@Param("until") LocalDateTime until, @Param("batchSize") int batchSize);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SUMMARY_QUERY)
+    Stream<BookReservationSummary> streamAllSummaries();
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT DISTINCT r.book.id FROM BookReservation r WHERE r.active = true")
+    Stream<Long> streamReservedBookIds();
+
+    @Query("SELECT DISTINCT r.book.id FROM BookReservation r WHERE r.active = true AND r.book.id IN :bookIds")
+    List<Long> findReservedBookIds(@Param("bookIds") Collection<Long> bookIds);
+}
@@ -0,0 +1,15 @@
+package org.example.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface BookStockRepository {
+
+    int decrementAvailableQuantity(Long id);
+
+    int incrementAvailableQuantity(Long id);
+
+    List<Long> decrementAvailableQuantities(Collection<Long> ids);
+
+    void lockCachedBooks(Collection<Long> ids);
+}
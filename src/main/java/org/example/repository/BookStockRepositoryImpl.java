@@ -0,0 +1,100 @@
+package org.example.repository;
+
+import org.example.entity.Book;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public class BookStockRepositoryImpl implements BookStockRepository {
+
+    private static final String DECREMENT = "UPDATE books SET available_quantity = available_quantity - 1, version = version + 1 " +
+            "WHERE id = ? AND available_quantity > 0";
+    private static final String INCREMENT = "UPDATE books SET available_quantity = available_quantity + 1, version = version + 1 " +
+            "WHERE id = ? AND available_quantity < quantity";
+    private static final String DECREMENT_ALL = "WITH locked AS (" +
+            "SELECT id FROM books WHERE id IN (:ids) AND available_quantity > 0 ORDER BY id FOR UPDATE) " +
+            "UPDATE books b SET available_quantity = b.available_quantity - 1, version = b.version + 1 " +
+            "FROM locked WHERE b.id = locked.id RETURNING b.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BookStockRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    @Override
+    @Transactional
+    public int decrementAvailableQuantity(Long id) {
+        return updateStock(DECREMENT, id);
+    }
+
+    @Override
+    @Transactional
+    public int incrementAvailableQuantity(Long id) {
+        return updateStock(INCREMENT, id);
+    }
+
+    @Override
+    @Transactional
+    public List<Long> decrementAvailableQuantities(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        entityManager.flush();
+        List<Long> updated = namedParameterJdbcTemplate.queryForList(DECREMENT_ALL, Map.of("ids", ids), Long.class);
+        updated.forEach(this::detachBook);
+        lockCachedBooks(updated);
+        return updated;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockCachedBooks(Collection<Long> ids) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Book.class);
+        if (ids.isEmpty() || !persister.canWriteToCache()) {
+            return;
+        }
+        EntityDataAccess cacheAccess = persister.getCacheAccessStrategy();
+        for (Long id : ids) {
+            Object key = cacheAccess.generateCacheKey(id, persister, session.getFactory(), session.getTenantIdentifier());
+            SoftLock lock = cacheAccess.lockItem(session, key, null);
+            session.getActionQueue().registerProcess((success, completed) -> cacheAccess.unlockItem(completed, key, lock));
+        }
+    }
+
+    private int updateStock(String sql, Long id) {
+        entityManager.flush();
+        int updated = jdbcTemplate.update(sql, id);
+        if (updated > 0) {
+            detachBook(id);
+            lockCachedBooks(List.of(id));
+        }
+        return updated;
+    }
+
+    private void detachBook(Long id) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Book.class);
+        Object managed = session.getPersistenceContextInternal().getEntity(session.generateEntityKey(id, persister));
+        if (managed != null) {
+            entityManager.detach(managed);
+        }
+    }
+}
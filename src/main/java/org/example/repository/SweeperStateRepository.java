@@ -0,0 +1,9 @@
+package org.example.repository;
+
+import org.example.entity.SweeperState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SweeperStateRepository extends JpaRepository<SweeperState, String> {
+}
@@ -0,0 +1,51 @@
+package org.example.scheduler;
+
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+@Component
+public class AdvisoryLeaderLock {
+
+    private final DataSource dataSource;
+
+    public AdvisoryLeaderLock(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public boolean runIfLeader(long lockId, Runnable task) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!tryLock(connection, lockId)) {
+                return false;
+            }
+            try {
+                task.run();
+            } finally {
+                unlock(connection, lockId);
+            }
+            return true;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not acquire leader lock " + lockId, e);
+        }
+    }
+
+    private boolean tryLock(Connection connection, long lockId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, lockId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(Connection connection, long lockId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            statement.setLong(1, lockId);
+            statement.execute();
+        }
+    }
+}
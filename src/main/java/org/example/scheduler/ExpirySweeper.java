@@ -0,0 +1,105 @@
+package org.example.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.entity.SweeperState;
+import org.example.repository.SweeperStateRepository;
+import org.example.service.BookLoanService;
+import org.example.service.BookReservationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "bookstore.sweeper.enabled", havingValue = "true")
+public class ExpirySweeper {
+
+    static final String RESERVATIONS = "reservations";
+    static final String LOANS = "loans";
+
+    private final AdvisoryLeaderLock leaderLock;
+    private final SweeperStateRepository sweeperStateRepository;
+    private final MeterRegistry meterRegistry;
+    private final long lockId;
+    private final Map<String, Function<LocalDateTime, Integer>> jobs = new LinkedHashMap<>();
+    private final Map<String, AtomicReference<LocalDateTime>> highWaterMarks = new LinkedHashMap<>();
+    private final Counter skipped;
+
+    public ExpirySweeper(AdvisoryLeaderLock leaderLock,
+                         SweeperStateRepository sweeperStateRepository,
+                         BookReservationService bookReservationService,
+                         BookLoanService bookLoanService,
+                         MeterRegistry meterRegistry,
+                         @Value("${bookstore.sweeper.lock-id:727001}") long lockId) {
+        this.leaderLock = leaderLock;
+        this.sweeperStateRepository = sweeperStateRepository;
+        this.meterRegistry = meterRegistry;
+        this.lockId = lockId;
+        this.jobs.put(RESERVATIONS, bookReservationService::processExpiredReservations);
+        this.jobs.put(LOANS, bookLoanService::flagOverdueLoans);
+        for (String job : jobs.keySet()) {
+            AtomicReference<LocalDateTime> highWaterMark = new AtomicReference<>();
+            highWaterMarks.put(job, highWaterMark);
+            Gauge.builder("bookstore.sweeper.lag", highWaterMark, ExpirySweeper::lagSeconds)
+                    .description("Seconds between now and the sweeper high-water mark")
+                    .baseUnit("seconds")
+                    .tag("job", job)
+                    .register(meterRegistry);
+        }
+        this.skipped = Counter.builder("bookstore.sweeper.skipped")
+                .description("Sweeps skipped because another replica holds the leader lock")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.sweeper.interval:60000}", initialDelayString = "${bookstore.sweeper.initial-delay:30000}")
+    public void sweep() {
+        boolean leader = leaderLock.runIfLeader(lockId, () -> jobs.forEach(this::runJob));
+        if (!leader) {
+            skipped.increment();
+        }
+    }
+
+    private void runJob(String job, Function<LocalDateTime, Integer> sweeper) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            SweeperState state = sweeperStateRepository.findById(job)
+                    .orElseGet(() -> SweeperState.builder().name(job).build());
+            highWaterMarks.get(job).set(state.getHighWaterMark());
+
+            LocalDateTime until = LocalDateTime.now();
+            int rows = sweeper.apply(until);
+
+            state.setHighWaterMark(until);
+            state.setLastRunAt(until);
+            sweeperStateRepository.save(state);
+            highWaterMarks.get(job).set(until);
+            meterRegistry.counter("bookstore.sweeper.rows", "job", job).increment(rows);
+        } catch (RuntimeException e) {
+            outcome = "failure";
+            log.warn("Sweeper job {} failed", job, e);
+        } finally {
+            sample.stop(meterRegistry.timer("bookstore.sweeper.duration", "job", job, "outcome", outcome));
+        }
+    }
+
+    private static double lagSeconds(AtomicReference<LocalDateTime> highWaterMark) {
+        LocalDateTime value = highWaterMark.get();
+        if (value == null) {
+            return Double.NaN;
+        }
+        return Duration.between(value, LocalDateTime.now()).toMillis() / 1000.0;
+    }
+}
@@ -0,0 +1,419 @@
+package org.example.search;
+
+import org.example.dto.BookFacetCount;
+import org.example.dto.BookFacetEntry;
+import org.example.dto.BookFacets;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+@ConditionalOnProperty(name = "bookstore.search.facets.enabled", havingValue = "true", matchIfMissing = true)
+public class BookFacetIndex {
+
+    public enum Availability {
+        AVAILABLE, RESERVED_OUT, LOANED_OUT
+    }
+
+    public enum QuantityRange {
+        NONE("0", 0), ONE("1", 1), FEW("2-4", 2), SEVERAL("5-9", 5), MANY("10+", 10);
+
+        private final String label;
+        private final int min;
+
+        QuantityRange(String label, int min) {
+            this.label = label;
+            this.min = min;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public static QuantityRange of(Integer quantity) {
+            QuantityRange[] ranges = values();
+            for (int i = ranges.length - 1; i > 0; i--) {
+                if (quantity != null && quantity >= ranges[i].min) {
+                    return ranges[i];
+                }
+            }
+            return NONE;
+        }
+
+        public static QuantityRange fromLabel(String label) {
+            for (QuantityRange range : values()) {
+                if (range.label.equals(label)) {
+                    return range;
+                }
+            }
+            throw new IllegalArgumentException("Unknown quantity range: " + label);
+        }
+    }
+
+    public static final int MAX_AUTHORS = 100;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final byte IN_STOCK = 1;
+    private static final byte RESERVED = 2;
+    private static final Availability[] AVAILABILITIES = Availability.values();
+    private static final QuantityRange[] QUANTITY_RANGES = QuantityRange.values();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RoaringBitmap books = new RoaringBitmap();
+    private final RoaringBitmap[] availability = bitmaps(AVAILABILITIES.length);
+    private final RoaringBitmap[] quantityRanges = bitmaps(QUANTITY_RANGES.length);
+
+    private final Map<String, Integer> authorIds = new HashMap<>();
+    private final List<String> authorNames = new ArrayList<>();
+    private final Deque<Integer> freeAuthors = new ArrayDeque<>();
+    private int[] authorCounts = new int[INITIAL_CAPACITY];
+    private int[] authorHeads = new int[INITIAL_CAPACITY];
+
+    private final Map<Integer, Integer> slots = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private int slotCount;
+    private int[] slotIds = new int[INITIAL_CAPACITY];
+    private int[] bookAuthors = new int[INITIAL_CAPACITY];
+    private int[] nextBooks = new int[INITIAL_CAPACITY];
+    private int[] previousBooks = new int[INITIAL_CAPACITY];
+    private byte[] bookStates = new byte[INITIAL_CAPACITY];
+    private byte[] bookRanges = new byte[INITIAL_CAPACITY];
+    private volatile boolean ready;
+
+    public void put(BookFacetEntry book, boolean reserved) {
+        int id = IndexIds.toIndexId(book.getId());
+        boolean inStock = book.getAvailableQuantity() != null && book.getAvailableQuantity() > 0;
+        QuantityRange range = QuantityRange.of(book.getQuantity());
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.get(id);
+            if (slot != null) {
+                int reference = bookAuthors[slot];
+                String author = reference > 0 ? authorNames.get(reference - 1) : null;
+                if (author == null ? book.getAuthor() != null : !author.equals(book.getAuthor())) {
+                    unlink(slot);
+                    link(slot, book.getAuthor());
+                }
+                quantityRanges[bookRanges[slot]].remove(id);
+                availability[availabilityOf(bookStates[slot]).ordinal()].remove(id);
+            } else {
+                slot = allocate(id);
+                link(slot, book.getAuthor());
+                books.add(id);
+            }
+            bookRanges[slot] = (byte) range.ordinal();
+            quantityRanges[range.ordinal()].add(id);
+            bookStates[slot] = state(inStock, reserved);
+            availability[availabilityOf(bookStates[slot]).ordinal()].add(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void setReserved(Long bookId, boolean reserved) {
+        int id = IndexIds.toIndexId(bookId);
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.get(id);
+            if (slot == null) {
+                return;
+            }
+            availability[availabilityOf(bookStates[slot]).ordinal()].remove(id);
+            bookStates[slot] = state((bookStates[slot] & IN_STOCK) != 0, reserved);
+            availability[availabilityOf(bookStates[slot]).ordinal()].add(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long bookId) {
+        int id = IndexIds.toIndexId(bookId);
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.remove(id);
+            if (slot != null) {
+                unlink(slot);
+                quantityRanges[bookRanges[slot]].remove(id);
+                availability[availabilityOf(bookStates[slot]).ordinal()].remove(id);
+                books.remove(id);
+                bookRanges[slot] = 0;
+                bookStates[slot] = 0;
+                freeSlots.push(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public BookFacets facets(RoaringBitmap matches, String author, Availability availabilityFilter,
+                             QuantityRange rangeFilter, int authorLimit) {
+        int limit = Math.min(Math.max(authorLimit, 1), MAX_AUTHORS);
+        lock.readLock().lock();
+        try {
+            RoaringBitmap filter = null;
+            if (matches != null) {
+                filter = RoaringBitmap.and(matches, books);
+            }
+            if (author != null) {
+                filter = intersect(filter, authorBooks(author));
+            }
+            if (availabilityFilter != null) {
+                filter = intersect(filter, availability[availabilityFilter.ordinal()]);
+            }
+            if (rangeFilter != null) {
+                filter = intersect(filter, quantityRanges[rangeFilter.ordinal()]);
+            }
+
+            List<BookFacetCount> availabilityCounts = new ArrayList<>(AVAILABILITIES.length);
+            for (Availability bucket : AVAILABILITIES) {
+                availabilityCounts.add(count(bucket.name(), filter, availability[bucket.ordinal()]));
+            }
+            List<BookFacetCount> quantityCounts = new ArrayList<>(QUANTITY_RANGES.length);
+            for (QuantityRange range : QUANTITY_RANGES) {
+                quantityCounts.add(count(range.getLabel(), filter, quantityRanges[range.ordinal()]));
+            }
+            return BookFacets.builder()
+                    .total(filter == null ? books.getLongCardinality() : filter.getLongCardinality())
+                    .authors(topAuthors(filter, limit))
+                    .availability(availabilityCounts)
+                    .quantity(quantityCounts)
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return books.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int authorCount() {
+        lock.readLock().lock();
+        try {
+            return authorIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap authorBooks(String author) {
+        RoaringBitmap result = new RoaringBitmap();
+        Integer authorId = authorIds.get(author);
+        if (authorId != null) {
+            for (int reference = authorHeads[authorId]; reference > 0; reference = nextBooks[reference - 1]) {
+                result.add(slotIds[reference - 1]);
+            }
+        }
+        return result;
+    }
+
+    private List<BookFacetCount> topAuthors(RoaringBitmap filter, int limit) {
+        int[] counts;
+        Map<Integer, Integer> sparseCounts = null;
+        if (filter == null) {
+            counts = authorCounts;
+        } else if (filter.getLongCardinality() * 2 > books.getLongCardinality()) {
+            counts = Arrays.copyOf(authorCounts, authorNames.size());
+            for (IntIterator iterator = RoaringBitmap.andNot(books, filter).getIntIterator(); iterator.hasNext(); ) {
+                int reference = bookAuthors[slots.get(iterator.next())];
+                if (reference > 0) {
+                    counts[reference - 1]--;
+                }
+            }
+        } else if (filter.getLongCardinality() * 8 < authorNames.size()) {
+            counts = null;
+            sparseCounts = new HashMap<>();
+            for (IntIterator iterator = filter.getIntIterator(); iterator.hasNext(); ) {
+                int reference = bookAuthors[slots.get(iterator.next())];
+                if (reference > 0) {
+                    sparseCounts.merge(reference - 1, 1, Integer::sum);
+                }
+            }
+        } else {
+            counts = new int[authorNames.size()];
+            for (IntIterator iterator = filter.getIntIterator(); iterator.hasNext(); ) {
+                int reference = bookAuthors[slots.get(iterator.next())];
+                if (reference > 0) {
+                    counts[reference - 1]++;
+                }
+            }
+        }
+
+        Comparator<int[]> order = Comparator.<int[]>comparingInt(entry -> entry[1]).reversed()
+                .thenComparing(entry -> authorNames.get(entry[0]));
+        PriorityQueue<int[]> top = new PriorityQueue<>(limit + 1, order.reversed());
+        if (sparseCounts != null) {
+            for (Map.Entry<Integer, Integer> entry : sparseCounts.entrySet()) {
+                offer(top, entry.getKey(), entry.getValue(), limit);
+            }
+        } else {
+            for (int authorId = 0; authorId < authorNames.size(); authorId++) {
+                if (counts[authorId] > 0) {
+                    offer(top, authorId, counts[authorId], limit);
+                }
+            }
+        }
+
+        List<int[]> entries = new ArrayList<>(top);
+        entries.sort(order);
+        List<BookFacetCount> authors = new ArrayList<>(entries.size());
+        for (int[] entry : entries) {
+            authors.add(BookFacetCount.builder()
+                    .value(authorNames.get(entry[0]))
+                    .count(entry[1])
+                    .build());
+        }
+        return authors;
+    }
+
+    private int allocate(int id) {
+        int slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.pop();
+        ensureSlotCapacity(slot);
+        slotIds[slot] = id;
+        slots.put(id, slot);
+        return slot;
+    }
+
+    private void link(int slot, String author) {
+        if (author == null) {
+            bookAuthors[slot] = 0;
+            return;
+        }
+        Integer authorId = authorIds.get(author);
+        if (authorId == null) {
+            if (freeAuthors.isEmpty()) {
+                authorId = authorNames.size();
+                authorNames.add(author);
+                ensureAuthorCapacity(authorId);
+            } else {
+                authorId = freeAuthors.pop();
+                authorNames.set(authorId, author);
+            }
+            authorIds.put(author, authorId);
+        }
+        int head = authorHeads[authorId];
+        nextBooks[slot] = head;
+        previousBooks[slot] = 0;
+        if (head > 0) {
+            previousBooks[head - 1] = slot + 1;
+        }
+        authorHeads[authorId] = slot + 1;
+        authorCounts[authorId]++;
+        bookAuthors[slot] = authorId + 1;
+    }
+
+    private void unlink(int slot) {
+        int reference = bookAuthors[slot];
+        if (reference == 0) {
+            return;
+        }
+        int authorId = reference - 1;
+        int next = nextBooks[slot];
+        int previous = previousBooks[slot];
+        if (previous > 0) {
+            nextBooks[previous - 1] = next;
+        } else {
+            authorHeads[authorId] = next;
+        }
+        if (next > 0) {
+            previousBooks[next - 1] = previous;
+        }
+        nextBooks[slot] = 0;
+        previousBooks[slot] = 0;
+        bookAuthors[slot] = 0;
+        if (--authorCounts[authorId] == 0) {
+            authorIds.remove(authorNames.get(authorId));
+            authorNames.set(authorId, null);
+            freeAuthors.push(authorId);
+        }
+    }
+
+    private void ensureAuthorCapacity(int authorId) {
+        if (authorId >= authorCounts.length) {
+            int capacity = authorCounts.length * 2;
+            authorCounts = Arrays.copyOf(authorCounts, capacity);
+            authorHeads = Arrays.copyOf(authorHeads, capacity);
+        }
+    }
+
+    private void ensureSlotCapacity(int slot) {
+        if (slot >= slotIds.length) {
+            int capacity = slotIds.length * 2;
+            slotIds = Arrays.copyOf(slotIds, capacity);
+            bookAuthors = Arrays.copyOf(bookAuthors, capacity);
+            nextBooks = Arrays.copyOf(nextBooks, capacity);
+            previousBooks = Arrays.copyOf(previousBooks, capacity);
+            bookStates = Arrays.copyOf(bookStates, capacity);
+            bookRanges = Arrays.copyOf(bookRanges, capacity);
+        }
+    }
+
+    private void offer(PriorityQueue<int[]> top, int authorId, int count, int limit) {
+        if (top.size() < limit) {
+            top.add(new int[]{authorId, count});
+            return;
+        }
+        int[] worst = top.peek();
+        if (count > worst[1] || count == worst[1] && authorNames.get(authorId).compareTo(authorNames.get(worst[0])) < 0) {
+            top.poll();
+            top.add(new int[]{authorId, count});
+        }
+    }
+
+    private static BookFacetCount count(String value, RoaringBitmap filter, RoaringBitmap bucket) {
+        return BookFacetCount.builder()
+                .value(value)
+                .count(filter == null ? bucket.getLongCardinality() : RoaringBitmap.andCardinality(filter, bucket))
+                .build();
+    }
+
+    private static RoaringBitmap intersect(RoaringBitmap filter, RoaringBitmap bitmap) {
+        return filter == null ? bitmap : RoaringBitmap.and(filter, bitmap);
+    }
+
+    private static Availability availabilityOf(byte state) {
+        if ((state & IN_STOCK) != 0) {
+            return Availability.AVAILABLE;
+        }
+        return (state & RESERVED) != 0 ? Availability.RESERVED_OUT : Availability.LOANED_OUT;
+    }
+
+    private static byte state(boolean inStock, boolean reserved) {
+        return (byte) ((inStock ? IN_STOCK : 0) | (reserved ? RESERVED : 0));
+    }
+
+    private static RoaringBitmap[] bitmaps(int count) {
+        RoaringBitmap[] bitmaps = new RoaringBitmap[count];
+        for (int i = 0; i < count; i++) {
+            bitmaps[i] = new RoaringBitmap();
+        }
+        return bitmaps;
+    }
+
+}
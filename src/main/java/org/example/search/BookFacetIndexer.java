@@ -0,0 +1,114 @@
+package org.example.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.BookFacetEntry;
+import org.example.event.BookChangedEvent;
+import org.example.repository.BookRepository;
+import org.example.repository.BookReservationRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "bookstore.search.facets.enabled", havingValue = "true", matchIfMissing = true)
+public class BookFacetIndexer {
+
+    private final BookFacetIndex index;
+    private final BookRepository bookRepository;
+    private final BookReservationRepository bookReservationRepository;
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "facet-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BookFacetIndexer(BookFacetIndex index,
+                            BookRepository bookRepository,
+                            BookReservationRepository bookReservationRepository) {
+        this.index = index;
+        this.bookRepository = bookRepository;
+        this.bookReservationRepository = bookReservationRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        long started = System.nanoTime();
+        try (Stream<BookFacetEntry> books = bookRepository.streamFacetEntries()) {
+            books.forEach(book -> index.put(book, false));
+        }
+        try (Stream<Long> reserved = bookReservationRepository.streamReservedBookIds()) {
+            reserved.forEach(bookId -> index.setReserved(bookId, true));
+        }
+        refreshChanged();
+        index.markReady();
+        scheduleRefresh();
+        log.info("Facet index loaded {} books and {} authors in {} ms",
+                index.size(), index.authorCount(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        changed.addAll(event.getBookIds());
+        if (index.isReady()) {
+            scheduleRefresh();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    void awaitRefresh() throws InterruptedException, ExecutionException {
+        refresher.submit(() -> { }).get();
+    }
+
+    private void scheduleRefresh() {
+        if (!changed.isEmpty() && refreshScheduled.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                refreshScheduled.set(false);
+                try {
+                    refreshChanged();
+                } catch (RuntimeException e) {
+                    log.warn("Facet index refresh failed", e);
+                }
+            });
+        }
+    }
+
+    private void refreshChanged() {
+        while (!changed.isEmpty()) {
+            Set<Long> bookIds = new HashSet<>(changed);
+            changed.removeAll(bookIds);
+            refresh(bookIds);
+        }
+    }
+
+    private void refresh(Collection<Long> bookIds) {
+        Set<Long> reserved = new HashSet<>(bookReservationRepository.findReservedBookIds(bookIds));
+        Set<Long> removed = new HashSet<>(bookIds);
+        for (BookFacetEntry book : bookRepository.findFacetEntries(bookIds)) {
+            index.put(book, reserved.contains(book.getId()));
+            removed.remove(book.getId());
+        }
+        removed.forEach(index::remove);
+    }
+}
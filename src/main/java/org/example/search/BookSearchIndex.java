@@ -0,0 +1,233 @@
+package org.example.search;
+
+import org.example.dto.BookIndexEntry;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+@Component
+@ConditionalOnProperty(name = "bookstore.search.index.enabled", havingValue = "true")
+public class BookSearchIndex {
+
+    public enum Operator {
+        AND, OR
+    }
+
+    public static final int MAX_QUERY_TERMS = 8;
+
+    private static final String PREFIX_WILDCARD = "*";
+    private static final Pattern QUERY_SEPARATOR = Pattern.compile("\\s+");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Posting> postings = new HashMap<>();
+    private final NavigableSet<String> sortedTerms = new TreeSet<>();
+    private final Map<Integer, IndexedText> documents = new HashMap<>();
+    private final RoaringBitmap available = new RoaringBitmap();
+    private volatile boolean ready;
+
+    public void put(BookIndexEntry book) {
+        int id = IndexIds.toIndexId(book.getId());
+        String text = String.join("\n", nullToEmpty(book.getTitle()), nullToEmpty(book.getAuthor()), nullToEmpty(book.getDescription()));
+        int textHash = text.hashCode();
+        Set<String> terms = terms(text);
+        boolean inStock = book.getAvailableQuantity() != null && book.getAvailableQuantity() > 0;
+
+        lock.writeLock().lock();
+        try {
+            IndexedText indexed = documents.get(id);
+            if (indexed == null || indexed.textHash != textHash) {
+                if (indexed != null) {
+                    removeTerms(id, indexed.postings);
+                }
+                Posting[] bookPostings = new Posting[terms.size()];
+                int i = 0;
+                for (String term : terms) {
+                    Posting posting = postings.get(term);
+                    if (posting == null) {
+                        posting = new Posting(term);
+                        postings.put(term, posting);
+                        sortedTerms.add(term);
+                    }
+                    posting.ids.add(id);
+                    bookPostings[i++] = posting;
+                }
+                documents.put(id, new IndexedText(textHash, bookPostings));
+            }
+            if (inStock) {
+                available.add(id);
+            } else {
+                available.remove(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long bookId) {
+        int id = IndexIds.toIndexId(bookId);
+        lock.writeLock().lock();
+        try {
+            IndexedText indexed = documents.remove(id);
+            if (indexed != null) {
+                removeTerms(id, indexed.postings);
+                available.remove(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public RoaringBitmap search(String query, Operator operator, boolean availableOnly) {
+        List<String> queryTerms = parseQuery(query);
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> matches = new ArrayList<>(queryTerms.size());
+            for (String term : queryTerms) {
+                matches.add(match(term));
+            }
+            RoaringBitmap result;
+            if (operator == Operator.OR) {
+                result = FastAggregation.or(matches.iterator());
+            } else {
+                matches.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+                result = matches.get(0).clone();
+                for (int i = 1; i < matches.size() && !result.isEmpty(); i++) {
+                    result.and(matches.get(i));
+                }
+            }
+            if (availableOnly) {
+                result.and(available);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void markReady() {
+        lock.writeLock().lock();
+        try {
+            postings.values().forEach(posting -> posting.ids.runOptimize());
+            available.runOptimize();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static Set<String> terms(String text) {
+        String folded = TextFolding.fold(text);
+        Set<String> terms = new LinkedHashSet<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= folded.length(); i++) {
+            char c = i < folded.length() ? folded.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+            } else if (word.length() > 0) {
+                terms.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        return terms;
+    }
+
+    private static List<String> parseQuery(String query) {
+        List<String> queryTerms = new ArrayList<>();
+        if (query != null) {
+            for (String token : QUERY_SEPARATOR.split(query.trim())) {
+                List<String> words = new ArrayList<>(terms(token));
+                if (!words.isEmpty() && token.endsWith(PREFIX_WILDCARD)) {
+                    words.set(words.size() - 1, words.get(words.size() - 1) + PREFIX_WILDCARD);
+                }
+                queryTerms.addAll(words);
+            }
+        }
+        if (queryTerms.isEmpty()) {
+            throw new IllegalArgumentException("Search query is empty");
+        }
+        return queryTerms.size() > MAX_QUERY_TERMS ? queryTerms.subList(0, MAX_QUERY_TERMS) : queryTerms;
+    }
+
+    private RoaringBitmap match(String term) {
+        if (!term.endsWith(PREFIX_WILDCARD)) {
+            Posting posting = postings.get(term);
+            return posting != null ? posting.ids : new RoaringBitmap();
+        }
+        String prefix = term.substring(0, term.length() - PREFIX_WILDCARD.length());
+        Iterator<RoaringBitmap> matching = sortedTerms.subSet(prefix, true, prefix + Character.MAX_VALUE, true).stream()
+                .map(prefixed -> postings.get(prefixed).ids)
+                .iterator();
+        return matching.hasNext() ? FastAggregation.or(matching) : new RoaringBitmap();
+    }
+
+    private void removeTerms(int id, Posting[] bookPostings) {
+        for (Posting posting : bookPostings) {
+            if (posting.ids.checkedRemove(id) && posting.ids.isEmpty()) {
+                postings.remove(posting.term);
+                sortedTerms.remove(posting.term);
+            }
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static final class Posting {
+
+        private final String term;
+        private final RoaringBitmap ids = new RoaringBitmap();
+
+        private Posting(String term) {
+            this.term = term;
+        }
+    }
+
+    private static final class IndexedText {
+
+        private final int textHash;
+        private final Posting[] postings;
+
+        private IndexedText(int textHash, Posting[] postings) {
+            this.textHash = textHash;
+            this.postings = postings;
+        }
+    }
+}
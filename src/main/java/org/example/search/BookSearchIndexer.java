@@ -0,0 +1,118 @@
+package org.example.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.BookIndexEntry;
+import org.example.event.BookChangedEvent;
+import org.example.repository.BookRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "bookstore.search.index.enabled", havingValue = "true")
+public class BookSearchIndexer {
+
+    private final BookSearchIndex index;
+    private final BookRepository bookRepository;
+    private final Set<Long> changedDuringLoad = ConcurrentHashMap.newKeySet();
+    private final Set<Long> stockChanged = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BookSearchIndexer(BookSearchIndex index, BookRepository bookRepository) {
+        this.index = index;
+        this.bookRepository = bookRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        long started = System.nanoTime();
+        try (Stream<BookIndexEntry> books = bookRepository.streamIndexEntries()) {
+            books.forEach(index::put);
+        }
+        refreshChangedDuringLoad();
+        index.markReady();
+        refreshChangedDuringLoad();
+        log.info("Search index loaded {} books and {} terms in {} ms",
+                index.size(), index.termCount(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (!index.isReady()) {
+            changedDuringLoad.addAll(event.getBookIds());
+            return;
+        }
+        if (event.getChange() == BookChangedEvent.Change.DETAILS) {
+            refresh(event.getBookIds());
+        } else {
+            stockChanged.addAll(event.getBookIds());
+            scheduleRefresh();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    void awaitRefresh() throws InterruptedException, ExecutionException {
+        refresher.submit(() -> { }).get();
+    }
+
+    private void refreshChangedDuringLoad() {
+        while (!changedDuringLoad.isEmpty()) {
+            Set<Long> changed = new HashSet<>(changedDuringLoad);
+            changedDuringLoad.removeAll(changed);
+            refresh(changed);
+        }
+    }
+
+    private void scheduleRefresh() {
+        if (!stockChanged.isEmpty() && refreshScheduled.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                refreshScheduled.set(false);
+                try {
+                    while (!stockChanged.isEmpty()) {
+                        Set<Long> changed = new HashSet<>(stockChanged);
+                        stockChanged.removeAll(changed);
+                        refresh(changed);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Search index refresh failed", e);
+                }
+            });
+        }
+    }
+
+    private void refresh(Collection<Long> bookIds) {
+        List<BookIndexEntry> books = bookRepository.findIndexEntries(bookIds);
+        Set<Long> removed = new HashSet<>(bookIds);
+        for (BookIndexEntry book : books) {
+            index.put(book);
+            removed.remove(book.getId());
+        }
+        removed.forEach(index::remove);
+    }
+}
@@ -0,0 +1,393 @@
+package org.example.search;
+
+import org.example.dto.BookIndexEntry;
+import org.example.dto.BookSuggestion;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+@ConditionalOnProperty(name = "bookstore.search.suggest.enabled", havingValue = "true", matchIfMissing = true)
+public class BookSuggestionIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MIN_PENDING_BEFORE_REBUILD = 1024;
+    private static final int PENDING_RATIO = 1024;
+    private static final char TYPE_SEPARATOR = '\u0000';
+    private static final BookSuggestion.Type[] TYPES = BookSuggestion.Type.values();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private String[] texts = new String[INITIAL_CAPACITY];
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private int[] bookCounts = new int[INITIAL_CAPACITY];
+    private int[] loanCounts = new int[INITIAL_CAPACITY];
+    private int[] positions = new int[INITIAL_CAPACITY];
+    private int suggestionCount;
+
+    private int[] sorted = new int[0];
+    private int[] tree = new int[0];
+    private final Map<String, Integer> pending = new HashMap<>();
+
+    private final Map<Integer, SuggestedBook> books = new HashMap<>();
+    private volatile boolean ready;
+
+    public void put(BookIndexEntry book, long loanCount) {
+        int id = IndexIds.toIndexId(book.getId());
+        int loans = toCount(loanCount);
+        lock.writeLock().lock();
+        try {
+            replace(id, book, loans);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void update(BookIndexEntry book) {
+        int id = IndexIds.toIndexId(book.getId());
+        lock.writeLock().lock();
+        try {
+            SuggestedBook indexed = books.get(id);
+            replace(id, book, indexed != null ? indexed.loans : 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void setLoans(Long bookId, long loanCount) {
+        int id = IndexIds.toIndexId(bookId);
+        int loans = toCount(loanCount);
+        lock.writeLock().lock();
+        try {
+            SuggestedBook indexed = books.get(id);
+            if (indexed == null) {
+                return;
+            }
+            int delta = loans - indexed.loans;
+            addLoans(indexed.title, delta);
+            addLoans(indexed.author, delta);
+            indexed.loans = loans;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void recordLoans(Long bookId, int loans) {
+        int id = IndexIds.toIndexId(bookId);
+        lock.writeLock().lock();
+        try {
+            SuggestedBook indexed = books.get(id);
+            if (indexed == null || indexed.title == 0 && indexed.author == 0) {
+                return;
+            }
+            int delta = toCount((long) indexed.loans + loans) - indexed.loans;
+            addLoans(indexed.title, delta);
+            addLoans(indexed.author, delta);
+            indexed.loans += delta;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long bookId) {
+        int id = IndexIds.toIndexId(bookId);
+        lock.writeLock().lock();
+        try {
+            SuggestedBook indexed = books.remove(id);
+            if (indexed != null) {
+                release(indexed);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<BookSuggestion> suggest(String query, int limit) {
+        String prefix = TextFolding.normalize(query == null ? "" : query);
+        if (prefix.isEmpty()) {
+            throw new IllegalArgumentException("Query is empty");
+        }
+        int size = Math.min(Math.max(limit, 1), MAX_SUGGESTIONS);
+        lock.readLock().lock();
+        try {
+            List<Integer> candidates = new ArrayList<>(size * 2);
+            PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> compare(a[2], b[2]));
+            offerRange(ranges, lowerBound(prefix), lowerBound(prefix + Character.MAX_VALUE));
+            while (candidates.size() < size && !ranges.isEmpty()) {
+                int[] range = ranges.poll();
+                candidates.add(range[2]);
+                offerRange(ranges, range[0], positions[range[2]]);
+                offerRange(ranges, positions[range[2]] + 1, range[1]);
+            }
+            for (Map.Entry<String, Integer> entry : pending.entrySet()) {
+                if (entry.getKey().startsWith(prefix) && bookCounts[entry.getValue()] > 0) {
+                    candidates.add(entry.getValue());
+                }
+            }
+            candidates.sort(this::compare);
+            List<BookSuggestion> suggestions = new ArrayList<>(size);
+            for (int i = 0; i < candidates.size() && i < size; i++) {
+                int suggestion = candidates.get(i);
+                suggestions.add(BookSuggestion.builder()
+                        .text(texts[suggestion])
+                        .type(TYPES[types[suggestion]])
+                        .books(bookCounts[suggestion])
+                        .loans(loanCounts[suggestion])
+                        .build());
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void markReady() {
+        lock.writeLock().lock();
+        try {
+            rebuild();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            int live = 0;
+            for (int suggestion = 0; suggestion < suggestionCount; suggestion++) {
+                if (bookCounts[suggestion] > 0) {
+                    live++;
+                }
+            }
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void replace(int id, BookIndexEntry book, int loans) {
+        SuggestedBook indexed = books.get(id);
+        if (indexed == null) {
+            indexed = new SuggestedBook();
+            books.put(id, indexed);
+        } else {
+            release(indexed);
+        }
+        indexed.title = acquire(book.getTitle(), BookSuggestion.Type.TITLE, loans);
+        indexed.author = acquire(book.getAuthor(), BookSuggestion.Type.AUTHOR, loans);
+        indexed.loans = loans;
+        if (ready && pending.size() > Math.max(MIN_PENDING_BEFORE_REBUILD, sorted.length / PENDING_RATIO)) {
+            rebuild();
+        }
+    }
+
+    private int acquire(String text, BookSuggestion.Type type, int loans) {
+        if (text == null) {
+            return 0;
+        }
+        String key = TextFolding.normalize(text);
+        if (key.isEmpty()) {
+            return 0;
+        }
+        int suggestion = find(key, type);
+        if (suggestion < 0) {
+            suggestion = create(text, key, type);
+            pending.put(key + TYPE_SEPARATOR + type.ordinal(), suggestion);
+        }
+        bookCounts[suggestion]++;
+        loanCounts[suggestion] += loans;
+        touch(suggestion);
+        return suggestion + 1;
+    }
+
+    private void release(SuggestedBook book) {
+        for (int reference : new int[]{book.title, book.author}) {
+            if (reference > 0) {
+                int suggestion = reference - 1;
+                bookCounts[suggestion]--;
+                loanCounts[suggestion] -= book.loans;
+                touch(suggestion);
+            }
+        }
+    }
+
+    private void addLoans(int reference, int delta) {
+        if (reference > 0 && delta != 0) {
+            loanCounts[reference - 1] += delta;
+            touch(reference - 1);
+        }
+    }
+
+    private int find(String key, BookSuggestion.Type type) {
+        for (int position = lowerBound(key); position < sorted.length; position++) {
+            int suggestion = sorted[position];
+            if (!key.equals(keys[suggestion])) {
+                break;
+            }
+            if (types[suggestion] == type.ordinal()) {
+                return suggestion;
+            }
+        }
+        Integer suggestion = pending.get(key + TYPE_SEPARATOR + type.ordinal());
+        return suggestion != null ? suggestion : -1;
+    }
+
+    private int create(String text, String key, BookSuggestion.Type type) {
+        if (suggestionCount == texts.length) {
+            int capacity = texts.length * 2;
+            texts = Arrays.copyOf(texts, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            types = Arrays.copyOf(types, capacity);
+            bookCounts = Arrays.copyOf(bookCounts, capacity);
+            loanCounts = Arrays.copyOf(loanCounts, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+        }
+        int suggestion = suggestionCount++;
+        texts[suggestion] = text;
+        keys[suggestion] = key;
+        types[suggestion] = (byte) type.ordinal();
+        positions[suggestion] = -1;
+        return suggestion;
+    }
+
+    private void rebuild() {
+        List<Map.Entry<String, Integer>> fresh = new ArrayList<>(pending.size());
+        for (Map.Entry<String, Integer> entry : pending.entrySet()) {
+            if (bookCounts[entry.getValue()] > 0) {
+                fresh.add(entry);
+            }
+        }
+        fresh.sort(Map.Entry.comparingByKey());
+
+        int[] merged = new int[sorted.length + fresh.size()];
+        int count = 0;
+        int next = 0;
+        for (int suggestion : sorted) {
+            if (bookCounts[suggestion] <= 0) {
+                texts[suggestion] = null;
+                keys[suggestion] = null;
+                continue;
+            }
+            String key = keys[suggestion] + TYPE_SEPARATOR + types[suggestion];
+            while (next < fresh.size() && fresh.get(next).getKey().compareTo(key) < 0) {
+                merged[count++] = fresh.get(next++).getValue();
+            }
+            merged[count++] = suggestion;
+        }
+        while (next < fresh.size()) {
+            merged[count++] = fresh.get(next++).getValue();
+        }
+        for (Map.Entry<String, Integer> entry : pending.entrySet()) {
+            if (bookCounts[entry.getValue()] <= 0) {
+                texts[entry.getValue()] = null;
+                keys[entry.getValue()] = null;
+            }
+        }
+        pending.clear();
+
+        sorted = Arrays.copyOf(merged, count);
+        tree = new int[2 * count];
+        for (int position = 0; position < count; position++) {
+            positions[sorted[position]] = position;
+            tree[count + position] = sorted[position];
+        }
+        for (int node = count - 1; node > 0; node--) {
+            tree[node] = best(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    private void touch(int suggestion) {
+        int position = positions[suggestion];
+        if (position < 0) {
+            return;
+        }
+        for (int node = (position + sorted.length) / 2; node > 0; node /= 2) {
+            tree[node] = best(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    private void offerRange(PriorityQueue<int[]> ranges, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int result = -1;
+        for (int left = from + sorted.length, right = to + sorted.length; left < right; left /= 2, right /= 2) {
+            if ((left & 1) == 1) {
+                result = best(result, tree[left++]);
+            }
+            if ((right & 1) == 1) {
+                result = best(result, tree[--right]);
+            }
+        }
+        if (result >= 0 && bookCounts[result] > 0) {
+            ranges.add(new int[]{from, to, result});
+        }
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[sorted[middle]].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int best(int first, int second) {
+        if (first < 0) {
+            return second;
+        }
+        if (second < 0) {
+            return first;
+        }
+        return compare(first, second) <= 0 ? first : second;
+    }
+
+    private int compare(int first, int second) {
+        boolean firstLive = bookCounts[first] > 0;
+        boolean secondLive = bookCounts[second] > 0;
+        if (firstLive != secondLive) {
+            return firstLive ? -1 : 1;
+        }
+        int result = Integer.compare(loanCounts[second], loanCounts[first]);
+        if (result == 0) {
+            result = Integer.compare(bookCounts[second], bookCounts[first]);
+        }
+        if (result == 0) {
+            result = Integer.compare(first, second);
+        }
+        return result;
+    }
+
+    private static int toCount(long count) {
+        return (int) Math.max(0, Math.min(count, Integer.MAX_VALUE));
+    }
+
+    private static final class SuggestedBook {
+
+        private int title;
+        private int author;
+        private int loans;
+    }
+}
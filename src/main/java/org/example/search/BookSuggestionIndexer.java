@@ -0,0 +1,105 @@
+package org.example.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.BookIndexEntry;
+import org.example.dto.BookLoanCount;
+import org.example.event.BookChangedEvent;
+import org.example.repository.BookLoanRepository;
+import org.example.repository.BookRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "bookstore.search.suggest.enabled", havingValue = "true", matchIfMissing = true)
+public class BookSuggestionIndexer {
+
+    private final BookSuggestionIndex index;
+    private final BookRepository bookRepository;
+    private final BookLoanRepository bookLoanRepository;
+    private final Set<Long> changedDuringLoad = ConcurrentHashMap.newKeySet();
+
+    public BookSuggestionIndexer(BookSuggestionIndex index,
+                                 BookRepository bookRepository,
+                                 BookLoanRepository bookLoanRepository) {
+        this.index = index;
+        this.bookRepository = bookRepository;
+        this.bookLoanRepository = bookLoanRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        long started = System.nanoTime();
+        try (Stream<BookIndexEntry> books = bookRepository.streamIndexEntries()) {
+            books.forEach(book -> index.put(book, 0L));
+        }
+        try (Stream<BookLoanCount> loanCounts = bookLoanRepository.streamLoanCounts()) {
+            loanCounts.forEach(loanCount -> index.setLoans(loanCount.getBookId(), loanCount.getLoans()));
+        }
+        refreshChangedDuringLoad();
+        index.markReady();
+        refreshChangedDuringLoad();
+        log.info("Suggestion index loaded {} suggestions in {} ms", index.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (!index.isReady()) {
+            changedDuringLoad.addAll(event.getBookIds());
+            return;
+        }
+        switch (event.getChange()) {
+            case DETAILS:
+                update(event.getBookIds());
+                break;
+            case LOANED:
+                event.getBookIds().forEach(bookId -> index.recordLoans(bookId, 1));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void refreshChangedDuringLoad() {
+        while (!changedDuringLoad.isEmpty()) {
+            Set<Long> changed = new HashSet<>(changedDuringLoad);
+            changedDuringLoad.removeAll(changed);
+            refresh(changed);
+        }
+    }
+
+    private void update(Collection<Long> bookIds) {
+        Set<Long> removed = new HashSet<>(bookIds);
+        for (BookIndexEntry book : bookRepository.findIndexEntries(bookIds)) {
+            index.update(book);
+            removed.remove(book.getId());
+        }
+        removed.forEach(index::remove);
+    }
+
+    private void refresh(Collection<Long> bookIds) {
+        Map<Long, Long> loans = new HashMap<>();
+        for (BookLoanCount loanCount : bookLoanRepository.findLoanCounts(bookIds)) {
+            loans.put(loanCount.getBookId(), loanCount.getLoans());
+        }
+        Set<Long> removed = new HashSet<>(bookIds);
+        for (BookIndexEntry book : bookRepository.findIndexEntries(bookIds)) {
+            index.put(book, loans.getOrDefault(book.getId(), 0L));
+            removed.remove(book.getId());
+        }
+        removed.forEach(index::remove);
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.search;
+
+public final class FuzzyMatcher {
+
+    public static final int MIN_QUERY_LENGTH = 3;
+
+    private static final int LONG_QUERY_LENGTH = 6;
+    private static final int INITIAL_BUFFER_LENGTH = 128;
+    private static final ThreadLocal<int[][]> ROWS = ThreadLocal.withInitial(
+            () -> new int[][]{new int[INITIAL_BUFFER_LENGTH], new int[INITIAL_BUFFER_LENGTH]});
+
+    private FuzzyMatcher() {
+    }
+
+    public static String normalize(String text) {
+        return text == null ? "" : TextFolding.normalize(text);
+    }
+
+    public static int maxDistance(String query) {
+        return query.length() < LONG_QUERY_LENGTH ? 1 : 2;
+    }
+
+    public static int distance(String query, String text, int limit) {
+        if (!withinLength(query.length(), text, limit)) {
+            return limit + 1;
+        }
+        int[][] rows = buffers(text.length() + 1);
+        int[] previous = rows[0];
+        int[] current = rows[1];
+        int wordStart = 0;
+        for (int j = 0; j <= text.length(); j++) {
+            if (j > 0 && text.charAt(j - 1) == ' ') {
+                wordStart = j;
+            }
+            previous[j] = j - wordStart;
+        }
+        for (int i = 1; i <= query.length(); i++) {
+            char c = query.charAt(i - 1);
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= text.length(); j++) {
+                int cost = previous[j - 1] + (c == text.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(cost, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        int best = limit + 1;
+        for (int j = 0; j <= text.length(); j++) {
+            if (j == text.length() || text.charAt(j) == ' ') {
+                best = Math.min(best, previous[j]);
+            }
+        }
+        return best;
+    }
+
+    private static boolean withinLength(int queryLength, String text, int limit) {
+        if (text.length() < queryLength - limit) {
+            return false;
+        }
+        if (queryLength <= limit) {
+            return true;
+        }
+        int shortestWord = text.length();
+        int wordStart = 0;
+        for (int j = 0; j <= text.length(); j++) {
+            if (j == text.length() || text.charAt(j) == ' ') {
+                if (j > wordStart) {
+                    shortestWord = Math.min(shortestWord, j - wordStart);
+                }
+                wordStart = j + 1;
+            }
+        }
+        return shortestWord <= queryLength + limit;
+    }
+
+    private static int[][] buffers(int length) {
+        int[][] rows = ROWS.get();
+        if (rows[0].length < length) {
+            rows[0] = new int[Math.max(length, rows[0].length * 2)];
+            rows[1] = new int[rows[0].length];
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.search;
+
+final class IndexIds {
+
+    private IndexIds() {
+    }
+
+    static int toIndexId(Long bookId) {
+        if (bookId == null || bookId < 0 || bookId > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Book id out of index range: " + bookId);
+        }
+        return bookId.intValue();
+    }
+}
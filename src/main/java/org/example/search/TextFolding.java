@@ -0,0 +1,42 @@
+package org.example.search;
+
+import java.text.Normalizer;
+import java.util.regex.Pattern;
+
+final class TextFolding {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private TextFolding() {
+    }
+
+    static String fold(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                        .replace('ł', 'l')
+                        .replace('Ł', 'L');
+            }
+        }
+        return text;
+    }
+
+    static String normalize(String text) {
+        String folded = fold(text);
+        StringBuilder key = new StringBuilder(folded.length());
+        boolean separator = false;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (separator && key.length() > 0) {
+                    key.append(' ');
+                }
+                key.append(Character.toLowerCase(c));
+                separator = false;
+            } else {
+                separator = true;
+            }
+        }
+        return key.toString();
+    }
+}
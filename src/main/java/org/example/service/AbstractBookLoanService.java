@@ -1,5 +1,8 @@
 package org.example.service;
 
+import org.example.dto.BookLoanSummary;
+import org.example.dto.LoanBatchItem;
+import org.example.dto.LoanReturnReport;
 import org.example.entity.Book;
 import org.example.entity.BookLoan;
 import org.example.entity.User;
@@ -8,38 +11,48 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Transactional
 public abstract class AbstractBookLoanService {
 
     public abstract BookLoan createLoan(Long userId, Long bookId, LocalDateTime dueDate);
 
+    public abstract List<LoanBatchItem> createLoans(Long userId, List<Long> bookIds, LocalDateTime dueDate);
+
     @Transactional(readOnly = true)
     public abstract Optional<BookLoan> findById(Long id);
 
     @Transactional(readOnly = true)
-    public abstract List<BookLoan> findByUser(User user);
+    public abstract List<BookLoanSummary> findByUser(User user);
+
+    @Transactional(readOnly = true)
+    public abstract List<BookLoanSummary> findByBook(Book book);
 
     @Transactional(readOnly = true)
-    public abstract List<BookLoan> findByBook(Book book);
+    public abstract List<BookLoanSummary> findActiveLoans();
 
     @Transactional(readOnly = true)
-    public abstract List<BookLoan> findActiveLoans();
+    public abstract List<BookLoanSummary> findActiveLoansForUser(User user);
 
     @Transactional(readOnly = true)
-    public abstract List<BookLoan> findActiveLoansForUser(User user);
+    public abstract List<BookLoanSummary> findActiveLoansForBook(Book book);
 
     @Transactional(readOnly = true)
-    public abstract List<BookLoan> findActiveLoansForBook(Book book);
+    public abstract List<BookLoanSummary> findAllLoans();
 
     @Transactional(readOnly = true)
-    public abstract List<BookLoan> findAllLoans();
+    public abstract void exportAllLoans(Consumer<BookLoanSummary> consumer);
 
     @Transactional(readOnly = true)
-    public abstract List<BookLoan> findOverdueLoans();
+    public abstract List<BookLoanSummary> findOverdueLoans();
+
+    public abstract int flagOverdueLoans(LocalDateTime until);
 
     public abstract BookLoan returnBook(Long loanId);
 
+    public abstract LoanReturnReport returnBooks(List<Long> loanIds);
+
     @Transactional(readOnly = true)
     public abstract boolean hasActiveLoan(User user, Book book);
 
@@ -1,5 +1,6 @@
 package org.example.service;
 
+import org.example.dto.BookReservationSummary;
 import org.example.entity.Book;
 import org.example.entity.BookReservation;
 import org.example.entity.User;
@@ -8,6 +9,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Transactional
 public abstract class AbstractBookReservationService {
@@ -18,26 +20,34 @@ public abstract class AbstractBookReservationService {
     public abstract Optional<BookReservation> findById(Long id);
 
     @Transactional(readOnly = true)
-    public abstract List<BookReservation> findByUser(User user);
+    public abstract List<BookReservationSummary> findByUser(User user);
 
     @Transactional(readOnly = true)
-    public abstract List<BookReservation> findByBook(Book book);
+    public abstract List<BookReservationSummary> findByBook(Book book);
 
     @Transactional(readOnly = true)
-    public abstract List<BookReservation> findActiveReservationsByUser(User user);
+    public abstract List<BookReservationSummary> findActiveReservationsByUser(User user);
 
     @Transactional(readOnly = true)
-    public abstract List<BookReservation> findActiveReservationsByBook(Book book);
+    public abstract List<BookReservationSummary> findActiveReservationsByBook(Book book);
 
     @Transactional(readOnly = true)
-    public abstract List<BookReservation> findAllReservations();
+    public abstract List<BookReservationSummary> findActiveReservations();
 
     @Transactional(readOnly = true)
-    public abstract List<BookReservation> findExpiredReservations();
+    public abstract List<BookReservationSummary> findAllReservations();
+
+    @Transactional(readOnly = true)
+    public abstract void exportAllReservations(Consumer<BookReservationSummary> consumer);
+
+    @Transactional(readOnly = true)
+    public abstract List<BookReservationSummary> findExpiredReservations();
 
     public abstract void cancelReservation(Long reservationId);
 
-    public abstract void processExpiredReservations();
+    public abstract int processExpiredReservations();
+
+    public abstract int processExpiredReservations(LocalDateTime until);
 
     @Transactional(readOnly = true)
     public abstract boolean hasActiveReservation(User user, Book book);
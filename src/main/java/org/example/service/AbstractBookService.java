@@ -1,5 +1,11 @@
 package org.example.service;
 
+import org.example.dto.BookFacets;
+import org.example.dto.BookFuzzyMatch;
+import org.example.dto.BookPage;
+import org.example.dto.BookSearchPage;
+import org.example.dto.BookSnapshot;
+import org.example.dto.BookSuggestion;
 import org.example.entity.Book;
 import org.example.repository.BookLoanRepository;
 import org.example.repository.BookRepository;
@@ -30,7 +36,25 @@ public abstract class AbstractBookService {
     public abstract Optional<Book> findById(Long id);
 
     @Transactional(readOnly = true)
-    public abstract List<Book> findAllBooks();
+    public abstract Optional<BookSnapshot> findSnapshotById(Long id);
+
+    @Transactional(readOnly = true)
+    public abstract BookPage findBooksPage(String cursor, int size);
+
+    @Transactional(readOnly = true)
+    public abstract BookSearchPage searchBooks(String query, String cursor, int size);
+
+    @Transactional(readOnly = true)
+    public abstract BookPage searchIndex(String query, String operator, boolean availableOnly, String cursor, int size);
+
+    @Transactional(readOnly = true)
+    public abstract List<BookSuggestion> suggestBooks(String query);
+
+    @Transactional(readOnly = true)
+    public abstract List<BookFuzzyMatch> findSimilar(String query, int size);
+
+    @Transactional(readOnly = true)
+    public abstract BookFacets findFacets(String query, String operator, String author, String availability, String quantity, int size);
 
     @Transactional(readOnly = true)
     public abstract List<Book> findByTitle(String title);
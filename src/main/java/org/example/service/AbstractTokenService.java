@@ -0,0 +1,17 @@
+package org.example.service;
+
+import org.example.dto.TokenResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.transaction.annotation.Transactional;
+
+public abstract class AbstractTokenService {
+
+    @Transactional(readOnly = true)
+    public abstract TokenResponse issueTokens(String username, String password) throws AuthenticationException;
+
+    @Transactional(readOnly = true)
+    public abstract TokenResponse refreshTokens(String refreshToken) throws AuthenticationException;
+
+    public abstract Authentication authenticate(String accessToken) throws AuthenticationException;
+}
@@ -1,21 +1,40 @@
 package org.example.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.dto.BookLoanSummary;
+import org.example.dto.LoanBatchItem;
+import org.example.dto.LoanReturnReport;
+import org.example.dto.ReturnedLoan;
 import org.example.entity.Book;
 import org.example.entity.BookLoan;
 import org.example.entity.BookReservation;
 import org.example.entity.User;
+import org.example.event.BookChangedEvent;
 import org.example.repository.BookRepository;
 import org.example.repository.BookLoanRepository;
 import org.example.repository.BookReservationRepository;
 import org.example.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -26,6 +45,16 @@ public class BookLoanService extends AbstractBookLoanService {
     private final UserRepository userRepository;
     private final BookRepository bookRepository;
     private final BookReservationRepository bookReservationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${bookstore.loans.overdue.batch-size:1000}")
+    private int overdueBatchSize;
+
+    @Value("${bookstore.loans.checkout.max-books:50}")
+    private int checkoutMaxBooks;
+
+    @Value("${bookstore.loans.return.max-loans:1000}")
+    private int returnMaxLoans;
 
     @Override
     public BookLoan createLoan(Long userId, Long bookId, LocalDateTime dueDate) {
@@ -35,10 +64,6 @@ public class BookLoanService extends AbstractBookLoanService {
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new IllegalArgumentException("Book not found"));
         
-        if (book.getAvailableQuantity() <= 0) {
-            throw new IllegalStateException("Book is not available for loan");
-        }
-        
         if (hasActiveLoan(user, book)) {
             throw new IllegalStateException("User already has an active loan for this book");
         }
@@ -62,8 +87,11 @@ public class BookLoanService extends AbstractBookLoanService {
             bookReservationRepository.save(reservation);
         }
 
+        if (bookRepository.decrementAvailableQuantity(bookId) == 0) {
+            throw new IllegalStateException("Book is not available for loan");
+        }
         book.setAvailableQuantity(book.getAvailableQuantity() - 1);
-        bookRepository.save(book);
+        eventPublisher.publishEvent(BookChangedEvent.loaned(bookId));
 
         BookLoan loan = BookLoan.builder()
                 .user(user)
@@ -73,7 +101,100 @@ public class BookLoanService extends AbstractBookLoanService {
                 .returned(false)
                 .build();
         
-        return bookLoanRepository.save(loan);
+        try {
+            return bookLoanRepository.saveAndFlush(loan);
+        } catch (DataIntegrityViolationException e) {
+            if (ConstraintViolations.violates(e, BookLoanRepository.ACTIVE_LOAN_CONSTRAINT)) {
+                throw new IllegalStateException("User already has an active loan for this book");
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public List<LoanBatchItem> createLoans(Long userId, List<Long> bookIds, LocalDateTime dueDate) {
+        if (bookIds == null || bookIds.isEmpty()) {
+            throw new IllegalArgumentException("No books to loan");
+        }
+        if (bookIds.size() > checkoutMaxBooks) {
+            throw new IllegalArgumentException("Too many books in one checkout");
+        }
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        Set<Long> requested = new LinkedHashSet<>(bookIds);
+        Map<Long, Book> books = bookRepository.findAllById(requested).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        Set<Long> alreadyLoaned = new HashSet<>(bookLoanRepository.findActiveLoanBookIds(user, requested));
+
+        Map<Long, BookReservation> ownReservations = new HashMap<>();
+        Set<Long> reservedByOthers = new HashSet<>();
+        for (BookReservation reservation : bookReservationRepository.findByBookIdInAndActiveTrue(requested)) {
+            Long bookId = reservation.getBook().getId();
+            if (reservation.getUser().getId().equals(user.getId())) {
+                ownReservations.put(bookId, reservation);
+            } else {
+                reservedByOthers.add(bookId);
+            }
+        }
+
+        Map<Long, String> errors = new HashMap<>();
+        List<Long> candidates = new ArrayList<>();
+        for (Long bookId : requested) {
+            if (!books.containsKey(bookId)) {
+                errors.put(bookId, "Book not found");
+            } else if (alreadyLoaned.contains(bookId)) {
+                errors.put(bookId, "User already has an active loan for this book");
+            } else if (!ownReservations.containsKey(bookId) && reservedByOthers.contains(bookId)) {
+                errors.put(bookId, "Book is reserved by other users");
+            } else {
+                candidates.add(bookId);
+            }
+        }
+
+        Set<Long> decremented = candidates.isEmpty()
+                ? Set.of()
+                : new HashSet<>(bookRepository.decrementAvailableQuantities(candidates));
+
+        List<BookLoan> loans = new ArrayList<>();
+        for (Long bookId : candidates) {
+            if (!decremented.contains(bookId)) {
+                errors.put(bookId, "Book is not available for loan");
+                continue;
+            }
+            BookReservation reservation = ownReservations.get(bookId);
+            if (reservation != null) {
+                reservation.setActive(false);
+            }
+            loans.add(BookLoan.builder()
+                    .user(user)
+                    .book(books.get(bookId))
+                    .loanDate(LocalDateTime.now())
+                    .dueDate(dueDate)
+                    .returned(false)
+                    .build());
+        }
+
+        if (!loans.isEmpty()) {
+            try {
+                bookLoanRepository.saveAllAndFlush(loans);
+            } catch (DataIntegrityViolationException e) {
+                if (ConstraintViolations.violates(e, BookLoanRepository.ACTIVE_LOAN_CONSTRAINT)) {
+                    throw new IllegalStateException("User already has an active loan for this book");
+                }
+                throw e;
+            }
+            eventPublisher.publishEvent(BookChangedEvent.loaned(decremented));
+        }
+
+        Map<Long, Long> loanIds = loans.stream()
+                .collect(Collectors.toMap(loan -> loan.getBook().getId(), BookLoan::getId));
+        return requested.stream()
+                .map(bookId -> loanIds.containsKey(bookId)
+                        ? LoanBatchItem.created(bookId, loanIds.get(bookId))
+                        : LoanBatchItem.rejected(bookId, errors.get(bookId)))
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -84,48 +205,66 @@ public class BookLoanService extends AbstractBookLoanService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookLoan> findByUser(User user) {
-        return bookLoanRepository.findByUser(user);
+    public List<BookLoanSummary> findByUser(User user) {
+        return bookLoanRepository.findSummariesByUser(user);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookLoan> findByBook(Book book) {
-        return bookLoanRepository.findByBook(book);
+    public List<BookLoanSummary> findByBook(Book book) {
+        return bookLoanRepository.findSummariesByBook(book);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookLoan> findActiveLoans() {
-        return bookLoanRepository.findAll().stream()
-                .filter(loan -> !loan.isReturned())
-                .collect(Collectors.toList());
+    public List<BookLoanSummary> findActiveLoans() {
+        return bookLoanRepository.findSummariesByReturned(false);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookLoanSummary> findActiveLoansForUser(User user) {
+        return bookLoanRepository.findSummariesByUserAndReturned(user, false);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookLoan> findActiveLoansForUser(User user) {
-        return bookLoanRepository.findByUserAndReturned(user, false);
+    public List<BookLoanSummary> findActiveLoansForBook(Book book) {
+        return bookLoanRepository.findSummariesByBookAndReturned(book, false);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookLoan> findActiveLoansForBook(Book book) {
-        return bookLoanRepository.findByBookAndReturned(book, false);
+    public List<BookLoanSummary> findAllLoans() {
+        return bookLoanRepository.findAllSummaries();
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookLoan> findAllLoans() {
-        return bookLoanRepository.findAll();
+    public void exportAllLoans(Consumer<BookLoanSummary> consumer) {
+        try (Stream<BookLoanSummary> loans = bookLoanRepository.streamAllSummaries()) {
+            loans.forEach(consumer);
+        }
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookLoan> findOverdueLoans() {
+    public List<BookLoanSummary> findOverdueLoans() {
         return bookLoanRepository.findOverdueLoans(LocalDateTime.now());
     }
 
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int flagOverdueLoans(LocalDateTime until) {
+        int total = 0;
+        int flagged;
+        do {
+            flagged = bookLoanRepository.flagOverdueLoans(until, overdueBatchSize);
+            total += flagged;
+        } while (flagged == overdueBatchSize);
+        return total;
+    }
+
     @Override
     public BookLoan returnBook(Long loanId) {
         BookLoan loan = bookLoanRepository.findById(loanId)
@@ -135,21 +274,64 @@ public class BookLoanService extends AbstractBookLoanService {
             throw new IllegalStateException("Book has already been returned");
         }
 
+        LocalDateTime returnDate = LocalDateTime.now();
+        if (bookLoanRepository.markReturned(loanId, returnDate) == 0) {
+            throw new IllegalStateException("Book has already been returned");
+        }
         loan.setReturned(true);
-        loan.setReturnDate(LocalDateTime.now());
+        loan.setOverdue(false);
+        loan.setReturnDate(returnDate);
 
         Book book = loan.getBook();
-        book.setAvailableQuantity(book.getAvailableQuantity() + 1);
-        bookRepository.save(book);
-        
-        return bookLoanRepository.save(loan);
+        if (bookRepository.incrementAvailableQuantity(book.getId()) > 0) {
+            book.setAvailableQuantity(book.getAvailableQuantity() + 1);
+            eventPublisher.publishEvent(BookChangedEvent.stock(book.getId()));
+        }
+
+        return loan;
+    }
+
+    @Override
+    public LoanReturnReport returnBooks(List<Long> loanIds) {
+        if (loanIds == null || loanIds.isEmpty()) {
+            throw new IllegalArgumentException("No loans to return");
+        }
+        if (loanIds.size() > returnMaxLoans) {
+            throw new IllegalArgumentException("Too many loans in one return");
+        }
+
+        Set<Long> requested = new LinkedHashSet<>(loanIds);
+        List<ReturnedLoan> returnedLoans = bookLoanRepository.returnLoans(requested, LocalDateTime.now());
+        Set<Long> returned = returnedLoans.stream()
+                .map(ReturnedLoan::getLoanId)
+                .collect(Collectors.toSet());
+
+        List<Long> remaining = requested.stream()
+                .filter(id -> !returned.contains(id))
+                .collect(Collectors.toList());
+        Set<Long> existing = remaining.isEmpty()
+                ? Set.of()
+                : new HashSet<>(bookLoanRepository.findExistingIds(remaining));
+
+        if (!returnedLoans.isEmpty()) {
+            Set<Long> bookIds = returnedLoans.stream()
+                    .map(ReturnedLoan::getBookId)
+                    .collect(Collectors.toSet());
+            bookRepository.lockCachedBooks(bookIds);
+            eventPublisher.publishEvent(BookChangedEvent.stock(bookIds));
+        }
+
+        return LoanReturnReport.builder()
+                .returned(requested.stream().filter(returned::contains).collect(Collectors.toList()))
+                .alreadyReturned(remaining.stream().filter(existing::contains).collect(Collectors.toList()))
+                .notFound(remaining.stream().filter(id -> !existing.contains(id)).collect(Collectors.toList()))
+                .build();
     }
 
     @Override
     @Transactional(readOnly = true)
     public boolean hasActiveLoan(User user, Book book) {
-        return !bookLoanRepository.findByUserAndReturned(user, false).isEmpty() &&
-               !bookLoanRepository.findByBookAndReturned(book, false).isEmpty();
+        return bookLoanRepository.existsByUserAndBookAndReturnedFalse(user, book);
     }
 
     @Override
@@ -1,18 +1,30 @@
 package org.example.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.dto.ReleasedStock;
+import org.example.dto.BookReservationSummary;
 import org.example.entity.Book;
 import org.example.entity.BookReservation;
 import org.example.entity.User;
+import org.example.event.BookChangedEvent;
 import org.example.repository.BookRepository;
 import org.example.repository.BookReservationRepository;
 import org.example.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -22,6 +34,11 @@ public class BookReservationService extends AbstractBookReservationService {
     private final BookReservationRepository bookReservationRepository;
     private final UserRepository userRepository;
     private final BookRepository bookRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionOperations transactionOperations;
+
+    @Value("${bookstore.reservations.expiry.batch-size:1000}")
+    private int expiryBatchSize;
 
     @Override
     public BookReservation createReservation(Long userId, Long bookId, LocalDateTime expirationDate) {
@@ -31,16 +48,15 @@ public class BookReservationService extends AbstractBookReservationService {
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new IllegalArgumentException("Book not found"));
         
-        if (book.getAvailableQuantity() <= 0) {
-            throw new IllegalStateException("Book is not available for reservation");
-        }
-        
         if (hasActiveReservation(user, book)) {
             throw new IllegalStateException("User already has an active reservation for this book");
         }
 
+        if (bookRepository.decrementAvailableQuantity(bookId) == 0) {
+            throw new IllegalStateException("Book is not available for reservation");
+        }
         book.setAvailableQuantity(book.getAvailableQuantity() - 1);
-        bookRepository.save(book);
+        eventPublisher.publishEvent(BookChangedEvent.stock(bookId));
 
         BookReservation reservation = BookReservation.builder()
                 .user(user)
@@ -50,7 +66,14 @@ public class BookReservationService extends AbstractBookReservationService {
                 .active(true)
                 .build();
         
-        return bookReservationRepository.save(reservation);
+        try {
+            return bookReservationRepository.saveAndFlush(reservation);
+        } catch (DataIntegrityViolationException e) {
+            if (ConstraintViolations.violates(e, BookReservationRepository.ACTIVE_RESERVATION_CONSTRAINT)) {
+                throw new IllegalStateException("User already has an active reservation for this book");
+            }
+            throw e;
+        }
     }
 
     @Override
@@ -61,37 +84,51 @@ public class BookReservationService extends AbstractBookReservationService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookReservation> findByUser(User user) {
-        return bookReservationRepository.findByUser(user);
+    public List<BookReservationSummary> findByUser(User user) {
+        return bookReservationRepository.findSummariesByUser(user);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookReservationSummary> findByBook(Book book) {
+        return bookReservationRepository.findSummariesByBook(book);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookReservation> findByBook(Book book) {
-        return bookReservationRepository.findByBook(book);
+    public List<BookReservationSummary> findActiveReservationsByUser(User user) {
+        return bookReservationRepository.findSummariesByUserAndActive(user, true);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookReservation> findActiveReservationsByUser(User user) {
-        return bookReservationRepository.findByUserAndActive(user, true);
+    public List<BookReservationSummary> findActiveReservationsByBook(Book book) {
+        return bookReservationRepository.findSummariesByBookAndActive(book, true);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookReservation> findActiveReservationsByBook(Book book) {
-        return bookReservationRepository.findByBookAndActive(book, true);
+    public List<BookReservationSummary> findActiveReservations() {
+        return bookReservationRepository.findSummariesByActive(true);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookReservation> findAllReservations() {
-        return bookReservationRepository.findAll();
+    public List<BookReservationSummary> findAllReservations() {
+        return bookReservationRepository.findAllSummaries();
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookReservation> findExpiredReservations() {
+    public void exportAllReservations(Consumer<BookReservationSummary> consumer) {
+        try (Stream<BookReservationSummary> reservations = bookReservationRepository.streamAllSummaries()) {
+            reservations.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookReservationSummary> findExpiredReservations() {
         return bookReservationRepository.findExpiredReservations(LocalDateTime.now());
     }
 
@@ -104,30 +141,52 @@ public class BookReservationService extends AbstractBookReservationService {
             throw new IllegalStateException("Reservation is not active");
         }
 
+        if (bookReservationRepository.deactivate(reservationId) == 0) {
+            throw new IllegalStateException("Reservation is not active");
+        }
         reservation.setActive(false);
-        bookReservationRepository.save(reservation);
 
         Book book = reservation.getBook();
-        book.setAvailableQuantity(book.getAvailableQuantity() + 1);
-        bookRepository.save(book);
+        if (bookRepository.incrementAvailableQuantity(book.getId()) > 0) {
+            book.setAvailableQuantity(book.getAvailableQuantity() + 1);
+            eventPublisher.publishEvent(BookChangedEvent.stock(book.getId()));
+        }
     }
 
     @Override
-    public void processExpiredReservations() {
-        List<BookReservation> expiredReservations = findExpiredReservations();
-        
-        for (BookReservation reservation : expiredReservations) {
-            if (reservation.isActive()) {
-                cancelReservation(reservation.getId());
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int processExpiredReservations() {
+        return processExpiredReservations(LocalDateTime.now());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int processExpiredReservations(LocalDateTime until) {
+        int total = 0;
+        int expired;
+        do {
+            List<ReleasedStock> released = transactionOperations.execute(status -> {
+                List<ReleasedStock> batch = bookReservationRepository.expireReservations(until, expiryBatchSize);
+                bookRepository.lockCachedBooks(batch.stream()
+                        .map(ReleasedStock::getBookId)
+                        .collect(Collectors.toList()));
+                return batch;
+            });
+            expired = released.stream().mapToInt(ReleasedStock::getReleased).sum();
+            total += expired;
+            if (!released.isEmpty()) {
+                eventPublisher.publishEvent(BookChangedEvent.stock(released.stream()
+                        .map(ReleasedStock::getBookId)
+                        .collect(Collectors.toList())));
             }
-        }
+        } while (expired == expiryBatchSize);
+        return total;
     }
 
     @Override
     @Transactional(readOnly = true)
     public boolean hasActiveReservation(User user, Book book) {
-        return !bookReservationRepository.findByUserAndActive(user, true).isEmpty() &&
-               !bookReservationRepository.findByBookAndActive(book, true).isEmpty();
+        return bookReservationRepository.existsByUserAndBookAndActiveTrue(user, book);
     }
 
     @Override
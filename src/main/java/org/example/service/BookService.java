@@ -1,23 +1,80 @@
 package org.example.service;
 
+import org.example.config.CacheConfig;
+import org.example.dto.BookFacets;
+import org.example.dto.BookFuzzyMatch;
+import org.example.dto.BookPage;
+import org.example.dto.BookSearchHit;
+import org.example.dto.BookSearchPage;
+import org.example.dto.BookSnapshot;
+import org.example.dto.BookSuggestion;
 import org.example.entity.Book;
+import org.example.event.BookChangedEvent;
 import org.example.repository.BookLoanRepository;
 import org.example.repository.BookRepository;
 import org.example.repository.BookReservationRepository;
+import org.example.search.BookFacetIndex;
+import org.example.search.BookSearchIndex;
+import org.example.search.BookSuggestionIndex;
+import org.example.search.FuzzyMatcher;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class BookService extends AbstractBookService {
 
+    public static final int MAX_PAGE_SIZE = 100;
+
+    public static final int MAX_SEARCH_TERMS = 8;
+
+    private static final String CURSOR_PREFIX = "book:";
+    private static final String SEARCH_CURSOR_PREFIX = "search:";
+    private static final float FIRST_SEARCH_SCORE = 1.0f;
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectProvider<BookSearchIndex> bookSearchIndex;
+    private final ObjectProvider<BookSuggestionIndex> bookSuggestionIndex;
+    private final ObjectProvider<BookFacetIndex> bookFacetIndex;
+
+    @Value("${bookstore.search.max-candidates:2000}")
+    private int searchMaxCandidates;
+
+    @Value("${bookstore.search.fuzzy.similarity-threshold:0.4}")
+    private double fuzzySimilarityThreshold;
+
     public BookService(BookRepository bookRepository,
                        BookLoanRepository bookLoanRepository,
-                       BookReservationRepository bookReservationRepository) {
+                       BookReservationRepository bookReservationRepository,
+                       ApplicationEventPublisher eventPublisher,
+                       ObjectProvider<BookSearchIndex> bookSearchIndex,
+                       ObjectProvider<BookSuggestionIndex> bookSuggestionIndex,
+                       ObjectProvider<BookFacetIndex> bookFacetIndex) {
         super(bookRepository, bookLoanRepository, bookReservationRepository);
+        this.eventPublisher = eventPublisher;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookSuggestionIndex = bookSuggestionIndex;
+        this.bookFacetIndex = bookFacetIndex;
     }
 
     @Override
@@ -26,6 +83,7 @@ public class BookService extends AbstractBookService {
             book.setAvailableQuantity(book.getQuantity());
         }
         Book savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(BookChangedEvent.of(savedBook.getId()));
         return savedBook;
     }
 
@@ -38,9 +96,172 @@ public class BookService extends AbstractBookService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<Book> findAllBooks() {
-        List<Book> allBooks = bookRepository.findAll();
-        return allBooks;
+    @Cacheable(value = CacheConfig.BOOKS, sync = true)
+    public Optional<BookSnapshot> findSnapshotById(Long id) {
+        return bookRepository.findById(id).map(BookSnapshot::of);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookPage findBooksPage(String cursor, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+        long after = decodeCursor(cursor);
+
+        List<Book> books = bookRepository.findPageAfter(after, PageRequest.of(0, pageSize));
+
+        String nextCursor = null;
+        if (books.size() == pageSize) {
+            nextCursor = encodeCursor(books.get(books.size() - 1).getId());
+        }
+        return BookPage.builder()
+                .books(books)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookSearchPage searchBooks(String query, String cursor, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+        String tsQuery = toTsQuery(query);
+
+        float afterScore = FIRST_SEARCH_SCORE;
+        long afterId = 0L;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeSearchCursor(cursor);
+            afterScore = Float.intBitsToFloat(Integer.parseUnsignedInt(position[0], 16));
+            afterId = Long.parseLong(position[1]);
+        }
+
+        List<BookSearchHit> hits = bookRepository.search(tsQuery, afterScore, afterId, pageSize);
+
+        String nextCursor = null;
+        if (hits.size() == pageSize) {
+            BookSearchHit last = hits.get(hits.size() - 1);
+            nextCursor = encodeSearchCursor(last.getScore(), last.getId());
+        }
+        return BookSearchPage.builder()
+                .hits(hits)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookPage searchIndex(String query, String operator, boolean availableOnly, String cursor, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+        BookSearchIndex index = readySearchIndex();
+        BookSearchIndex.Operator searchOperator = parseOperator(operator);
+        long after = decodeCursor(cursor);
+
+        RoaringBitmap matches = index.search(query, searchOperator, availableOnly);
+        List<Long> ids = new ArrayList<>(pageSize);
+        PeekableIntIterator iterator = matches.getIntIterator();
+        if (after < Integer.MAX_VALUE) {
+            iterator.advanceIfNeeded((int) after + 1);
+            while (iterator.hasNext() && ids.size() < pageSize) {
+                ids.add((long) iterator.next());
+            }
+        }
+
+        List<Book> books = new ArrayList<>(bookRepository.findAllById(ids));
+        books.sort(Comparator.comparing(Book::getId));
+
+        String nextCursor = null;
+        if (ids.size() == pageSize && iterator.hasNext()) {
+            nextCursor = encodeCursor(ids.get(ids.size() - 1));
+        }
+        return BookPage.builder()
+                .books(books)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookSuggestion> suggestBooks(String query) {
+        BookSuggestionIndex index = bookSuggestionIndex.getIfAvailable();
+        if (index == null) {
+            throw new IllegalStateException("Suggestions are disabled");
+        }
+        if (!index.isReady()) {
+            throw new IllegalStateException("Suggestions are not ready");
+        }
+        return index.suggest(query, BookSuggestionIndex.MAX_SUGGESTIONS);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookFuzzyMatch> findSimilar(String query, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        int limit = Math.min(size, MAX_PAGE_SIZE);
+        String normalized = FuzzyMatcher.normalize(query);
+        if (normalized.length() < FuzzyMatcher.MIN_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Query must have at least " + FuzzyMatcher.MIN_QUERY_LENGTH + " characters");
+        }
+        int maxDistance = FuzzyMatcher.maxDistance(normalized);
+
+        bookRepository.setSimilarityThreshold(String.valueOf(fuzzySimilarityThreshold));
+        List<BookFuzzyMatch> matches = new ArrayList<>();
+        for (BookSearchHit hit : bookRepository.findSimilar(normalized, searchMaxCandidates)) {
+            int titleDistance = FuzzyMatcher.distance(normalized, FuzzyMatcher.normalize(hit.getTitle()), maxDistance);
+            int authorDistance = titleDistance == 0 ? titleDistance
+                    : FuzzyMatcher.distance(normalized, FuzzyMatcher.normalize(hit.getAuthor()), Math.min(maxDistance, titleDistance - 1));
+            int distance = Math.min(titleDistance, authorDistance);
+            if (distance > maxDistance) {
+                continue;
+            }
+            matches.add(BookFuzzyMatch.builder()
+                    .id(hit.getId())
+                    .title(hit.getTitle())
+                    .author(hit.getAuthor())
+                    .availableQuantity(hit.getAvailableQuantity())
+                    .field(titleDistance <= authorDistance ? BookFuzzyMatch.Field.TITLE : BookFuzzyMatch.Field.AUTHOR)
+                    .distance(distance)
+                    .similarity(hit.getScore() == null ? 0f : hit.getScore())
+                    .build());
+        }
+        matches.sort(Comparator.comparingInt(BookFuzzyMatch::getDistance)
+                .thenComparing(Comparator.comparingDouble(BookFuzzyMatch::getSimilarity).reversed())
+                .thenComparing(BookFuzzyMatch::getId));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookFacets findFacets(String query, String operator, String author, String availability, String quantity, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        BookFacetIndex index = bookFacetIndex.getIfAvailable();
+        if (index == null) {
+            throw new IllegalStateException("Facets are disabled");
+        }
+        if (!index.isReady()) {
+            throw new IllegalStateException("Facets are not ready");
+        }
+        BookFacetIndex.Availability availabilityFilter = parseAvailability(availability);
+        BookFacetIndex.QuantityRange quantityFilter = quantity == null || quantity.isBlank()
+                ? null : BookFacetIndex.QuantityRange.fromLabel(quantity.trim());
+
+        RoaringBitmap matches = null;
+        if (query != null && !query.isBlank()) {
+            BookSearchIndex.Operator searchOperator = parseOperator(operator);
+            matches = readySearchIndex().search(query, searchOperator, false);
+        }
+        return index.facets(matches, author == null || author.isBlank() ? null : author,
+                availabilityFilter, quantityFilter, Math.min(size, BookFacetIndex.MAX_AUTHORS));
     }
 
     @Override
@@ -65,29 +286,39 @@ public class BookService extends AbstractBookService {
     }
 
     @Override
+    @Retryable(value = ObjectOptimisticLockingFailureException.class,
+            maxAttemptsExpression = "${bookstore.inventory.retry.max-attempts:3}",
+            backoff = @Backoff(delayExpression = "${bookstore.inventory.retry.delay:50}",
+                    maxDelayExpression = "${bookstore.inventory.retry.max-delay:500}",
+                    multiplierExpression = "${bookstore.inventory.retry.multiplier:2}",
+                    random = true),
+            listeners = "inventoryRetryListener")
     public Book updateBook(Book book) {
-        boolean bookExists = bookRepository.existsById(book.getId());
-        if (!bookExists) {
-            throw new IllegalArgumentException("Book not found");
-        }
-
-        int availableQuantity = book.getAvailableQuantity();
+        Book existingBook = bookRepository.findById(book.getId())
+                .orElseThrow(() -> new IllegalArgumentException("Book not found"));
         int totalQuantity = book.getQuantity();
-        if (availableQuantity > totalQuantity) {
-            book.setAvailableQuantity(totalQuantity);
-        }
+        int availableQuantity = existingBook.getAvailableQuantity() + totalQuantity - existingBook.getQuantity();
+
+        existingBook.setTitle(book.getTitle());
+        existingBook.setAuthor(book.getAuthor());
+        existingBook.setDescription(book.getDescription());
+        existingBook.setQuantity(totalQuantity);
+        existingBook.setAvailableQuantity(Math.max(0, Math.min(availableQuantity, totalQuantity)));
 
-        Book updatedBook = bookRepository.save(book);
+        Book updatedBook = bookRepository.save(existingBook);
+        eventPublisher.publishEvent(BookChangedEvent.of(updatedBook.getId()));
         return updatedBook;
     }
 
     @Override
     public void deleteBook(Long id) {
         bookRepository.deleteById(id);
+        eventPublisher.publishEvent(BookChangedEvent.of(id));
     }
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(value = CacheConfig.BOOK_AVAILABLE, sync = true)
     public boolean isBookAvailable(Long bookId) {
         int availableQuantity = getAvailableQuantity(bookId);
 
@@ -97,6 +328,7 @@ public class BookService extends AbstractBookService {
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(value = CacheConfig.BOOK_AVAILABLE_QUANTITY, sync = true)
     public int getAvailableQuantity(Long bookId) {
         Optional<Book> bookOptional = bookRepository.findById(bookId);
 
@@ -108,4 +340,102 @@ public class BookService extends AbstractBookService {
 
         return book.getAvailableQuantity();
     }
+
+    private static String toTsQuery(String query) {
+        List<String> terms = query == null ? List.of() : Arrays.stream(query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .limit(MAX_SEARCH_TERMS)
+                .collect(Collectors.toList());
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Search query is empty");
+        }
+        return String.join(" & ", terms) + ":*";
+    }
+
+    private BookSearchIndex readySearchIndex() {
+        BookSearchIndex index = bookSearchIndex.getIfAvailable();
+        if (index == null) {
+            throw new IllegalStateException("Search index is disabled");
+        }
+        if (!index.isReady()) {
+            throw new IllegalStateException("Search index is not ready");
+        }
+        return index;
+    }
+
+    private static BookFacetIndex.Availability parseAvailability(String availability) {
+        if (availability == null || availability.isBlank()) {
+            return null;
+        }
+        try {
+            return BookFacetIndex.Availability.valueOf(availability.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown availability: " + availability);
+        }
+    }
+
+    private static BookSearchIndex.Operator parseOperator(String operator) {
+        if (operator == null || operator.isBlank()) {
+            return BookSearchIndex.Operator.AND;
+        }
+        try {
+            return BookSearchIndex.Operator.valueOf(operator.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown operator: " + operator);
+        }
+    }
+
+    private static String encodeSearchCursor(Float score, Long lastId) {
+        String position = Integer.toHexString(Float.floatToIntBits(score)) + ":" + lastId;
+        byte[] token = (SEARCH_CURSOR_PREFIX + position).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    private static String[] decodeSearchCursor(String cursor) {
+        String token;
+        try {
+            token = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (!token.startsWith(SEARCH_CURSOR_PREFIX)) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        String[] position = token.substring(SEARCH_CURSOR_PREFIX.length()).split(":");
+        if (position.length != 2) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            Integer.parseUnsignedInt(position[0], 16);
+            Long.parseLong(position[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return position;
+    }
+
+    private static String encodeCursor(Long lastId) {
+        byte[] token = (CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    private static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        String token;
+        try {
+            token = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (!token.startsWith(CURSOR_PREFIX)) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            return Long.parseLong(token.substring(CURSOR_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,186 @@
+package org.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.TokenResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class TokenService extends AbstractTokenService {
+
+    public static final String TOKEN_TYPE = "Bearer";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String ACCESS = "access";
+    private static final String REFRESH = "refresh";
+    private static final int FINGERPRINT_LENGTH = 12;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final AuthenticationManager authenticationManager;
+    private final UserDetailsService userDetailsService;
+    private final SecretKeySpec key;
+    private final Duration accessTokenTtl;
+    private final Duration refreshTokenTtl;
+    private final ThreadLocal<Mac> mac;
+
+    public TokenService(@Qualifier("authenticationManager") AuthenticationManager authenticationManager,
+                        UserDetailsService userDetailsService,
+                        @Value("${bookstore.security.token.secret:}") String secret,
+                        @Value("${bookstore.security.token.access-ttl:PT15M}") Duration accessTokenTtl,
+                        @Value("${bookstore.security.token.refresh-ttl:P7D}") Duration refreshTokenTtl) {
+        this.authenticationManager = authenticationManager;
+        this.userDetailsService = userDetailsService;
+        this.key = new SecretKeySpec(secretBytes(secret), ALGORITHM);
+        this.accessTokenTtl = accessTokenTtl;
+        this.refreshTokenTtl = refreshTokenTtl;
+        this.mac = ThreadLocal.withInitial(this::newMac);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TokenResponse issueTokens(String username, String password) throws AuthenticationException {
+        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, password));
+
+        return issueTokens(userDetailsService.loadUserByUsername(username));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TokenResponse refreshTokens(String refreshToken) throws AuthenticationException {
+        String[] claims = verify(refreshToken, REFRESH);
+
+        UserDetails user;
+        try {
+            user = userDetailsService.loadUserByUsername(claims[4]);
+        } catch (UsernameNotFoundException e) {
+            throw new BadCredentialsException("Invalid token");
+        }
+        if (!MessageDigest.isEqual(claims[2].getBytes(StandardCharsets.UTF_8),
+                fingerprint(user).getBytes(StandardCharsets.UTF_8))) {
+            throw new BadCredentialsException("Invalid token");
+        }
+
+        return issueTokens(user);
+    }
+
+    @Override
+    public Authentication authenticate(String accessToken) throws AuthenticationException {
+        String[] claims = verify(accessToken, ACCESS);
+
+        List<GrantedAuthority> authorities = claims[3].isEmpty()
+                ? List.of()
+                : AuthorityUtils.commaSeparatedStringToAuthorityList(claims[3]);
+        User principal = new User(claims[4], "", authorities);
+
+        return new UsernamePasswordAuthenticationToken(principal, null, authorities);
+    }
+
+    private TokenResponse issueTokens(UserDetails user) {
+        Instant now = Instant.now();
+        String authorities = user.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+
+        return TokenResponse.builder()
+                .accessToken(sign(ACCESS, now.plus(accessTokenTtl), "", authorities, user.getUsername()))
+                .refreshToken(sign(REFRESH, now.plus(refreshTokenTtl), fingerprint(user), "", user.getUsername()))
+                .tokenType(TOKEN_TYPE)
+                .expiresIn(accessTokenTtl.toSeconds())
+                .build();
+    }
+
+    private String sign(String type, Instant expiresAt, String fingerprint, String authorities, String username) {
+        String claims = String.join("\n", type, Long.toString(expiresAt.getEpochSecond()), fingerprint, authorities, username);
+        String payload = ENCODER.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+
+        return payload + "." + ENCODER.encodeToString(hmac(payload));
+    }
+
+    private String[] verify(String token, String expectedType) {
+        int separator = token.indexOf('.');
+        if (separator <= 0) {
+            throw new BadCredentialsException("Invalid token");
+        }
+
+        String payload = token.substring(0, separator);
+        String[] claims;
+        try {
+            byte[] signature = DECODER.decode(token.substring(separator + 1));
+            if (!MessageDigest.isEqual(signature, hmac(payload))) {
+                throw new BadCredentialsException("Invalid token");
+            }
+            claims = new String(DECODER.decode(payload), StandardCharsets.UTF_8).split("\n", 5);
+        } catch (IllegalArgumentException e) {
+            throw new BadCredentialsException("Invalid token");
+        }
+
+        if (claims.length != 5 || !claims[0].equals(expectedType)) {
+            throw new BadCredentialsException("Invalid token");
+        }
+        if (Instant.now().getEpochSecond() >= Long.parseLong(claims[1])) {
+            throw new BadCredentialsException("Token expired");
+        }
+        return claims;
+    }
+
+    private String fingerprint(UserDetails user) {
+        byte[] digest = hmac(user.getUsername() + "\n" + user.getPassword());
+        return ENCODER.encodeToString(Arrays.copyOf(digest, FINGERPRINT_LENGTH));
+    }
+
+    private byte[] hmac(String value) {
+        return mac.get().doFinal(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance(ALGORITHM);
+            instance.init(key);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static byte[] secretBytes(String secret) {
+        if (secret == null || secret.isBlank()) {
+            log.warn("bookstore.security.token.secret is not set, tokens will not survive a restart or be accepted by other instances");
+            byte[] random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            return random;
+        }
+        byte[] decoded = Base64.getDecoder().decode(secret);
+        if (decoded.length < 32) {
+            throw new IllegalStateException("bookstore.security.token.secret must be at least 256 bits");
+        }
+        return decoded;
+    }
+}
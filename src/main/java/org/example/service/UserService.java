@@ -1,7 +1,9 @@
 package org.example.service;
 
 import org.example.entity.User;
+import org.example.event.UserCredentialsChangedEvent;
 import org.example.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,8 +15,12 @@ import java.util.Optional;
 @Transactional
 public class UserService extends AbstractUserService {
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       ApplicationEventPublisher eventPublisher) {
         super(userRepository, passwordEncoder);
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -64,31 +70,28 @@ public class UserService extends AbstractUserService {
 
     @Override
     public User updateUser(User user) {
-        boolean userExists = userRepository.existsById(user.getId());
-        if (!userExists) {
-            throw new IllegalArgumentException("User not found");
-        }
+        User existingUser = userRepository.findById(user.getId())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
         String password = user.getPassword();
         if (password != null && !password.isEmpty()) {
             String encodedPassword = passwordEncoder.encode(password);
             user.setPassword(encodedPassword);
         } else {
-            Optional<User> existingUserOptional = userRepository.findById(user.getId());
-
-            if (existingUserOptional.isPresent()) {
-                User existingUser = existingUserOptional.get();
-
-                user.setPassword(existingUser.getPassword());
-            }
+            user.setPassword(existingUser.getPassword());
         }
 
+        eventPublisher.publishEvent(UserCredentialsChangedEvent.of(existingUser.getUsername()));
+
         User updatedUser = userRepository.save(user);
         return updatedUser;
     }
 
     @Override
     public void deleteUser(Long id) {
+        userRepository.findById(id)
+                .ifPresent(user -> eventPublisher.publishEvent(UserCredentialsChangedEvent.of(user.getUsername())));
+
         userRepository.deleteById(id);
     }
 
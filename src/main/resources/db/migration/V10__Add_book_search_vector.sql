@@ -0,0 +1,26 @@
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_ts_config WHERE cfgname = 'polish') THEN
+        CREATE TEXT SEARCH CONFIGURATION bookstore_search (COPY = polish);
+    ELSE
+        CREATE TEXT SEARCH CONFIGURATION bookstore_search (COPY = simple);
+        IF EXISTS (SELECT 1 FROM pg_available_extensions WHERE name = 'unaccent') THEN
+            BEGIN
+                CREATE EXTENSION IF NOT EXISTS unaccent;
+                ALTER TEXT SEARCH CONFIGURATION bookstore_search
+                    ALTER MAPPING FOR hword, hword_part, word WITH unaccent, simple;
+            EXCEPTION WHEN insufficient_privilege THEN
+                RAISE NOTICE 'unaccent extension not installed, search is accent sensitive';
+            END;
+        END IF;
+    END IF;
+END
+$$;
+
+ALTER TABLE books ADD COLUMN search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('bookstore_search', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('bookstore_search', coalesce(author, '')), 'B') ||
+    setweight(to_tsvector('bookstore_search', coalesce(description, '')), 'C')
+) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_books_search ON books USING GIN (search_vector);
@@ -0,0 +1,34 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+DO $$
+DECLARE
+    unaccent_schema text;
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'unaccent')
+            AND EXISTS (SELECT 1 FROM pg_available_extensions WHERE name = 'unaccent') THEN
+        BEGIN
+            CREATE EXTENSION IF NOT EXISTS unaccent;
+        EXCEPTION WHEN insufficient_privilege THEN
+            RAISE NOTICE 'unaccent extension not installed, folding only Polish letters';
+        END;
+    END IF;
+
+    SELECT n.nspname INTO unaccent_schema
+    FROM pg_extension e JOIN pg_namespace n ON n.oid = e.extnamespace
+    WHERE e.extname = 'unaccent';
+
+    IF unaccent_schema IS NOT NULL THEN
+        EXECUTE format('CREATE OR REPLACE FUNCTION bookstore_fold(text) RETURNS text '
+                || 'LANGUAGE sql IMMUTABLE STRICT PARALLEL SAFE '
+                || 'AS $f$ SELECT lower(%1$I.unaccent(%2$L::regdictionary, $1)) $f$',
+                unaccent_schema, unaccent_schema || '.unaccent');
+    ELSE
+        CREATE OR REPLACE FUNCTION bookstore_fold(text) RETURNS text
+            LANGUAGE sql IMMUTABLE STRICT PARALLEL SAFE
+            AS $f$ SELECT lower(translate($1, 'ąćęłńóśźżĄĆĘŁŃÓŚŹŻ', 'acelnoszzACELNOSZZ')) $f$;
+    END IF;
+END
+$$;
+
+CREATE INDEX IF NOT EXISTS idx_books_title_trgm ON books USING GIN (bookstore_fold(title) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_books_author_trgm ON books USING GIN (bookstore_fold(author) gin_trgm_ops);
@@ -0,0 +1 @@
+DROP INDEX IF EXISTS idx_book_reservations_active_book;
@@ -0,0 +1,3 @@
+UPDATE book_loans SET overdue = false WHERE returned = true AND overdue = true;
+
+CREATE INDEX IF NOT EXISTS idx_book_loans_flagged_overdue ON book_loans (id) WHERE overdue = true;
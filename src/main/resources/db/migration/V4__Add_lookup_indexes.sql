@@ -0,0 +1,12 @@
+CREATE INDEX IF NOT EXISTS idx_books_title ON books (title);
+CREATE INDEX IF NOT EXISTS idx_books_author ON books (author);
+CREATE INDEX IF NOT EXISTS idx_books_available ON books (id) WHERE available_quantity > 0;
+
+CREATE INDEX IF NOT EXISTS idx_book_loans_user_returned ON book_loans (user_id, returned);
+CREATE INDEX IF NOT EXISTS idx_book_loans_book_returned ON book_loans (book_id, returned);
+CREATE INDEX IF NOT EXISTS idx_book_loans_overdue ON book_loans (due_date) WHERE returned = false;
+
+CREATE INDEX IF NOT EXISTS idx_book_reservations_user_active ON book_reservations (user_id, active);
+CREATE INDEX IF NOT EXISTS idx_book_reservations_book_active ON book_reservations (book_id, active);
+CREATE INDEX IF NOT EXISTS idx_book_reservations_active_book ON book_reservations (book_id) WHERE active = true;
+CREATE INDEX IF NOT EXISTS idx_book_reservations_expiration ON book_reservations (expiration_date);
@@ -0,0 +1,3 @@
+CREATE UNIQUE INDEX IF NOT EXISTS uq_book_loans_active_user_book ON book_loans (user_id, book_id) WHERE returned = false;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_book_reservations_active_user_book ON book_reservations (user_id, book_id) WHERE active = true;
@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS idx_book_reservations_active_expiration ON book_reservations (expiration_date, id) WHERE active = true;
@@ -0,0 +1,7 @@
+ALTER TABLE book_loans ADD COLUMN IF NOT EXISTS overdue BOOLEAN NOT NULL DEFAULT false;
+
+CREATE TABLE IF NOT EXISTS sweeper_state (
+                       name VARCHAR(64) PRIMARY KEY,
+                       high_water_mark TIMESTAMP NOT NULL,
+                       last_run_at TIMESTAMP
+);
@@ -0,0 +1,19 @@
+ALTER TABLE book_loans ALTER COLUMN user_id TYPE BIGINT;
+ALTER TABLE book_loans ALTER COLUMN book_id TYPE BIGINT;
+ALTER TABLE book_reservations ALTER COLUMN user_id TYPE BIGINT;
+ALTER TABLE book_reservations ALTER COLUMN book_id TYPE BIGINT;
+
+ALTER TABLE users ALTER COLUMN id TYPE BIGINT;
+ALTER TABLE books ALTER COLUMN id TYPE BIGINT;
+ALTER TABLE book_loans ALTER COLUMN id TYPE BIGINT;
+ALTER TABLE book_reservations ALTER COLUMN id TYPE BIGINT;
+
+ALTER SEQUENCE users_id_seq AS BIGINT INCREMENT BY 50;
+ALTER SEQUENCE books_id_seq AS BIGINT INCREMENT BY 50;
+ALTER SEQUENCE book_loans_id_seq AS BIGINT INCREMENT BY 50;
+ALTER SEQUENCE book_reservations_id_seq AS BIGINT INCREMENT BY 50;
+
+SELECT setval('users_id_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM users));
+SELECT setval('books_id_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM books));
+SELECT setval('book_loans_id_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM book_loans));
+SELECT setval('book_reservations_id_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM book_reservations));
@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS idx_books_out_of_stock ON books (id) WHERE available_quantity = 0;
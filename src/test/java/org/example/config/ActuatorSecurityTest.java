@@ -0,0 +1,51 @@
+package org.example.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:actuator",
+        "management.endpoints.web.exposure.include=health,caches"
+})
+@AutoConfigureMockMvc
+public class ActuatorSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void healthIsPublic() throws Exception { // sprawdzenie czy stan aplikacji jest dostępny bez logowania
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void userCannotReadOrClearCaches() throws Exception { // sprawdzenie czy zwykły użytkownik nie może odczytać ani wyczyścić pamięci podręcznych
+        mockMvc.perform(get("/actuator/caches"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/actuator/caches"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void adminCanReadCaches() throws Exception { // sprawdzenie czy administrator ma dostęp do pamięci podręcznych
+        mockMvc.perform(get("/actuator/caches"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void anonymousCannotReadCaches() throws Exception { // sprawdzenie czy pamięci podręczne wymagają uwierzytelnienia
+        mockMvc.perform(get("/actuator/caches"))
+                .andExpect(status().isUnauthorized());
+    }
+}
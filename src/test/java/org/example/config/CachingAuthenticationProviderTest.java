@@ -0,0 +1,122 @@
+package org.example.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CachingAuthenticationProviderTest {
+
+    @Mock
+    private AuthenticationProvider delegate;
+
+    private CachingAuthenticationProvider provider;
+    private UserDetails reader;
+
+    @BeforeEach
+    void setUp() {
+        provider = new CachingAuthenticationProvider(delegate, Duration.ofMinutes(1), 100);
+        reader = new User("reader", "", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    @Test
+    void repeatedCredentialsAreVerifiedOnce() { // sprawdzenie czy powtórzone dane logowania są weryfikowane tylko raz
+        when(delegate.authenticate(any())).thenReturn(authenticated(reader));
+
+        provider.authenticate(basic("reader", "secret"));
+        Authentication result = provider.authenticate(basic("reader", "secret"));
+
+        assertTrue(result.isAuthenticated());
+        assertEquals(reader, result.getPrincipal());
+        assertNull(result.getCredentials());
+        assertEquals(List.copyOf(reader.getAuthorities()), List.copyOf(result.getAuthorities()));
+        verify(delegate, times(1)).authenticate(any());
+    }
+
+    @Test
+    void differentPasswordIsVerifiedAgain() { // sprawdzenie czy inne hasło nie korzysta z zapamiętanej weryfikacji
+        when(delegate.authenticate(any()))
+                .thenReturn(authenticated(reader))
+                .thenThrow(new BadCredentialsException("Bad credentials"));
+
+        provider.authenticate(basic("reader", "secret"));
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(basic("reader", "guess")));
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    void failedVerificationIsNotCached() { // sprawdzenie czy nieudana weryfikacja nie jest zapamiętywana
+        when(delegate.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(basic("reader", "guess")));
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(basic("reader", "guess")));
+
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    void evictDropsOnlyEntriesOfGivenUser() { // sprawdzenie czy unieważnienie usuwa wpisy tylko wskazanego użytkownika
+        UserDetails other = new User("other", "", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        when(delegate.authenticate(any()))
+                .thenReturn(authenticated(reader), authenticated(other), authenticated(reader));
+
+        provider.authenticate(basic("reader", "secret"));
+        provider.authenticate(basic("other", "secret"));
+        provider.evict("reader");
+        provider.authenticate(basic("reader", "secret"));
+        provider.authenticate(basic("other", "secret"));
+
+        verify(delegate, times(3)).authenticate(any());
+    }
+
+    @Test
+    void checkStartedBeforeEvictIsNotCached() { // sprawdzenie czy weryfikacja rozpoczęta przed unieważnieniem nie zapisuje starego hasła
+        when(delegate.authenticate(any()))
+                .thenAnswer(invocation -> {
+                    provider.evict("reader");
+                    return authenticated(reader);
+                })
+                .thenReturn(authenticated(reader));
+
+        provider.authenticate(basic("reader", "secret"));
+        provider.authenticate(basic("reader", "secret"));
+        provider.authenticate(basic("reader", "secret"));
+
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    void requestsWithoutCredentialsGoToDelegate() { // sprawdzenie czy żądania bez hasła trafiają bezpośrednio do delegata
+        Authentication anonymous = new UsernamePasswordAuthenticationToken("reader", null);
+        when(delegate.authenticate(anonymous)).thenThrow(new BadCredentialsException("Bad credentials"));
+        when(delegate.supports(UsernamePasswordAuthenticationToken.class)).thenReturn(true);
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(anonymous));
+        assertTrue(provider.supports(UsernamePasswordAuthenticationToken.class));
+    }
+
+    private Authentication basic(String username, String password) {
+        return new UsernamePasswordAuthenticationToken(username, password);
+    }
+
+    private Authentication authenticated(UserDetails user) {
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+}
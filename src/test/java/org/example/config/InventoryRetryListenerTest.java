@@ -0,0 +1,81 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.support.RetryTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InventoryRetryListenerTest {
+
+    private MeterRegistry meterRegistry;
+    private RetryTemplate retryTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        InventoryRetryListener listener = new InventoryRetryListener();
+        listener.bindTo(meterRegistry);
+        retryTemplate = RetryTemplate.builder()
+                .maxAttempts(3)
+                .noBackoff()
+                .retryOn(ObjectOptimisticLockingFailureException.class)
+                .withListener(listener)
+                .build();
+    }
+
+    @Test
+    public void testConflictResolvedByRetry() { // sprawdzenie czy zlicza konflikty i ponowienia zakończone sukcesem
+        String result = retryTemplate.execute((RetryContext context) -> {
+            if (context.getRetryCount() < 2) {
+                throw new ObjectOptimisticLockingFailureException("Book", 1L);
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2.0, meterRegistry.counter("bookstore.inventory.conflicts").count());
+        assertEquals(2.0, meterRegistry.counter("bookstore.inventory.retries").count());
+        assertEquals(0.0, meterRegistry.counter("bookstore.inventory.retries.exhausted").count());
+    }
+
+    @Test
+    public void testRetriesExhausted() { // sprawdzenie czy zlicza wyczerpanie limitu ponowień
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> retryTemplate.execute((RetryContext context) -> {
+            throw new ObjectOptimisticLockingFailureException("Book", 1L);
+        }));
+
+        assertEquals(3.0, meterRegistry.counter("bookstore.inventory.conflicts").count());
+        assertEquals(2.0, meterRegistry.counter("bookstore.inventory.retries").count());
+        assertEquals(1.0, meterRegistry.counter("bookstore.inventory.retries.exhausted").count());
+    }
+
+    @Test
+    public void testNonConflictErrorIgnored() { // sprawdzenie czy inne błędy nie są liczone jako konflikty
+        assertThrows(IllegalArgumentException.class, () -> retryTemplate.execute((RetryContext context) -> {
+            throw new IllegalArgumentException("Book not found");
+        }));
+
+        assertEquals(0.0, meterRegistry.counter("bookstore.inventory.conflicts").count());
+        assertEquals(0.0, meterRegistry.counter("bookstore.inventory.retries").count());
+        assertEquals(0.0, meterRegistry.counter("bookstore.inventory.retries.exhausted").count());
+    }
+
+    @Test
+    public void testUnboundListenerIgnoresEvents() { // sprawdzenie czy niepodpięty do rejestru listener nie przerywa ponowień
+        RetryTemplate unbound = RetryTemplate.builder()
+                .maxAttempts(2)
+                .noBackoff()
+                .retryOn(ObjectOptimisticLockingFailureException.class)
+                .withListener(new InventoryRetryListener())
+                .build();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> unbound.execute((RetryContext context) -> {
+            throw new ObjectOptimisticLockingFailureException("Book", 1L);
+        }));
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.repository.BookLoanRepository;
+import org.example.repository.BookRepository;
+import org.example.repository.BookReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LibraryMetricsTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private BookLoanRepository bookLoanRepository;
+
+    @Mock
+    private BookReservationRepository bookReservationRepository;
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void gaugesReportCurrentCounts() { // sprawdzenie czy wskaźniki zwracają aktualne liczności
+        bind(Duration.ofSeconds(30));
+        when(bookLoanRepository.countByReturnedFalse()).thenReturn(12L);
+        when(bookLoanRepository.countByOverdueTrue()).thenReturn(3L);
+        when(bookReservationRepository.countByActiveTrue()).thenReturn(7L);
+        when(bookRepository.countOutOfStock()).thenReturn(2L);
+
+        assertEquals(12.0, registry.get("bookstore.loans.active").gauge().value());
+        assertEquals(3.0, registry.get("bookstore.loans.overdue").gauge().value());
+        assertEquals(7.0, registry.get("bookstore.reservations.active").gauge().value());
+        assertEquals(2.0, registry.get("bookstore.books.out_of_stock").gauge().value());
+    }
+
+    @Test
+    void gaugesAreCachedBetweenRefreshes() { // sprawdzenie czy kolejne odczyty w interwale nie odpytują bazy
+        bind(Duration.ofSeconds(30));
+        when(bookLoanRepository.countByReturnedFalse()).thenReturn(1L, 2L);
+
+        assertEquals(1.0, registry.get("bookstore.loans.active").gauge().value());
+        assertEquals(1.0, registry.get("bookstore.loans.active").gauge().value());
+        verify(bookLoanRepository, times(1)).countByReturnedFalse();
+        verifyNoInteractions(bookRepository, bookReservationRepository);
+    }
+
+    @Test
+    void gaugesRefreshAfterInterval() { // sprawdzenie czy wskaźniki są odświeżane po upływie interwału
+        bind(Duration.ZERO);
+        when(bookLoanRepository.countByReturnedFalse()).thenReturn(1L, 2L);
+
+        assertEquals(1.0, registry.get("bookstore.loans.active").gauge().value());
+        assertEquals(2.0, registry.get("bookstore.loans.active").gauge().value());
+        verify(bookLoanRepository, times(2)).countByReturnedFalse();
+    }
+
+    private void bind(Duration refreshInterval) {
+        new LibraryMetrics(bookRepository, bookLoanRepository, bookReservationRepository, refreshInterval).bindTo(registry);
+    }
+}
@@ -0,0 +1,196 @@
+package org.example.config;
+
+import org.example.entity.Book;
+import org.example.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:request-execution",
+        "spring.jpa.show-sql=false",
+        "spring.datasource.hikari.maximum-pool-size=20",
+        "spring.datasource.hikari.minimum-idle=20",
+        "spring.datasource.hikari.connection-timeout=2000",
+        "server.tomcat.max-connections=10000",
+        "server.tomcat.accept-count=1000",
+        "management.health.db.enabled=false",
+        "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=off"
+})
+@EnabledIfSystemProperty(named = "bookstore.benchmark", matches = "true")
+public class RequestExecutionBenchmarkTest {
+
+    private static final long DB_LATENCY_MILLIS = Long.getLong("bookstore.benchmark.db-latency", 50);
+    private static final int DB_CLIENTS = Integer.getInteger("bookstore.benchmark.db-clients", 400);
+    private static final int LIGHT_CLIENTS = Integer.getInteger("bookstore.benchmark.light-clients", 50);
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(Long.getLong("bookstore.benchmark.seconds", 15));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(10)).build();
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.saveAll(IntStream.range(0, 100)
+                .mapToObj(i -> Book.builder()
+                        .title("Benchmark " + i)
+                        .author("Author " + i % 10)
+                        .quantity(5)
+                        .availableQuantity(5)
+                        .build())
+                .collect(Collectors.toList()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void requestExecutionUnderSlowDatabase() throws Exception { // porównanie przepustowości i opóźnień ogona przy wolnej bazie dla wybranego trybu wątków
+        run(WARMUP);
+        Result[] results = run(MEASUREMENT);
+
+        String mode = Boolean.getBoolean("bookstore.server.virtual-threads.enabled") ? "virtual" : "platform";
+        System.out.println(mode + " threads, DB latency " + DB_LATENCY_MILLIS + " ms, pool 20, " + MEASUREMENT.getSeconds() + " s");
+        System.out.println("  GET /api/books/all   (" + DB_CLIENTS + " clients): " + results[0]);
+        System.out.println("  GET /actuator/health (" + LIGHT_CLIENTS + " clients): " + results[1]);
+
+        assertFalse(results[0].latencies.isEmpty());
+        assertEquals(LIGHT_CLIENTS == 0, results[1].latencies.isEmpty());
+    }
+
+    private Result[] run(Duration duration) throws InterruptedException {
+        Result database = new Result();
+        Result light = new Result();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch finished = new CountDownLatch(DB_CLIENTS + LIGHT_CLIENTS);
+        List<Thread> clients = new ArrayList<>();
+        for (int i = 0; i < DB_CLIENTS; i++) {
+            clients.add(new Thread(() -> load("/api/books/all?size=10", database, running, finished)));
+        }
+        for (int i = 0; i < LIGHT_CLIENTS; i++) {
+            clients.add(new Thread(() -> load("/actuator/health", light, running, finished)));
+        }
+        long start = System.nanoTime();
+        clients.forEach(Thread::start);
+        Thread.sleep(duration.toMillis());
+        running.set(false);
+        finished.await();
+        long elapsed = System.nanoTime() - start;
+        database.elapsedNanos = elapsed;
+        light.elapsedNanos = elapsed;
+        return new Result[]{database, light};
+    }
+
+    private void load(String path, Result result, AtomicBoolean running, CountDownLatch finished) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        try {
+            while (running.get()) {
+                long started = System.nanoTime();
+                int status;
+                try {
+                    status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                } catch (Exception e) {
+                    status = -1;
+                }
+                result.record(System.nanoTime() - started, status);
+            }
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    @TestConfiguration
+    static class SlowDatabaseConfig {
+
+        @Bean
+        static BeanPostProcessor slowDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? new SlowDataSource((DataSource) bean) : bean;
+                }
+            };
+        }
+    }
+
+    static class SlowDataSource extends DelegatingDataSource {
+
+        SlowDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            try {
+                Thread.sleep(DB_LATENCY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return connection;
+        }
+    }
+
+    static class Result {
+
+        private final List<Long> latencies = new ArrayList<>();
+        private long errors;
+        private long elapsedNanos;
+
+        synchronized void record(long nanos, int status) {
+            latencies.add(nanos);
+            if (status < 200 || status >= 300) {
+                errors++;
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            return String.format("%d requests, %.0f req/s, %d errors, p50 %.1f ms, p99 %.1f ms, max %.1f ms",
+                    sorted.length, sorted.length / (elapsedNanos / 1e9), errors,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0));
+        }
+
+        private static double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[(int) Math.max(0, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.entity.User;
+import org.example.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:metrics",
+        "management.endpoints.web.exposure.include=prometheus",
+        "management.metrics.distribution.percentiles-histogram.bookstore.service=true"
+})
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+public class ServiceMetricsAspectTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void serviceAndRepositoryCallsAreTimed() { // sprawdzenie czy wywołania serwisu i repozytorium są mierzone
+        long before = count("existsByUsername", "none");
+
+        userService.existsByUsername("nobody");
+
+        assertEquals(before + 1, count("existsByUsername", "none"));
+        assertNotNull(meterRegistry.find("spring.data.repository.invocations")
+                .tag("repository", "UserRepository")
+                .tag("method", "existsByUsername")
+                .timer());
+    }
+
+    @Test
+    void failedCallsAreTaggedWithException() { // sprawdzenie czy nieudane wywołania są oznaczane typem wyjątku
+        User missing = User.builder().id(-1L).username("missing").build();
+
+        assertThrows(IllegalArgumentException.class, () -> userService.updateUser(missing));
+
+        assertEquals(1, count("updateUser", "IllegalArgumentException"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void prometheusEndpointExposesServiceTimersAndGauges() throws Exception { // sprawdzenie czy endpoint Prometheus udostępnia liczniki i wskaźniki
+        userService.existsByEmail("nobody@example.com");
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("bookstore_service_seconds_bucket{class=\"UserService\",exception=\"none\",method=\"existsByEmail\"")))
+                .andExpect(content().string(containsString("bookstore_loans_active")))
+                .andExpect(content().string(containsString("bookstore_loans_overdue")))
+                .andExpect(content().string(containsString("bookstore_reservations_active")))
+                .andExpect(content().string(containsString("bookstore_books_out_of_stock")));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void prometheusEndpointRequiresAdmin() throws Exception { // sprawdzenie czy zwykły użytkownik nie może pobrać metryk
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isForbidden());
+    }
+
+    private long count(String method, String exception) {
+        Timer timer = meterRegistry.find(ServiceMetricsAspect.METRIC_NAME)
+                .tag("class", "UserService")
+                .tag("method", method)
+                .tag("exception", exception)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.TokenRequest;
+import org.example.dto.TokenResponse;
+import org.example.entity.User;
+import org.example.repository.UserRepository;
+import org.example.service.UserDetailsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:tokens")
+@AutoConfigureMockMvc
+public class TokenAuthenticationFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @SpyBean
+    private UserDetailsService userDetailsService;
+
+    private User admin;
+
+    @BeforeEach
+    void setUp() {
+        admin = userRepository.save(User.builder()
+                .username("token-admin")
+                .password(passwordEncoder.encode("secret"))
+                .email("token-admin@example.com")
+                .role(User.Role.ADMIN)
+                .build());
+        userRepository.save(User.builder()
+                .username("token-reader")
+                .password(passwordEncoder.encode("secret"))
+                .email("token-reader@example.com")
+                .role(User.Role.USER)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void bearerTokenAuthenticatesWithoutUserLookup() throws Exception { // sprawdzenie czy token dostępu uwierzytelnia żądania bez odczytu użytkownika
+        String accessToken = issue("token-admin").getAccessToken();
+        clearInvocations(userDetailsService);
+
+        mockMvc.perform(get("/api/users/get/" + admin.getId()).header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/all").header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                .andExpect(status().isOk());
+
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void tokenCarriesRole() throws Exception { // sprawdzenie czy token przenosi rolę użytkownika
+        String accessToken = issue("token-reader").getAccessToken();
+
+        mockMvc.perform(get("/api/users/all").header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void invalidTokenIsRejected() throws Exception { // sprawdzenie czy nieprawidłowy token jest odrzucany
+        mockMvc.perform(get("/api/users/all").header(HttpHeaders.AUTHORIZATION, "Bearer forged.token"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, containsString("invalid_token")));
+    }
+
+    @Test
+    void requestsWithoutTokenStillUseBasic() throws Exception { // sprawdzenie czy żądania bez tokenu nadal korzystają z HTTP Basic
+        mockMvc.perform(get("/api/users/all"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/users/all").with(httpBasic("token-admin", "secret")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void wrongPasswordGetsNoToken() throws Exception { // sprawdzenie czy błędne hasło nie wydaje tokenu
+        mockMvc.perform(post("/api/auth/token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new TokenRequest("token-admin", "guess"))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private TokenResponse issue(String username) throws Exception {
+        String body = mockMvc.perform(post("/api/auth/token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new TokenRequest(username, "secret"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, TokenResponse.class);
+    }
+}
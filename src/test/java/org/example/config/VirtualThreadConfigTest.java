@@ -0,0 +1,69 @@
+package org.example.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:virtual-threads",
+        "bookstore.server.virtual-threads.enabled=true"
+})
+public class VirtualThreadConfigTest {
+
+    private static final AtomicReference<Thread> REQUEST_THREAD = new AtomicReference<>();
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor applicationTaskExecutor;
+
+    @Test
+    void requestsRunOnVirtualThreads() { // sprawdzenie czy żądanie korzystające z bazy jest obsługiwane przez wątek wirtualny
+        REQUEST_THREAD.set(null);
+
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity("/api/books/all", String.class).getStatusCode());
+        assertTrue(REQUEST_THREAD.get().isVirtual());
+        assertTrue(REQUEST_THREAD.get().getName().startsWith("request-"));
+    }
+
+    @Test
+    void asyncTasksRunOnVirtualThreads() throws Exception { // sprawdzenie czy zadania asynchroniczne również trafiają na wątki wirtualne
+        assertTrue(applicationTaskExecutor.submit(() -> Thread.currentThread().isVirtual()).get(5, TimeUnit.SECONDS));
+    }
+
+    @TestConfiguration
+    static class RequestThreadConfig {
+
+        @Bean
+        OncePerRequestFilter requestThreadRecorder() {
+            return new OncePerRequestFilter() {
+                @Override
+                protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                                FilterChain filterChain) throws ServletException, IOException {
+                    REQUEST_THREAD.set(Thread.currentThread());
+                    filterChain.doFilter(request, response);
+                }
+            };
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package org.example.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.RefreshTokenRequest;
+import org.example.dto.TokenRequest;
+import org.example.dto.TokenResponse;
 import org.example.entity.User;
+import org.example.service.TokenService;
 import org.example.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,6 +14,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -32,6 +37,9 @@ public class AuthControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private TokenService tokenService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -164,4 +172,74 @@ public class AuthControllerTest {
         mockMvc.perform(get("/api/auth/me"))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    void issueToken_Success() throws Exception { // sprawdzenie czy wydaje tokeny dla poprawnych danych logowania
+        TokenResponse tokens = TokenResponse.builder()
+                .accessToken("access")
+                .refreshToken("refresh")
+                .tokenType("Bearer")
+                .expiresIn(900)
+                .build();
+        when(tokenService.issueTokens("testUser", "password123")).thenReturn(tokens);
+
+        mockMvc.perform(post("/api/auth/token")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new TokenRequest("testUser", "password123"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken", is("access")))
+                .andExpect(jsonPath("$.refreshToken", is("refresh")))
+                .andExpect(jsonPath("$.tokenType", is("Bearer")))
+                .andExpect(jsonPath("$.expiresIn", is(900)));
+    }
+
+    @Test
+    void issueToken_BadCredentials() throws Exception { // sprawdzenie czy odrzuca błędne dane logowania przy wydawaniu tokenu
+        when(tokenService.issueTokens("testUser", "wrong")).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        mockMvc.perform(post("/api/auth/token")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new TokenRequest("testUser", "wrong"))))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error", is("Bad credentials")));
+    }
+
+    @Test
+    void issueToken_MissingPassword() throws Exception { // sprawdzenie czy wymaga hasła przy wydawaniu tokenu
+        mockMvc.perform(post("/api/auth/token")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new TokenRequest("testUser", ""))))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(tokenService);
+    }
+
+    @Test
+    void refreshToken_Success() throws Exception { // sprawdzenie czy odświeża tokeny
+        TokenResponse tokens = TokenResponse.builder()
+                .accessToken("new-access")
+                .refreshToken("new-refresh")
+                .tokenType("Bearer")
+                .expiresIn(900)
+                .build();
+        when(tokenService.refreshTokens("refresh")).thenReturn(tokens);
+
+        mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RefreshTokenRequest("refresh"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken", is("new-access")))
+                .andExpect(jsonPath("$.refreshToken", is("new-refresh")));
+    }
+
+    @Test
+    void refreshToken_Invalid() throws Exception { // sprawdzenie czy odrzuca nieprawidłowy token odświeżania
+        when(tokenService.refreshTokens("forged")).thenThrow(new BadCredentialsException("Invalid token"));
+
+        mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RefreshTokenRequest("forged"))))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error", is("Invalid token")));
+    }
 }
@@ -1,6 +1,13 @@
 package org.example.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.BookFacetCount;
+import org.example.dto.BookFacets;
+import org.example.dto.BookFuzzyMatch;
+import org.example.dto.BookPage;
+import org.example.dto.BookSearchPage;
+import org.example.dto.BookSnapshot;
+import org.example.dto.BookSuggestion;
 import org.example.entity.Book;
 import org.example.service.BookService;
 import org.example.service.UserDetailsService;
@@ -99,7 +106,7 @@ public class BookControllerTest {
 
     @Test
     void getBookById_Success() throws Exception { // sprawdzenie czy pobiera książkę po ID
-        when(bookService.findById(1L)).thenReturn(Optional.of(book));
+        when(bookService.findSnapshotById(1L)).thenReturn(Optional.of(BookSnapshot.of(book)));
 
         mockMvc.perform(get("/api/books/get/1"))
                 .andExpect(status().isOk())
@@ -107,22 +114,163 @@ public class BookControllerTest {
                 .andExpect(jsonPath("$.title", is("Test Book")))
                 .andExpect(jsonPath("$.author", is("Test Author")));
 
-        verify(bookService).findById(1L);
+        verify(bookService).findSnapshotById(1L);
     }
 
     @Test
     void getAllBooks() throws Exception { // sprawdzenie czy pobiera wszystkie książki
-        when(bookService.findAllBooks()).thenReturn(books);
+        BookPage page = BookPage.builder().books(books).nextCursor("Ym9vazoy").build();
+        when(bookService.findBooksPage(null, 50)).thenReturn(page);
 
         mockMvc.perform(get("/api/books/all"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$.books", hasSize(2)))
+                .andExpect(jsonPath("$.books[0].id", is(1)))
+                .andExpect(jsonPath("$.books[0].title", is("Test Book")))
+                .andExpect(jsonPath("$.books[1].id", is(2)))
+                .andExpect(jsonPath("$.books[1].title", is("Another Book")))
+                .andExpect(jsonPath("$.nextCursor", is("Ym9vazoy")));
+
+        verify(bookService).findBooksPage(null, 50);
+    }
+
+    @Test
+    void getAllBooks_InvalidCursor() throws Exception { // sprawdzenie czy obsługuje niepoprawny kursor
+        when(bookService.findBooksPage("bad", 10)).thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        mockMvc.perform(get("/api/books/all")
+                .param("cursor", "bad")
+                .param("size", "10"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Invalid cursor")));
+    }
+
+    @Test
+    void searchBooks() throws Exception { // sprawdzenie czy wyszukuje książki pełnotekstowo z kursorem
+        BookSearchPage page = BookSearchPage.builder().hits(List.of()).nextCursor("c2VhcmNoOjNlMDAwMDAwOjc").build();
+        when(bookService.searchBooks("lalka prus", null, 20)).thenReturn(page);
+
+        mockMvc.perform(get("/api/books/search")
+                .param("q", "lalka prus"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits", hasSize(0)))
+                .andExpect(jsonPath("$.nextCursor", is("c2VhcmNoOjNlMDAwMDAwOjc")));
+
+        verify(bookService).searchBooks("lalka prus", null, 20);
+    }
+
+    @Test
+    void searchBookIndex() throws Exception { // sprawdzenie czy wyszukuje książki w indeksie w pamięci
+        BookPage page = BookPage.builder().books(books).nextCursor(null).build();
+        when(bookService.searchIndex("book", "OR", true, null, 20)).thenReturn(page);
+
+        mockMvc.perform(get("/api/books/index/search")
+                .param("q", "book")
+                .param("operator", "OR")
+                .param("available", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books", hasSize(2)))
+                .andExpect(jsonPath("$.books[0].id", is(1)));
+
+        verify(bookService).searchIndex("book", "OR", true, null, 20);
+    }
+
+    @Test
+    void searchBookIndex_Disabled() throws Exception { // sprawdzenie czy obsługuje wyłączony indeks w pamięci
+        when(bookService.searchIndex("book", "AND", false, null, 20)).thenThrow(new IllegalStateException("Search index is disabled"));
+
+        mockMvc.perform(get("/api/books/index/search")
+                .param("q", "book"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Search index is disabled")));
+    }
+
+    @Test
+    void suggestBooks() throws Exception { // sprawdzenie czy zwraca podpowiedzi tytułów i autorów
+        BookSuggestion suggestion = BookSuggestion.builder().text("Test Book").type(BookSuggestion.Type.TITLE).books(1).loans(4).build();
+        when(bookService.suggestBooks("te")).thenReturn(List.of(suggestion));
+
+        mockMvc.perform(get("/api/books/suggest")
+                .param("q", "te"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].text", is("Test Book")))
+                .andExpect(jsonPath("$[0].type", is("TITLE")))
+                .andExpect(jsonPath("$[0].loans", is(4)));
+    }
+
+    @Test
+    void suggestBooks_EmptyQuery() throws Exception { // sprawdzenie czy obsługuje puste zapytanie podpowiedzi
+        when(bookService.suggestBooks(" ")).thenThrow(new IllegalArgumentException("Query is empty"));
+
+        mockMvc.perform(get("/api/books/suggest")
+                .param("q", " "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Query is empty")));
+    }
+
+    @Test
+    void findSimilarBooks() throws Exception { // sprawdzenie czy zwraca książki o podobnym tytule lub autorze
+        BookFuzzyMatch match = BookFuzzyMatch.builder().id(1L).title("Test Book").author("Test Author")
+                .field(BookFuzzyMatch.Field.AUTHOR).distance(1).similarity(0.9f).build();
+        when(bookService.findSimilar("Test Autor", 20)).thenReturn(List.of(match));
+
+        mockMvc.perform(get("/api/books/fuzzy")
+                .param("q", "Test Autor"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(1)))
-                .andExpect(jsonPath("$[0].title", is("Test Book")))
-                .andExpect(jsonPath("$[1].id", is(2)))
-                .andExpect(jsonPath("$[1].title", is("Another Book")));
+                .andExpect(jsonPath("$[0].field", is("AUTHOR")))
+                .andExpect(jsonPath("$[0].distance", is(1)));
+    }
 
-        verify(bookService).findAllBooks();
+    @Test
+    void findSimilarBooks_ShortQuery() throws Exception { // sprawdzenie czy obsługuje zbyt krótkie zapytanie
+        when(bookService.findSimilar("ab", 20)).thenThrow(new IllegalArgumentException("Query must have at least 3 characters"));
+
+        mockMvc.perform(get("/api/books/fuzzy")
+                .param("q", "ab"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Query must have at least 3 characters")));
+    }
+
+    @Test
+    void getBookFacets() throws Exception { // sprawdzenie czy zwraca liczniki autorów, dostępności i ilości
+        BookFacets facets = BookFacets.builder()
+                .total(2)
+                .authors(List.of(BookFacetCount.builder().value("Test Author").count(2).build()))
+                .availability(List.of(BookFacetCount.builder().value("AVAILABLE").count(2).build()))
+                .quantity(List.of(BookFacetCount.builder().value("5-9").count(2).build()))
+                .build();
+        when(bookService.findFacets("test", "AND", null, "AVAILABLE", null, 20)).thenReturn(facets);
+
+        mockMvc.perform(get("/api/books/facets")
+                .param("q", "test")
+                .param("availability", "AVAILABLE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(2)))
+                .andExpect(jsonPath("$.authors[0].value", is("Test Author")))
+                .andExpect(jsonPath("$.quantity[0].value", is("5-9")));
+    }
+
+    @Test
+    void getBookFacets_UnknownAvailability() throws Exception { // sprawdzenie czy obsługuje nieznaną wartość dostępności
+        when(bookService.findFacets(null, "AND", null, "lost", null, 20)).thenThrow(new IllegalArgumentException("Unknown availability: lost"));
+
+        mockMvc.perform(get("/api/books/facets")
+                .param("availability", "lost"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Unknown availability: lost")));
+    }
+
+    @Test
+    void searchBooks_EmptyQuery() throws Exception { // sprawdzenie czy obsługuje puste zapytanie wyszukiwania
+        when(bookService.searchBooks("!", null, 20)).thenThrow(new IllegalArgumentException("Search query is empty"));
+
+        mockMvc.perform(get("/api/books/search")
+                .param("q", "!"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Search query is empty")));
     }
 
     @Test
@@ -1,6 +1,9 @@
 package org.example.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.BookLoanSummary;
+import org.example.dto.LoanBatchItem;
+import org.example.dto.LoanReturnReport;
 import org.example.entity.Book;
 import org.example.entity.BookLoan;
 import org.example.entity.User;
@@ -17,12 +20,14 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Base64;
 
@@ -31,6 +36,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -61,6 +67,7 @@ public class BookLoanControllerTest {
     private User user;
     private Book book;
     private BookLoan loan;
+    private BookLoanSummary loanSummary;
     private LocalDateTime now;
     private LocalDateTime dueDate;
 
@@ -98,6 +105,18 @@ public class BookLoanControllerTest {
                 .dueDate(dueDate)
                 .returned(false)
                 .build();
+
+        loanSummary = BookLoanSummary.builder()
+                .id(1L)
+                .userId(1L)
+                .username("testUser")
+                .bookId(1L)
+                .title("Test Book")
+                .author("Test Author")
+                .loanDate(now)
+                .dueDate(dueDate)
+                .returned(false)
+                .build();
     }
 
     @Test
@@ -134,6 +153,85 @@ public class BookLoanControllerTest {
         verify(bookLoanService).createLoan(1L, 1L, dueDate);
     }
 
+    @Test
+    void createLoans_Success() throws Exception { // sprawdzenie czy tworzy wypożyczenia wielu książek i raportuje każdą pozycję
+        when(bookLoanService.createLoans(1L, List.of(1L, 2L), dueDate)).thenReturn(List.of(
+                LoanBatchItem.created(1L, 10L),
+                LoanBatchItem.rejected(2L, "Book is not available for loan")));
+
+        mockMvc.perform(post("/api/loans/batch")
+                .param("userId", "1")
+                .param("dueDate", dueDate.toString())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 2]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].bookId", is(1)))
+                .andExpect(jsonPath("$[0].loanId", is(10)))
+                .andExpect(jsonPath("$[1].bookId", is(2)))
+                .andExpect(jsonPath("$[1].error", is("Book is not available for loan")));
+
+        verify(bookLoanService).createLoans(1L, List.of(1L, 2L), dueDate);
+    }
+
+    @Test
+    void createLoans_NothingCreated() throws Exception { // sprawdzenie czy zwraca błąd gdy żadne wypożyczenie nie zostało utworzone
+        when(bookLoanService.createLoans(1L, List.of(2L), dueDate)).thenReturn(List.of(
+                LoanBatchItem.rejected(2L, "Book not found")));
+
+        mockMvc.perform(post("/api/loans/batch")
+                .param("userId", "1")
+                .param("dueDate", dueDate.toString())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[2]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].error", is("Book not found")));
+    }
+
+    @Test
+    void createLoans_Error() throws Exception { // sprawdzenie czy obsługuje błąd podczas tworzenia wielu wypożyczeń
+        when(bookLoanService.createLoans(999L, List.of(1L), dueDate))
+                .thenThrow(new IllegalArgumentException("User not found"));
+
+        mockMvc.perform(post("/api/loans/batch")
+                .param("userId", "999")
+                .param("dueDate", dueDate.toString())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("User not found")));
+    }
+
+    @Test
+    void returnBooks_Success() throws Exception { // sprawdzenie czy zwraca wiele książek i raportuje wynik
+        when(bookLoanService.returnBooks(List.of(1L, 2L, 3L))).thenReturn(LoanReturnReport.builder()
+                .returned(List.of(1L))
+                .alreadyReturned(List.of(2L))
+                .notFound(List.of(3L))
+                .build());
+
+        mockMvc.perform(post("/api/loans/return/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 2, 3]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.returned", contains(1)))
+                .andExpect(jsonPath("$.alreadyReturned", contains(2)))
+                .andExpect(jsonPath("$.notFound", contains(3)));
+
+        verify(bookLoanService).returnBooks(List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    void returnBooks_Error() throws Exception { // sprawdzenie czy obsługuje błąd podczas zwrotu wielu książek
+        when(bookLoanService.returnBooks(List.of())).thenThrow(new IllegalArgumentException("No loans to return"));
+
+        mockMvc.perform(post("/api/loans/return/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("No loans to return")));
+    }
+
     @Test
     void getLoanById_Success() throws Exception { // sprawdzenie czy pobiera wypożyczenie po ID
         when(bookLoanService.findById(1L)).thenReturn(Optional.of(loan));
@@ -163,15 +261,17 @@ public class BookLoanControllerTest {
     @Test
     void getLoansByUser_Success() throws Exception { // sprawdzenie czy pobiera wypożyczenia użytkownika
         when(userService.findById(1L)).thenReturn(Optional.of(user));
-        when(bookLoanService.findByUser(user)).thenReturn(Collections.singletonList(loan));
+        when(bookLoanService.findByUser(user)).thenReturn(Collections.singletonList(loanSummary));
 
         mockMvc.perform(get("/api/loans/get_user/1")
                 .header(HttpHeaders.AUTHORIZATION, createBasicAuthHeader()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(1)))
-                .andExpect(jsonPath("$[0].user.id", is(1)))
-                .andExpect(jsonPath("$[0].book.id", is(1)));
+                .andExpect(jsonPath("$[0].userId", is(1)))
+                .andExpect(jsonPath("$[0].bookId", is(1)))
+                .andExpect(jsonPath("$[0].user").doesNotExist())
+                .andExpect(jsonPath("$[0].password").doesNotExist());
 
         verify(userService).findById(1L);
         verify(bookLoanService).findByUser(user);
@@ -194,14 +294,14 @@ public class BookLoanControllerTest {
     @WithMockUser(roles = "ADMIN")
     void getLoansByBook_Success() throws Exception { // sprawdzenie czy pobiera wypożyczenia dla książki
         when(bookService.findById(1L)).thenReturn(Optional.of(book));
-        when(bookLoanService.findByBook(book)).thenReturn(Collections.singletonList(loan));
+        when(bookLoanService.findByBook(book)).thenReturn(Collections.singletonList(loanSummary));
 
         mockMvc.perform(get("/api/loans/get_book/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(1)))
-                .andExpect(jsonPath("$[0].user.id", is(1)))
-                .andExpect(jsonPath("$[0].book.id", is(1)));
+                .andExpect(jsonPath("$[0].userId", is(1)))
+                .andExpect(jsonPath("$[0].bookId", is(1)));
 
         verify(bookService).findById(1L);
         verify(bookLoanService).findByBook(book);
@@ -223,7 +323,7 @@ public class BookLoanControllerTest {
     @Test
     @WithMockUser(roles = "ADMIN")
     void getActiveLoans() throws Exception { // sprawdzenie czy pobiera aktywne wypożyczenia
-        when(bookLoanService.findActiveLoans()).thenReturn(Collections.singletonList(loan));
+        when(bookLoanService.findActiveLoans()).thenReturn(Collections.singletonList(loanSummary));
 
         mockMvc.perform(get("/api/loans/active"))
                 .andExpect(status().isOk())
@@ -237,13 +337,13 @@ public class BookLoanControllerTest {
     @Test
     void getActiveLoansForUser_Success() throws Exception { // sprawdzenie czy pobiera aktywne wypożyczenia użytkownika
         when(userService.findById(1L)).thenReturn(Optional.of(user));
-        when(bookLoanService.findActiveLoansForUser(user)).thenReturn(Collections.singletonList(loan));
+        when(bookLoanService.findActiveLoansForUser(user)).thenReturn(Collections.singletonList(loanSummary));
 
         mockMvc.perform(get("/api/loans/active_user/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(1)))
-                .andExpect(jsonPath("$[0].user.id", is(1)))
+                .andExpect(jsonPath("$[0].userId", is(1)))
                 .andExpect(jsonPath("$[0].returned", is(false)));
 
         verify(userService).findById(1L);
@@ -254,13 +354,13 @@ public class BookLoanControllerTest {
     @WithMockUser(roles = "ADMIN")
     void getActiveLoansForBook_Success() throws Exception { // sprawdzenie czy pobiera aktywne wypożyczenia dla książki
         when(bookService.findById(1L)).thenReturn(Optional.of(book));
-        when(bookLoanService.findActiveLoansForBook(book)).thenReturn(Collections.singletonList(loan));
+        when(bookLoanService.findActiveLoansForBook(book)).thenReturn(Collections.singletonList(loanSummary));
 
         mockMvc.perform(get("/api/loans/active_book/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(1)))
-                .andExpect(jsonPath("$[0].book.id", is(1)))
+                .andExpect(jsonPath("$[0].bookId", is(1)))
                 .andExpect(jsonPath("$[0].returned", is(false)));
 
         verify(bookService).findById(1L);
@@ -270,7 +370,7 @@ public class BookLoanControllerTest {
     @Test
     @WithMockUser(roles = "ADMIN")
     void getAllLoans() throws Exception { // sprawdzenie czy pobiera wszystkie wypożyczenia
-        when(bookLoanService.findAllLoans()).thenReturn(Collections.singletonList(loan));
+        when(bookLoanService.findAllLoans()).thenReturn(Collections.singletonList(loanSummary));
 
         mockMvc.perform(get("/api/loans/all"))
                 .andExpect(status().isOk())
@@ -283,7 +383,7 @@ public class BookLoanControllerTest {
     @Test
     @WithMockUser(roles = "ADMIN")
     void getOverdueLoans() throws Exception { // sprawdzenie czy pobiera przeterminowane wypożyczenia
-        when(bookLoanService.findOverdueLoans()).thenReturn(Collections.singletonList(loan));
+        when(bookLoanService.findOverdueLoans()).thenReturn(Collections.singletonList(loanSummary));
 
         mockMvc.perform(get("/api/loans/overdue"))
                 .andExpect(status().isOk())
@@ -326,4 +426,29 @@ public class BookLoanControllerTest {
 
         verify(bookLoanService).returnBook(999L);
     }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exportLoans() throws Exception { // sprawdzenie czy strumieniowo eksportuje wypożyczenia jako tablicę JSON
+        doAnswer(invocation -> {
+            Consumer<BookLoanSummary> consumer = invocation.getArgument(0);
+            consumer.accept(loanSummary);
+            consumer.accept(loanSummary);
+            return null;
+        }).when(bookLoanService).exportAllLoans(any());
+
+        MvcResult result = mockMvc.perform(get("/api/loans/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", is(1)))
+                .andExpect(jsonPath("$[1].id", is(1)))
+                .andExpect(jsonPath("$[0].username", is("testUser")))
+                .andExpect(jsonPath("$[0].user").doesNotExist())
+                .andExpect(jsonPath("$[0].password").doesNotExist());
+    }
 }
@@ -1,6 +1,7 @@
 package org.example.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.BookReservationSummary;
 import org.example.entity.Book;
 import org.example.entity.BookReservation;
 import org.example.entity.User;
@@ -17,18 +18,21 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -59,6 +63,7 @@ public class BookReservationControllerTest {
     private User user;
     private Book book;
     private BookReservation reservation;
+    private BookReservationSummary reservationSummary;
     private LocalDateTime now;
     private LocalDateTime expirationDate;
 
@@ -90,6 +95,18 @@ public class BookReservationControllerTest {
                 .expirationDate(expirationDate)
                 .active(true)
                 .build();
+
+        reservationSummary = BookReservationSummary.builder()
+                .id(1L)
+                .userId(1L)
+                .username("testUser")
+                .bookId(1L)
+                .title("Test Book")
+                .author("Test Author")
+                .reservationDate(now)
+                .expirationDate(expirationDate)
+                .active(true)
+                .build();
     }
 
     @Test
@@ -151,14 +168,14 @@ public class BookReservationControllerTest {
     @Test
     void getReservationsByUser_Success() throws Exception { // sprawdzenie czy pobiera rezerwacje użytkownika
         when(userService.findById(1L)).thenReturn(Optional.of(user));
-        when(bookReservationService.findByUser(user)).thenReturn(Collections.singletonList(reservation));
+        when(bookReservationService.findByUser(user)).thenReturn(Collections.singletonList(reservationSummary));
 
         mockMvc.perform(get("/api/reservations/get_user/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(1)))
-                .andExpect(jsonPath("$[0].user.id", is(1)))
-                .andExpect(jsonPath("$[0].book.id", is(1)));
+                .andExpect(jsonPath("$[0].userId", is(1)))
+                .andExpect(jsonPath("$[0].bookId", is(1)));
 
         verify(userService).findById(1L);
         verify(bookReservationService).findByUser(user);
@@ -180,14 +197,14 @@ public class BookReservationControllerTest {
     @WithMockUser(roles = "ADMIN")
     void getReservationsByBook_Success() throws Exception { // sprawdzenie czy pobiera rezerwacje dla książki
         when(bookService.findById(1L)).thenReturn(Optional.of(book));
-        when(bookReservationService.findByBook(book)).thenReturn(Collections.singletonList(reservation));
+        when(bookReservationService.findByBook(book)).thenReturn(Collections.singletonList(reservationSummary));
 
         mockMvc.perform(get("/api/reservations/get_book/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(1)))
-                .andExpect(jsonPath("$[0].user.id", is(1)))
-                .andExpect(jsonPath("$[0].book.id", is(1)));
+                .andExpect(jsonPath("$[0].userId", is(1)))
+                .andExpect(jsonPath("$[0].bookId", is(1)));
 
         verify(bookService).findById(1L);
         verify(bookReservationService).findByBook(book);
@@ -196,13 +213,13 @@ public class BookReservationControllerTest {
     @Test
     void getActiveReservationsByUser_Success() throws Exception { // sprawdzenie czy pobiera aktywne rezerwacje użytkownika
         when(userService.findById(1L)).thenReturn(Optional.of(user));
-        when(bookReservationService.findActiveReservationsByUser(user)).thenReturn(Collections.singletonList(reservation));
+        when(bookReservationService.findActiveReservationsByUser(user)).thenReturn(Collections.singletonList(reservationSummary));
 
         mockMvc.perform(get("/api/reservations/active_user/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(1)))
-                .andExpect(jsonPath("$[0].user.id", is(1)))
+                .andExpect(jsonPath("$[0].userId", is(1)))
                 .andExpect(jsonPath("$[0].active", is(true)));
 
         verify(userService).findById(1L);
@@ -225,13 +242,13 @@ public class BookReservationControllerTest {
     @WithMockUser(roles = "ADMIN")
     void getActiveReservationsByBook_Success() throws Exception { // sprawdzenie czy pobiera aktywne rezerwacje dla książki
         when(bookService.findById(1L)).thenReturn(Optional.of(book));
-        when(bookReservationService.findActiveReservationsByBook(book)).thenReturn(Collections.singletonList(reservation));
+        when(bookReservationService.findActiveReservationsByBook(book)).thenReturn(Collections.singletonList(reservationSummary));
 
         mockMvc.perform(get("/api/reservations/active_book/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(1)))
-                .andExpect(jsonPath("$[0].book.id", is(1)))
+                .andExpect(jsonPath("$[0].bookId", is(1)))
                 .andExpect(jsonPath("$[0].active", is(true)));
 
         verify(bookService).findById(1L);
@@ -254,7 +271,7 @@ public class BookReservationControllerTest {
     @Test
     @WithMockUser(roles = "ADMIN")
     void getAllReservations() throws Exception { // sprawdzenie czy pobiera wszystkie rezerwacje
-        when(bookReservationService.findAllReservations()).thenReturn(Collections.singletonList(reservation));
+        when(bookReservationService.findAllReservations()).thenReturn(Collections.singletonList(reservationSummary));
 
         mockMvc.perform(get("/api/reservations/all"))
                 .andExpect(status().isOk())
@@ -267,7 +284,7 @@ public class BookReservationControllerTest {
     @Test
     @WithMockUser(roles = "ADMIN")
     void getActiveReservations() throws Exception { // sprawdzenie czy pobiera aktywne rezerwacje
-        when(bookReservationService.findAllReservations()).thenReturn(Collections.singletonList(reservation));
+        when(bookReservationService.findActiveReservations()).thenReturn(Collections.singletonList(reservationSummary));
 
         mockMvc.perform(get("/api/reservations/active"))
                 .andExpect(status().isOk())
@@ -275,13 +292,13 @@ public class BookReservationControllerTest {
                 .andExpect(jsonPath("$[0].id", is(1)))
                 .andExpect(jsonPath("$[0].active", is(true)));
 
-        verify(bookReservationService).findAllReservations();
+        verify(bookReservationService).findActiveReservations();
     }
 
     @Test
     @WithMockUser(roles = "ADMIN")
     void getExpiredReservations() throws Exception { // sprawdzenie czy pobiera wygasłe rezerwacje
-        when(bookReservationService.findExpiredReservations()).thenReturn(Collections.singletonList(reservation));
+        when(bookReservationService.findExpiredReservations()).thenReturn(Collections.singletonList(reservationSummary));
 
         mockMvc.perform(get("/api/reservations/expired"))
                 .andExpect(status().isOk())
@@ -315,10 +332,11 @@ public class BookReservationControllerTest {
     @Test
     @WithMockUser(roles = "ADMIN")
     void processExpiredReservations_Success() throws Exception { // sprawdzenie czy przetwarza wygasłe rezerwacje
-        doNothing().when(bookReservationService).processExpiredReservations();
+        when(bookReservationService.processExpiredReservations()).thenReturn(2);
 
         mockMvc.perform(post("/api/reservations/process_expired"))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.expired", is(2)));
 
         verify(bookReservationService).processExpiredReservations();
     }
@@ -326,7 +344,7 @@ public class BookReservationControllerTest {
     @Test
     @WithMockUser(roles = "ADMIN")
     void processExpiredReservations_Error() throws Exception { // sprawdzenie czy obsługuje błąd podczas przetwarzania wygasłych rezerwacji
-        doThrow(new RuntimeException("Error processing expired reservations")).when(bookReservationService).processExpiredReservations();
+        when(bookReservationService.processExpiredReservations()).thenThrow(new RuntimeException("Error processing expired reservations"));
 
         mockMvc.perform(post("/api/reservations/process_expired"))
                 .andExpect(status().isBadRequest())
@@ -334,4 +352,29 @@ public class BookReservationControllerTest {
 
         verify(bookReservationService).processExpiredReservations();
     }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exportReservations() throws Exception { // sprawdzenie czy strumieniowo eksportuje rezerwacje jako tablicę JSON
+        doAnswer(invocation -> {
+            Consumer<BookReservationSummary> consumer = invocation.getArgument(0);
+            consumer.accept(reservationSummary);
+            consumer.accept(reservationSummary);
+            return null;
+        }).when(bookReservationService).exportAllReservations(any());
+
+        MvcResult result = mockMvc.perform(get("/api/reservations/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", is(1)))
+                .andExpect(jsonPath("$[1].id", is(1)))
+                .andExpect(jsonPath("$[0].username", is("testUser")))
+                .andExpect(jsonPath("$[0].user").doesNotExist())
+                .andExpect(jsonPath("$[0].password").doesNotExist());
+    }
 }
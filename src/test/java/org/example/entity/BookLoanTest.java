@@ -147,7 +147,7 @@ public class BookLoanTest {
 
     @Test
     public void testBookLoanAllArgsConstructor() { // sprawdzenie czy konstruktor z wszystkimi argumentami działa poprawnie
-        BookLoan bookLoan = new BookLoan(1L, user, book, loanDate, dueDate, returnDate, true);
+        BookLoan bookLoan = new BookLoan(1L, user, book, loanDate, dueDate, returnDate, true, true);
 
         assertEquals(1L, bookLoan.getId());
         assertEquals(user, bookLoan.getUser());
@@ -156,5 +156,6 @@ public class BookLoanTest {
         assertEquals(dueDate, bookLoan.getDueDate());
         assertEquals(returnDate, bookLoan.getReturnDate());
         assertTrue(bookLoan.isReturned());
+        assertTrue(bookLoan.isOverdue());
     }
 }
@@ -106,7 +106,7 @@ public class BookTest {
 
     @Test
     public void testBookAllArgsConstructor() { // sprawdzenie czy konstruktor z wszystkimi argumentami działa poprawnie
-        Book book = new Book(1L, "Test Book", "Test Author", "Test Description", 10, 5);
+        Book book = new Book(1L, "Test Book", "Test Author", "Test Description", 10, 5, 0L);
 
         assertEquals(1L, book.getId());
         assertEquals("Test Book", book.getTitle());
@@ -114,5 +114,6 @@ public class BookTest {
         assertEquals("Test Description", book.getDescription());
         assertEquals(10, book.getQuantity());
         assertEquals(5, book.getAvailableQuantity());
+        assertEquals(0L, book.getVersion());
     }
 }
@@ -0,0 +1,50 @@
+package org.example.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SweeperStateTest {
+
+    private final LocalDateTime highWaterMark = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private final LocalDateTime lastRunAt = LocalDateTime.of(2024, 1, 1, 12, 5);
+
+    @Test
+    public void testSweeperStateBuilder() { // sprawdzenie czy builder poprawnie tworzy obiekt SweeperState
+        SweeperState state = SweeperState.builder()
+                .name("loans")
+                .highWaterMark(highWaterMark)
+                .lastRunAt(lastRunAt)
+                .build();
+
+        assertEquals("loans", state.getName());
+        assertEquals(highWaterMark, state.getHighWaterMark());
+        assertEquals(lastRunAt, state.getLastRunAt());
+    }
+
+    @Test
+    public void testSweeperStateGettersAndSetters() { // sprawdzenie czy gettery i settery działają poprawnie
+        SweeperState state = new SweeperState();
+        state.setName("reservations");
+        state.setHighWaterMark(highWaterMark);
+        state.setLastRunAt(lastRunAt);
+
+        assertEquals("reservations", state.getName());
+        assertEquals(highWaterMark, state.getHighWaterMark());
+        assertEquals(lastRunAt, state.getLastRunAt());
+    }
+
+    @Test
+    public void testSweeperStateEqualsAndHashCode() { // sprawdzenie czy metody equals i hashCode działają poprawnie
+        SweeperState state1 = new SweeperState("loans", highWaterMark, lastRunAt);
+        SweeperState state2 = new SweeperState("loans", highWaterMark, lastRunAt);
+        SweeperState state3 = new SweeperState("reservations", highWaterMark, null);
+
+        assertEquals(state1, state2);
+        assertEquals(state1.hashCode(), state2.hashCode());
+        assertNotEquals(state1, state3);
+        assertTrue(state1.toString().contains("name=loans"));
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.event;
+
+import org.example.dto.BookSnapshot;
+import org.example.entity.Book;
+import org.example.repository.BookRepository;
+import org.example.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class BookCacheInvalidatorTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockBean
+    private BookRepository bookRepository;
+
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        book = Book.builder()
+                .id(1L)
+                .title("Test Book")
+                .author("Test Author")
+                .quantity(5)
+                .availableQuantity(3)
+                .build();
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+    }
+
+    @Test
+    void repeatedLookupsAreServedFromCache() { // sprawdzenie czy kolejne odczyty książki trafiają do pamięci podręcznej
+        bookService.findSnapshotById(1L);
+        bookService.findSnapshotById(1L);
+        bookService.getAvailableQuantity(1L);
+        bookService.getAvailableQuantity(1L);
+        bookService.isBookAvailable(1L);
+        bookService.isBookAvailable(1L);
+
+        verify(bookRepository, times(3)).findById(1L);
+    }
+
+    @Test
+    void bookChangedEventEvictsCachedEntries() { // sprawdzenie czy zdarzenie zmiany książki unieważnia wpisy w pamięci podręcznej
+        assertEquals(3, bookService.getAvailableQuantity(1L));
+
+        book.setAvailableQuantity(0);
+        eventPublisher.publishEvent(BookChangedEvent.of(List.of(1L)));
+
+        assertEquals(0, bookService.getAvailableQuantity(1L));
+        assertFalse(bookService.isBookAvailable(1L));
+        verify(bookRepository, times(3)).findById(1L);
+    }
+
+    @Test
+    void eventsForOtherBooksKeepEntries() { // sprawdzenie czy zdarzenie innej książki nie usuwa wpisów
+        bookService.findSnapshotById(1L);
+
+        eventPublisher.publishEvent(BookChangedEvent.of(2L));
+        bookService.findSnapshotById(1L);
+
+        verify(bookRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void cachedSnapshotIsNotSharedWithEntity() { // sprawdzenie czy zmiana encji nie zmienia wpisu w pamięci podręcznej
+        BookSnapshot cached = bookService.findSnapshotById(1L).orElseThrow();
+
+        book.setAvailableQuantity(0);
+
+        assertEquals(3, cached.getAvailableQuantity());
+        assertEquals(3, bookService.findSnapshotById(1L).orElseThrow().getAvailableQuantity());
+    }
+
+    @Test
+    void evictionDuringLoadDropsStaleValue() throws Exception { // sprawdzenie czy unieważnienie w trakcie odczytu nie zostawia nieaktualnego wpisu
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Book stale = Book.builder()
+                .id(1L)
+                .title("Test Book")
+                .author("Test Author")
+                .quantity(5)
+                .availableQuantity(3)
+                .build();
+        when(bookRepository.findById(1L))
+                .thenAnswer(invocation -> {
+                    loading.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return Optional.of(stale);
+                })
+                .thenReturn(Optional.of(book));
+
+        CompletableFuture<Optional<BookSnapshot>> reader = CompletableFuture.supplyAsync(() -> bookService.findSnapshotById(1L));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        book.setAvailableQuantity(0);
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> eventPublisher.publishEvent(BookChangedEvent.of(1L)));
+        Thread.sleep(200);
+        release.countDown();
+
+        assertEquals(3, reader.get(5, TimeUnit.SECONDS).orElseThrow().getAvailableQuantity());
+        writer.get(5, TimeUnit.SECONDS);
+        assertEquals(0, bookService.findSnapshotById(1L).orElseThrow().getAvailableQuantity());
+    }
+}
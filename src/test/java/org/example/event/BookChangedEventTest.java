@@ -0,0 +1,47 @@
+package org.example.event;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookChangedEventTest {
+
+    @Test
+    public void testSingleBookEvent() { // sprawdzenie czy zdarzenie dla jednej książki zawiera jej identyfikator
+        BookChangedEvent event = BookChangedEvent.of(1L);
+
+        assertEquals(Set.of(1L), event.getBookIds());
+        assertEquals(BookChangedEvent.Change.DETAILS, event.getChange());
+    }
+
+    @Test
+    public void testMultipleBooksEventDeduplicatesIds() { // sprawdzenie czy zdarzenie dla wielu książek usuwa powtórzenia
+        BookChangedEvent event = BookChangedEvent.of(List.of(1L, 2L, 1L));
+
+        assertEquals(Set.of(1L, 2L), event.getBookIds());
+    }
+
+    @Test
+    public void testEqualsAndHashCode() { // sprawdzenie czy metody equals, hashCode i toString działają poprawnie
+        BookChangedEvent event1 = BookChangedEvent.of(List.of(1L, 2L));
+        BookChangedEvent event2 = new BookChangedEvent(Set.of(2L, 1L), BookChangedEvent.Change.DETAILS);
+        BookChangedEvent event3 = BookChangedEvent.of(3L);
+
+        assertEquals(event1, event2);
+        assertEquals(event1.hashCode(), event2.hashCode());
+        assertNotEquals(event1, event3);
+        assertTrue(event3.toString().contains("bookIds=[3]"));
+    }
+
+    @Test
+    public void testStockEventsAreDistinguishedFromDetails() { // sprawdzenie czy zdarzenia wypożyczenia i zmiany stanu różnią się od zmiany danych książki
+        assertEquals(BookChangedEvent.Change.LOANED, BookChangedEvent.loaned(List.of(1L, 1L)).getChange());
+        assertEquals(Set.of(1L), BookChangedEvent.loaned(List.of(1L, 1L)).getBookIds());
+        assertEquals(BookChangedEvent.Change.STOCK, BookChangedEvent.stock(1L).getChange());
+        assertNotEquals(BookChangedEvent.of(1L), BookChangedEvent.stock(1L));
+        assertNotEquals(BookChangedEvent.loaned(1L), BookChangedEvent.stock(1L));
+    }
+}
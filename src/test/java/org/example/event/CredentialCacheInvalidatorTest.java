@@ -0,0 +1,92 @@
+package org.example.event;
+
+import org.example.entity.User;
+import org.example.repository.UserRepository;
+import org.example.service.UserDetailsService;
+import org.example.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:credentials")
+@AutoConfigureMockMvc
+public class CredentialCacheInvalidatorTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @SpyBean
+    private UserDetailsService userDetailsService;
+
+    private User reader;
+
+    @BeforeEach
+    void setUp() {
+        reader = userRepository.save(User.builder()
+                .username("cached-reader")
+                .password(passwordEncoder.encode("secret"))
+                .email("cached-reader@example.com")
+                .role(User.Role.USER)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void repeatedRequestsSkipUserLookup() throws Exception { // sprawdzenie czy kolejne żądania nie pobierają ponownie użytkownika
+        me("secret", status().isOk());
+        me("secret", status().isOk());
+        me("secret", status().isOk());
+
+        verify(userDetailsService, times(1)).loadUserByUsername("cached-reader");
+    }
+
+    @Test
+    void passwordChangeInvalidatesCachedCredentials() throws Exception { // sprawdzenie czy zmiana hasła unieważnia zapamiętane dane logowania
+        me("secret", status().isOk());
+
+        reader.setPassword("changed");
+        userService.updateUser(reader);
+
+        me("secret", status().isUnauthorized());
+        me("changed", status().isOk());
+    }
+
+    @Test
+    void deletionInvalidatesCachedCredentials() throws Exception { // sprawdzenie czy usunięcie użytkownika unieważnia zapamiętane dane logowania
+        me("secret", status().isOk());
+
+        userService.deleteUser(reader.getId());
+
+        me("secret", status().isUnauthorized());
+    }
+
+    private void me(String password, ResultMatcher expected) throws Exception {
+        mockMvc.perform(get("/api/auth/me").with(httpBasic("cached-reader", password)))
+                .andExpect(expected);
+    }
+}
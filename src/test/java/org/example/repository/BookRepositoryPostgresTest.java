@@ -0,0 +1,153 @@
+package org.example.repository;
+
+import org.example.dto.BookSearchHit;
+import org.example.entity.Book;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+        "bookstore.search.index.enabled=false",
+        "bookstore.search.suggest.enabled=false",
+        "bookstore.search.facets.enabled=false"
+})
+public class BookRepositoryPostgresTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driver-class-name", POSTGRES::getDriverClassName);
+    }
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void findSimilarKeepsBestCandidatesWhenMoreRowsMatch() { // sprawdzenie czy przy większej liczbie dopasowań niż limit kandydatów zwracane są najbardziej podobne książki
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            books.add(book("Lalkarnia " + i, "Autor " + i));
+        }
+        for (int i = 0; i < 3; i++) {
+            books.add(book("Lalka", "Prus " + i));
+        }
+        List<Long> exactIds = bookRepository.saveAll(books).stream()
+                .filter(book -> book.getTitle().equals("Lalka"))
+                .map(Book::getId)
+                .sorted()
+                .collect(Collectors.toList());
+
+        List<BookSearchHit> hits = transactionTemplate.execute(status -> {
+            bookRepository.setSimilarityThreshold("0.5");
+            return bookRepository.findSimilar("lalka", 3);
+        });
+
+        assertEquals(exactIds, hits.stream().map(BookSearchHit::getId).collect(Collectors.toList()));
+        assertTrue(hits.stream().allMatch(hit -> hit.getScore() == 1f));
+    }
+
+    @Test
+    void decrementAvailableQuantitiesSkipsUnavailableAndDuplicateIds() { // sprawdzenie czy zbiorcze zmniejszenie stanu pomija niedostępne książki i powtórzone identyfikatory
+        Book available = bookRepository.save(book("Lalka", "Bolesław Prus", 2));
+        Book unavailable = bookRepository.save(book("Faraon", "Bolesław Prus", 0));
+
+        List<Long> decremented = bookRepository.decrementAvailableQuantities(
+                List.of(available.getId(), unavailable.getId(), available.getId(), Long.MAX_VALUE));
+
+        assertEquals(List.of(available.getId()), decremented);
+        Book reloaded = bookRepository.findById(available.getId()).orElseThrow();
+        assertEquals(1, reloaded.getAvailableQuantity());
+        assertEquals(available.getVersion() + 1, reloaded.getVersion());
+        assertEquals(0, bookRepository.findById(unavailable.getId()).orElseThrow().getAvailableQuantity());
+    }
+
+    @Test
+    void concurrentDecrementsLockRowsInIdOrder() throws Exception { // sprawdzenie czy równoległe zmniejszanie stanu tych samych książek w różnej kolejności nie kończy się zakleszczeniem
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(bookRepository.save(book("Tom " + i, "Autor Serii", 100)).getId());
+        }
+        Map<Long, Integer> decrements = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int call = 0; call < 160; call++) {
+                List<Long> shuffled = new ArrayList<>(ids);
+                Collections.shuffle(shuffled);
+                calls.add(executor.submit(() -> bookRepository.decrementAvailableQuantities(shuffled)
+                        .forEach(id -> decrements.merge(id, 1, Integer::sum))));
+            }
+            for (Future<?> call : calls) {
+                call.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (Long id : ids) {
+            assertEquals(100, decrements.get(id));
+            assertEquals(0, bookRepository.findById(id).orElseThrow().getAvailableQuantity());
+        }
+    }
+
+    private static Book book(String title, String author) {
+        return book(title, author, 1);
+    }
+
+    private static Book book(String title, String author, int quantity) {
+        return Book.builder()
+                .title(title)
+                .author(author)
+                .quantity(Math.max(quantity, 1))
+                .availableQuantity(quantity)
+                .build();
+    }
+}
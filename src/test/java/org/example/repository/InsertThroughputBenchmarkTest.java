@@ -0,0 +1,106 @@
+package org.example.repository;
+
+import org.example.entity.Book;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=${bookstore.benchmark.url:jdbc:h2:mem:benchmark}",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@EnabledIfSystemProperty(named = "bookstore.benchmark", matches = "true")
+public class InsertThroughputBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("bookstore.benchmark.rows", 20_000);
+    private static final int CHUNK = 1_000;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void insertThroughput() { // porównanie przepustowości wstawiania bez batchowania (jak przy IDENTITY) i z batchowaniem
+        insertWithSequence(1, CHUNK);
+        insertWithSequence(null, CHUNK);
+        bookRepository.deleteAllInBatch();
+
+        Result unbatched = insertWithSequence(1, ROWS);
+        Result batched = insertWithSequence(null, ROWS);
+
+        System.out.println("unbatched (as with IDENTITY): " + unbatched);
+        System.out.println("batched pooled sequence:      " + batched);
+
+        assertTrue(batched.statements < unbatched.statements);
+    }
+
+    private Result insertWithSequence(Integer jdbcBatchSize, int rows) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long start = System.nanoTime();
+        for (int offset = 0; offset < rows; offset += CHUNK) {
+            int chunk = Math.min(CHUNK, rows - offset);
+            transaction.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+                for (int i = 0; i < chunk; i++) {
+                    entityManager.persist(Book.builder()
+                            .title("Benchmark")
+                            .author("Sequence")
+                            .quantity(5)
+                            .availableQuantity(5)
+                            .build());
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+        return new Result(rows, statistics.getPrepareStatementCount(), System.nanoTime() - start);
+    }
+
+    private static final class Result {
+        private final int rows;
+        private final long statements;
+        private final long nanos;
+
+        private Result(int rows, long statements, long nanos) {
+            this.rows = rows;
+            this.statements = statements;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = nanos / 1_000_000_000.0;
+            return String.format("%d rows, %d statements, %.0f ms, %.0f rows/s",
+                    rows, statements, seconds * 1000, rows / seconds);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.repository;
+
+import org.example.dto.BookLoanSummary;
+import org.example.dto.BookReservationSummary;
+import org.example.entity.Book;
+import org.example.entity.BookLoan;
+import org.example.entity.BookReservation;
+import org.example.entity.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:projections",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class ListProjectionTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+
+    @Autowired
+    private BookReservationRepository bookReservationRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .username("reader")
+                .password("secret-hash")
+                .email("reader@example.com")
+                .role(User.Role.USER)
+                .build());
+        book = bookRepository.save(Book.builder()
+                .title("Projected Title")
+                .author("Projected Author")
+                .description("x".repeat(1000))
+                .quantity(5)
+                .availableQuantity(5)
+                .build());
+        bookLoanRepository.save(BookLoan.builder()
+                .user(user)
+                .book(book)
+                .loanDate(LocalDateTime.now().minusDays(20))
+                .dueDate(LocalDateTime.now().minusDays(6))
+                .build());
+        bookReservationRepository.save(BookReservation.builder()
+                .user(user)
+                .book(book)
+                .reservationDate(LocalDateTime.now())
+                .expirationDate(LocalDateTime.now().plusDays(3))
+                .active(true)
+                .build());
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookReservationRepository.deleteAll();
+        bookLoanRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void loanSummariesAreReadInSingleStatementWithoutEntities() { // sprawdzenie czy lista wypożyczeń jest pobierana jednym zapytaniem bez ładowania encji
+        List<BookLoanSummary> summaries = singleStatement(() -> bookLoanRepository.findSummariesByUserAndReturned(user, false));
+
+        assertEquals(1, summaries.size());
+        BookLoanSummary summary = summaries.get(0);
+        assertEquals(user.getId(), summary.getUserId());
+        assertEquals("reader", summary.getUsername());
+        assertEquals(book.getId(), summary.getBookId());
+        assertEquals("Projected Title", summary.getTitle());
+        assertEquals("Projected Author", summary.getAuthor());
+        assertFalse(summary.isReturned());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void overdueLoanSummariesAreFilteredByDueDate() { // sprawdzenie czy przeterminowane wypożyczenia są filtrowane po terminie zwrotu
+        assertEquals(1, bookLoanRepository.findOverdueLoans(LocalDateTime.now()).size());
+        assertEquals(0, bookLoanRepository.findOverdueLoans(LocalDateTime.now().minusDays(7)).size());
+        assertEquals(1, bookLoanRepository.findSummariesByReturned(false).size());
+        assertEquals(1, bookLoanRepository.findAllSummaries().size());
+    }
+
+    @Test
+    void reservationSummariesAreReadInSingleStatementWithoutEntities() { // sprawdzenie czy lista rezerwacji jest pobierana jednym zapytaniem bez ładowania encji
+        List<BookReservationSummary> summaries = singleStatement(() -> bookReservationRepository.findSummariesByBookAndActive(book, true));
+
+        assertEquals(1, summaries.size());
+        BookReservationSummary summary = summaries.get(0);
+        assertEquals(user.getId(), summary.getUserId());
+        assertEquals("reader", summary.getUsername());
+        assertEquals("Projected Title", summary.getTitle());
+        assertTrue(summary.isActive());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, bookReservationRepository.findSummariesByActive(true).size());
+        assertEquals(0, bookReservationRepository.findExpiredReservations(LocalDateTime.now()).size());
+    }
+
+    @Test
+    void findByIdFetchesAssociationsInSingleStatement() { // sprawdzenie czy pobranie wypożyczenia po id ładuje powiązania jednym zapytaniem
+        Long loanId = bookLoanRepository.findAllSummaries().get(0).getId();
+        statistics.clear();
+
+        BookLoan loan = singleStatement(() -> bookLoanRepository.findById(loanId).orElseThrow());
+
+        assertEquals("reader", loan.getUser().getUsername());
+        assertEquals("Projected Title", loan.getBook().getTitle());
+    }
+
+    private <T> T singleStatement(Supplier<T> query) {
+        long before = statistics.getPrepareStatementCount();
+        T result = query.get();
+        assertEquals(1, statistics.getPrepareStatementCount() - before);
+        return result;
+    }
+}
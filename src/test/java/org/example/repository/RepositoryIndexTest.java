@@ -0,0 +1,249 @@
+package org.example.repository;
+
+import org.example.entity.Book;
+import org.example.entity.User;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect"
+})
+public class RepositoryIndexTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private static final ThreadLocal<List<CapturedStatement>> CAPTURED = new ThreadLocal<>();
+
+    private static Connection connection;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+
+    @Autowired
+    private BookReservationRepository bookReservationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driver-class-name", POSTGRES::getDriverClassName);
+    }
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        connection = DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO users (id, username, password, email, role) " +
+                    "SELECT 1000 + n, 'user' || n, 'x', 'user' || n || '@example.com', 'USER' FROM generate_series(1, 5000) n");
+            statement.execute("INSERT INTO books (id, title, author, description, quantity, available_quantity) " +
+                    "SELECT 1000 + n, 'Title ' || n, 'Author ' || n % 5000, 'Description ' || n, 3, " +
+                    "CASE WHEN n % 10 = 0 THEN 0 ELSE 3 END FROM generate_series(1, 50000) n");
+            statement.execute("INSERT INTO book_loans (id, user_id, book_id, loan_date, due_date, return_date, returned) " +
+                    "SELECT 1000 + n, 1001 + (n / 50) % 5000, 1001 + n % 50000, now() - interval '30 days', " +
+                    "now() + ((n / 50) % 30 - 3) * interval '1 day', " +
+                    "CASE WHEN n % 50 = 0 THEN NULL ELSE now() END, n % 50 <> 0 FROM generate_series(1, 200000) n");
+            statement.execute("INSERT INTO book_reservations (id, user_id, book_id, reservation_date, expiration_date, active) " +
+                    "SELECT 1000 + n, 1001 + (n / 20) % 5000, 1001 + n % 50000, now() - interval '1 day', " +
+                    "now() + ((n / 20) % 7 - 1) * interval '1 day', n % 20 = 0 FROM generate_series(1, 100000) n");
+            statement.execute("VACUUM ANALYZE");
+        }
+    }
+
+    @AfterAll
+    static void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    static Stream<Arguments> repositoryQueries() {
+        return Stream.of(
+                query("BookRepository.findByTitle", "books", test -> test.bookRepository.findByTitle("Title 42")),
+                query("BookRepository.findByAuthor", "books", test -> test.bookRepository.findByAuthor("Author 42")),
+                query("BookRepository.countOutOfStock", "books", test -> test.bookRepository.countOutOfStock()),
+                query("BookLoanRepository.findSummariesByUserAndReturned", "book_loans",
+                        test -> test.bookLoanRepository.findSummariesByUserAndReturned(test.user(), false)),
+                query("BookLoanRepository.findSummariesByBookAndReturned", "book_loans",
+                        test -> test.bookLoanRepository.findSummariesByBookAndReturned(test.book(), false)),
+                query("BookLoanRepository.existsByUserAndBookAndReturnedFalse", "book_loans",
+                        test -> test.bookLoanRepository.existsByUserAndBookAndReturnedFalse(test.user(), test.book())),
+                query("BookLoanRepository.findActiveLoanBookIds", "book_loans",
+                        test -> test.bookLoanRepository.findActiveLoanBookIds(test.user(), List.of(1050L, 2050L))),
+                query("BookLoanRepository.findOverdueLoans", "book_loans",
+                        test -> test.bookLoanRepository.findOverdueLoans(LocalDateTime.now())),
+                query("BookLoanRepository.countActiveLoans", "book_loans", test -> test.bookLoanRepository.countActiveLoans(test.book())),
+                query("BookLoanRepository.countByReturnedFalse", "book_loans", test -> test.bookLoanRepository.countByReturnedFalse()),
+                query("BookLoanRepository.countByOverdueTrue", "book_loans", test -> test.bookLoanRepository.countByOverdueTrue()),
+                query("BookReservationRepository.findByUserAndActive", "book_reservations",
+                        test -> test.bookReservationRepository.findByUserAndActive(test.user(), true)),
+                query("BookReservationRepository.findByBookIdInAndActiveTrue", "book_reservations",
+                        test -> test.bookReservationRepository.findByBookIdInAndActiveTrue(List.of(1020L, 1040L))),
+                query("BookReservationRepository.findSummariesByBookAndActive", "book_reservations",
+                        test -> test.bookReservationRepository.findSummariesByBookAndActive(test.book(), true)),
+                query("BookReservationRepository.existsByUserAndBookAndActiveTrue", "book_reservations",
+                        test -> test.bookReservationRepository.existsByUserAndBookAndActiveTrue(test.user(), test.book())),
+                query("BookReservationRepository.countActiveReservationsByBook", "book_reservations",
+                        test -> test.bookReservationRepository.countActiveReservationsByBook(test.book())),
+                query("BookReservationRepository.countByActiveTrue", "book_reservations", test -> test.bookReservationRepository.countByActiveTrue()),
+                query("BookReservationRepository.findReservedBookIds", "book_reservations",
+                        test -> test.bookReservationRepository.findReservedBookIds(List.of(1020L, 1040L)))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositoryQueries")
+    void queryIsIndexBacked(String repositoryMethod, String table, Consumer<RepositoryIndexTest> invocation) throws SQLException { // sprawdzenie czy zapytanie wygenerowane przez Hibernate korzysta z indeksu przy domyślnych ustawieniach planera
+        List<CapturedStatement> statements = new ArrayList<>();
+        CAPTURED.set(statements);
+        try {
+            invocation.accept(this);
+        } finally {
+            CAPTURED.remove();
+        }
+
+        assertEquals(1, statements.size(), repositoryMethod + " executed " + statements);
+        String plan = explain(statements.get(0));
+
+        assertFalse(plan.contains("Seq Scan on " + table + " "), repositoryMethod + " scans " + table + " sequentially:\n" + plan);
+        assertTrue(plan.contains("Index"), repositoryMethod + " does not use an index:\n" + plan);
+    }
+
+    private User user() {
+        return userRepository.getReferenceById(1050L);
+    }
+
+    private Book book() {
+        return bookRepository.getReferenceById(1050L);
+    }
+
+    private static Arguments query(String repositoryMethod, String table, Consumer<RepositoryIndexTest> invocation) {
+        return Arguments.of(repositoryMethod, table, invocation);
+    }
+
+    private static String explain(CapturedStatement captured) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + captured.sql)) {
+            for (Map.Entry<Integer, Object> parameter : captured.parameters.entrySet()) {
+                statement.setObject(parameter.getKey(), parameter.getValue());
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+            }
+        }
+        return plan.toString();
+    }
+
+    private static <T> T capturing(Class<T> type, Object target, CapturedStatement statement) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (statement == null && method.getName().equals("prepareStatement")) {
+                Object prepared = invoke(method, target, args);
+                return capturing(PreparedStatement.class, prepared, new CapturedStatement((String) args[0]));
+            }
+            if (statement != null && method.getName().startsWith("set") && args != null && args.length >= 2
+                    && args[0] instanceof Integer) {
+                statement.parameters.put((Integer) args[0], method.getName().equals("setNull") ? null : args[1]);
+            }
+            if (statement != null && method.getName().startsWith("execute")) {
+                List<CapturedStatement> statements = CAPTURED.get();
+                if (statements != null) {
+                    statements.add(statement);
+                }
+            }
+            return invoke(method, target, args);
+        }));
+    }
+
+    private static Object invoke(java.lang.reflect.Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class CapturedStatement {
+
+        private final String sql;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+
+        private CapturedStatement(String sql) {
+            this.sql = sql;
+        }
+
+        @Override
+        public String toString() {
+            return sql;
+        }
+    }
+
+    @TestConfiguration
+    static class StatementCaptureConfig {
+
+        @Bean
+        static BeanPostProcessor capturingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource)) {
+                        return bean;
+                    }
+                    return Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                        Object result = invoke(method, bean, args);
+                        return result instanceof Connection ? capturing(Connection.class, result, null) : result;
+                    });
+                }
+            };
+        }
+    }
+}
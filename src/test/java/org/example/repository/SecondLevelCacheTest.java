@@ -0,0 +1,189 @@
+package org.example.repository;
+
+import org.example.entity.Book;
+import org.example.entity.BookLoan;
+import org.example.entity.User;
+import org.example.service.BookLoanService;
+import org.example.service.BookService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:l2cache",
+        "spring.jpa.show-sql=false",
+        "bookstore.l2cache.enabled=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "bookstore.search.facets.enabled=false"
+})
+public class SecondLevelCacheTest {
+
+    private static final int USERS = 3;
+    private static final int BOOKS = 4;
+    private static final int LOANS = 12;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+
+    @Autowired
+    private BookLoanService bookLoanService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(userRepository.save(User.builder()
+                    .username("reader" + i)
+                    .password("password")
+                    .email("reader" + i + "@example.com")
+                    .role(User.Role.USER)
+                    .build()));
+        }
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(bookRepository.save(Book.builder()
+                    .title("Title " + i)
+                    .author(i % 2 == 0 ? "Even Author" : "Odd Author")
+                    .quantity(10)
+                    .availableQuantity(10)
+                    .build()));
+        }
+        for (int i = 0; i < LOANS; i++) {
+            bookLoanRepository.save(BookLoan.builder()
+                    .user(users.get(i % USERS))
+                    .book(books.get(i % BOOKS))
+                    .loanDate(LocalDateTime.now())
+                    .dueDate(LocalDateTime.now().plusDays(14))
+                    .build());
+        }
+
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookLoanRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void loanListingHitsSecondLevelCacheWhenWarm() { // sprawdzenie czy listowanie wypożyczeń wykonuje mniej zapytań SQL przy rozgrzanej pamięci podręcznej
+        long coldStatements = statementsFor(this::loadLoansWithAssociations);
+        long warmStatements = statementsFor(this::loadLoansWithAssociations);
+
+        assertEquals(1 + USERS + BOOKS, coldStatements);
+        assertEquals(1, warmStatements);
+        assertEquals(USERS + BOOKS, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void authorQueryIsServedFromQueryCache() { // sprawdzenie czy wyszukiwanie po autorze korzysta z pamięci podręcznej zapytań
+        long coldStatements = statementsFor(() -> assertEquals(2, bookRepository.findByAuthor("Even Author").size()));
+        long warmStatements = statementsFor(() -> assertEquals(2, bookRepository.findByAuthor("Even Author").size()));
+
+        assertEquals(1, coldStatements);
+        assertEquals(0, warmStatements);
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    void checkoutsEvictOnlyTheChangedBook() { // sprawdzenie czy wypożyczenia i zwroty usuwają z pamięci podręcznej tylko zmienioną książkę
+        loadLoansWithAssociations();
+        assertEquals(2, bookRepository.findByAuthor("Even Author").size());
+        BookLoan loan = bookLoanRepository.findAll().get(0);
+        Long userId = loan.getUser().getId();
+        Long bookId = loan.getBook().getId();
+        Long loanId = loan.getId();
+        for (int i = 0; i < 3; i++) {
+            bookLoanService.returnBook(loanId);
+            loanId = bookLoanService.createLoan(userId, bookId, LocalDateTime.now().plusDays(14)).getId();
+        }
+        statistics.clear();
+
+        long warmStatements = statementsFor(this::loadLoansWithAssociations);
+        long authorStatements = statementsFor(() -> assertEquals(2, bookRepository.findByAuthor("Even Author").size()));
+
+        assertEquals(2, warmStatements);
+        assertEquals(0, authorStatements);
+        assertEquals(USERS + BOOKS - 1 + 2, statistics.getSecondLevelCacheHitCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(9, bookRepository.findById(bookId).orElseThrow().getAvailableQuantity());
+    }
+
+    @Test
+    void availabilityReadDuringCheckoutIsFreshAfterCommit() { // sprawdzenie czy odczyt dostępności w trakcie wypożyczenia nie zostawia nieaktualnej wartości po zatwierdzeniu
+        Long userId = userRepository.save(User.builder()
+                .username("borrower")
+                .password("password")
+                .email("borrower@example.com")
+                .role(User.Role.USER)
+                .build()).getId();
+        Long bookId = bookRepository.findAll().get(0).getId();
+        assertEquals(10, bookRepository.findById(bookId).orElseThrow().getAvailableQuantity());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bookLoanService.createLoan(userId, bookId, LocalDateTime.now().plusDays(14));
+            long puts = statistics.getSecondLevelCachePutCount();
+            int concurrent = CompletableFuture.supplyAsync(() -> bookService.getAvailableQuantity(bookId))
+                    .orTimeout(5, TimeUnit.SECONDS)
+                    .join();
+            assertEquals(10, concurrent);
+            assertEquals(puts, statistics.getSecondLevelCachePutCount());
+        });
+
+        assertEquals(9, bookService.getAvailableQuantity(bookId));
+        assertEquals(9, bookRepository.findById(bookId).orElseThrow().getAvailableQuantity());
+    }
+
+    private void loadLoansWithAssociations() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<BookLoan> loans = bookLoanRepository.findAll();
+            assertEquals(LOANS, loans.stream().filter(loan -> !loan.isReturned()).count());
+            loans.forEach(loan -> {
+                assertNotNull(loan.getUser().getUsername());
+                assertNotNull(loan.getBook().getTitle());
+            });
+        });
+    }
+
+    private long statementsFor(Runnable workload) {
+        long before = statistics.getPrepareStatementCount();
+        workload.run();
+        return statistics.getPrepareStatementCount() - before;
+    }
+}
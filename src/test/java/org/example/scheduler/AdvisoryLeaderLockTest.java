@@ -0,0 +1,102 @@
+package org.example.scheduler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AdvisoryLeaderLockTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement lockStatement;
+
+    @Mock
+    private PreparedStatement unlockStatement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    @Mock
+    private Runnable task;
+
+    @InjectMocks
+    private AdvisoryLeaderLock leaderLock;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("SELECT pg_try_advisory_lock(?)")).thenReturn(lockStatement);
+    }
+
+    private void lockResult(boolean acquired) throws SQLException {
+        when(lockStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getBoolean(1)).thenReturn(acquired);
+    }
+
+    @Test
+    void runIfLeader_LockAcquired() throws SQLException { // sprawdzenie czy lider wykonuje zadanie i zwalnia blokadę
+        lockResult(true);
+        when(connection.prepareStatement("SELECT pg_advisory_unlock(?)")).thenReturn(unlockStatement);
+
+        boolean result = leaderLock.runIfLeader(42L, task);
+
+        assertTrue(result);
+        verify(task).run();
+        verify(lockStatement).setLong(1, 42L);
+        verify(unlockStatement).setLong(1, 42L);
+        verify(unlockStatement).execute();
+        verify(connection).close();
+    }
+
+    @Test
+    void runIfLeader_LockHeldElsewhere() throws SQLException { // sprawdzenie czy pomija zadanie gdy blokadę trzyma inna replika
+        lockResult(false);
+
+        boolean result = leaderLock.runIfLeader(42L, task);
+
+        assertFalse(result);
+        verify(task, never()).run();
+        verify(connection, never()).prepareStatement("SELECT pg_advisory_unlock(?)");
+        verify(connection).close();
+    }
+
+    @Test
+    void runIfLeader_ReleasesLockWhenTaskFails() throws SQLException { // sprawdzenie czy zwalnia blokadę gdy zadanie rzuci wyjątek
+        lockResult(true);
+        when(connection.prepareStatement("SELECT pg_advisory_unlock(?)")).thenReturn(unlockStatement);
+        doThrow(new IllegalStateException("sweep failed")).when(task).run();
+
+        assertThrows(IllegalStateException.class, () -> leaderLock.runIfLeader(42L, task));
+
+        verify(unlockStatement).execute();
+    }
+
+    @Test
+    void runIfLeader_ConnectionFailure() throws SQLException { // sprawdzenie czy zgłasza błąd połączenia z bazą
+        when(lockStatement.executeQuery()).thenThrow(new SQLException("connection lost"));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> leaderLock.runIfLeader(42L, task));
+
+        assertEquals("Could not acquire leader lock 42", exception.getMessage());
+        verify(task, never()).run();
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.scheduler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.entity.SweeperState;
+import org.example.repository.SweeperStateRepository;
+import org.example.service.BookLoanService;
+import org.example.service.BookReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExpirySweeperTest {
+
+    @Mock
+    private AdvisoryLeaderLock leaderLock;
+
+    @Mock
+    private SweeperStateRepository sweeperStateRepository;
+
+    @Mock
+    private BookReservationService bookReservationService;
+
+    @Mock
+    private BookLoanService bookLoanService;
+
+    private MeterRegistry meterRegistry;
+    private ExpirySweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sweeper = new ExpirySweeper(leaderLock, sweeperStateRepository, bookReservationService, bookLoanService,
+                meterRegistry, 7L);
+    }
+
+    private void actAsLeader() {
+        when(leaderLock.runIfLeader(eq(7L), any(Runnable.class))).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return true;
+        });
+    }
+
+    @Test
+    void sweep_FirstRun() { // sprawdzenie czy pierwsze przejście obejmuje wszystkie zaległe wiersze i zapisuje znacznik postępu
+        actAsLeader();
+        when(sweeperStateRepository.findById(any())).thenReturn(Optional.empty());
+        when(bookReservationService.processExpiredReservations(any())).thenReturn(3);
+        when(bookLoanService.flagOverdueLoans(any())).thenReturn(2);
+
+        sweeper.sweep();
+
+        ArgumentCaptor<SweeperState> saved = ArgumentCaptor.forClass(SweeperState.class);
+        verify(sweeperStateRepository, times(2)).save(saved.capture());
+        assertEquals(ExpirySweeper.RESERVATIONS, saved.getAllValues().get(0).getName());
+        assertEquals(ExpirySweeper.LOANS, saved.getAllValues().get(1).getName());
+        assertNotNull(saved.getAllValues().get(0).getLastRunAt());
+        assertEquals(saved.getAllValues().get(0).getLastRunAt(), saved.getAllValues().get(0).getHighWaterMark());
+
+        assertEquals(3.0, meterRegistry.counter("bookstore.sweeper.rows", "job", "reservations").count());
+        assertEquals(2.0, meterRegistry.counter("bookstore.sweeper.rows", "job", "loans").count());
+        assertEquals(1L, meterRegistry.timer("bookstore.sweeper.duration", "job", "loans", "outcome", "success").count());
+        assertTrue(meterRegistry.get("bookstore.sweeper.lag").tag("job", "loans").gauge().value() < 60.0);
+    }
+
+    @Test
+    void sweep_IgnoresHighWaterMarkWhenSelectingRows() { // sprawdzenie czy znacznik postępu nie zawęża przejścia, więc zaległe wiersze nie są pomijane
+        actAsLeader();
+        LocalDateTime highWaterMark = LocalDateTime.now().plusHours(1);
+        when(sweeperStateRepository.findById(ExpirySweeper.RESERVATIONS))
+                .thenReturn(Optional.of(SweeperState.builder().name(ExpirySweeper.RESERVATIONS).highWaterMark(highWaterMark).build()));
+        when(sweeperStateRepository.findById(ExpirySweeper.LOANS))
+                .thenReturn(Optional.of(SweeperState.builder().name(ExpirySweeper.LOANS).highWaterMark(highWaterMark).build()));
+
+        sweeper.sweep();
+
+        ArgumentCaptor<LocalDateTime> until = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(bookReservationService).processExpiredReservations(until.capture());
+        verify(bookLoanService).flagOverdueLoans(any());
+        assertTrue(until.getValue().isBefore(highWaterMark));
+        assertTrue(meterRegistry.get("bookstore.sweeper.lag").tag("job", "reservations").gauge().value() < 60.0);
+    }
+
+    @Test
+    void sweep_NotLeader() { // sprawdzenie czy replika bez blokady lidera pomija przejście
+        when(leaderLock.runIfLeader(anyLong(), any(Runnable.class))).thenReturn(false);
+
+        sweeper.sweep();
+
+        verifyNoInteractions(bookReservationService, bookLoanService, sweeperStateRepository);
+        assertEquals(1.0, meterRegistry.counter("bookstore.sweeper.skipped").count());
+        assertTrue(Double.isNaN(meterRegistry.get("bookstore.sweeper.lag").tag("job", "reservations").gauge().value()));
+    }
+
+    @Test
+    void sweep_JobFailureDoesNotStopOtherJobs() { // sprawdzenie czy błąd jednego zadania nie blokuje pozostałych ani znacznika
+        actAsLeader();
+        when(sweeperStateRepository.findById(any())).thenReturn(Optional.empty());
+        when(bookReservationService.processExpiredReservations(any())).thenThrow(new IllegalStateException("db down"));
+        when(bookLoanService.flagOverdueLoans(any())).thenReturn(1);
+
+        sweeper.sweep();
+
+        ArgumentCaptor<SweeperState> saved = ArgumentCaptor.forClass(SweeperState.class);
+        verify(sweeperStateRepository).save(saved.capture());
+        assertEquals(ExpirySweeper.LOANS, saved.getValue().getName());
+        assertEquals(1L, meterRegistry.timer("bookstore.sweeper.duration", "job", "reservations", "outcome", "failure").count());
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.search;
+
+import org.example.dto.BookFacetCount;
+import org.example.dto.BookFacetEntry;
+import org.example.dto.BookFacets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.example.search.BookFacetIndex.Availability.AVAILABLE;
+import static org.example.search.BookFacetIndex.Availability.LOANED_OUT;
+import static org.example.search.BookFacetIndex.Availability.RESERVED_OUT;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookFacetIndexTest {
+
+    private BookFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookFacetIndex();
+        index.put(entry(1L, "Bolesław Prus", 1, 1), false);
+        index.put(entry(2L, "Bolesław Prus", 3, 0), true);
+        index.put(entry(3L, "Adam Mickiewicz", 12, 0), false);
+        index.put(entry(4L, "Henryk Sienkiewicz", 5, 2), true);
+        index.put(entry(5L, null, 0, 0), false);
+        index.markReady();
+    }
+
+    @Test
+    void countsAllBooksWithoutFilter() { // sprawdzenie czy bez filtra liczone są wszystkie książki
+        BookFacets facets = index.facets(null, null, null, null, 10);
+
+        assertEquals(5, facets.getTotal());
+        assertEquals(List.of("Bolesław Prus=2", "Adam Mickiewicz=1", "Henryk Sienkiewicz=1"), counts(facets.getAuthors()));
+        assertEquals(List.of("AVAILABLE=2", "RESERVED_OUT=1", "LOANED_OUT=2"), counts(facets.getAvailability()));
+        assertEquals(List.of("0=1", "1=1", "2-4=1", "5-9=1", "10+=1"), counts(facets.getQuantity()));
+    }
+
+    @Test
+    void filtersNarrowCounts() { // sprawdzenie czy wynik wyszukiwania i wybrane wartości zawężają liczniki
+        BookFacets byAuthor = index.facets(RoaringBitmap.bitmapOf(1, 2, 3, 99), "Bolesław Prus", null, null, 10);
+        BookFacets loanedOut = index.facets(null, null, LOANED_OUT, null, 10);
+        BookFacets largeAvailable = index.facets(null, null, AVAILABLE, BookFacetIndex.QuantityRange.SEVERAL, 10);
+
+        assertEquals(2, byAuthor.getTotal());
+        assertEquals(List.of("AVAILABLE=1", "RESERVED_OUT=1", "LOANED_OUT=0"), counts(byAuthor.getAvailability()));
+        assertEquals(2, loanedOut.getTotal());
+        assertEquals(List.of("Adam Mickiewicz=1"), counts(loanedOut.getAuthors()));
+        assertEquals(List.of("Henryk Sienkiewicz=1"), counts(largeAvailable.getAuthors()));
+        assertEquals(0, index.facets(null, "Nieznany", null, null, 10).getTotal());
+    }
+
+    @Test
+    void updatesMoveBooksBetweenBuckets() { // sprawdzenie czy zmiany książek i rezerwacji przenoszą je między licznikami
+        index.setReserved(3L, true);
+        index.put(entry(2L, "Nowy Autor", 3, 1), false);
+        index.remove(1L);
+        index.remove(42L);
+
+        BookFacets facets = index.facets(null, null, null, null, 10);
+
+        assertEquals(4, facets.getTotal());
+        assertEquals(List.of("Adam Mickiewicz=1", "Henryk Sienkiewicz=1", "Nowy Autor=1"), counts(facets.getAuthors()));
+        assertEquals(List.of("AVAILABLE=2", "RESERVED_OUT=1", "LOANED_OUT=1"), counts(facets.getAvailability()));
+        assertEquals(List.of("0=1", "1=0", "2-4=1", "5-9=1", "10+=1"), counts(facets.getQuantity()));
+        assertEquals(3, index.authorCount());
+    }
+
+    @Test
+    void authorsAreLimitedToMostFrequent() { // sprawdzenie czy zwracani są autorzy z największą liczbą książek
+        for (long id = 10; id < 130; id++) {
+            index.put(entry(id, "Autor " + id, 1, 1), false);
+        }
+
+        assertEquals(List.of("Bolesław Prus=2", "Adam Mickiewicz=1"), counts(index.facets(null, null, null, null, 2).getAuthors()));
+        assertEquals(List.of("Autor 10=1", "Autor 11=1"),
+                counts(index.facets(RoaringBitmap.bitmapOf(11, 10, 3), null, AVAILABLE, null, 10).getAuthors()));
+        assertEquals(List.of("Autor 10=1", "Autor 100=1"), counts(index.facets(null, null, AVAILABLE, null, 2).getAuthors()));
+        assertEquals(BookFacetIndex.MAX_AUTHORS, index.facets(null, null, null, null, 1000).getAuthors().size());
+    }
+
+    @Test
+    void sparseIdsShareAuthorLists() { // sprawdzenie czy książki o bardzo dużych identyfikatorach są liczone i usuwane razem z pozostałymi
+        index.put(entry((long) Integer.MAX_VALUE, "Bolesław Prus", 2, 2), false);
+        index.put(entry(1_000_000_000L, "Bolesław Prus", 1, 0), true);
+
+        assertEquals(List.of("Bolesław Prus=4", "Adam Mickiewicz=1", "Henryk Sienkiewicz=1"),
+                counts(index.facets(null, null, null, null, 10).getAuthors()));
+        assertEquals(4, index.facets(null, "Bolesław Prus", null, null, 10).getTotal());
+        assertEquals(List.of("Bolesław Prus=1"),
+                counts(index.facets(RoaringBitmap.bitmapOf(Integer.MAX_VALUE), null, AVAILABLE, null, 10).getAuthors()));
+
+        index.remove((long) Integer.MAX_VALUE);
+        index.remove(1L);
+        index.put(entry(6L, "Bolesław Prus", 1, 1), false);
+
+        assertEquals(List.of("Bolesław Prus=3", "Adam Mickiewicz=1", "Henryk Sienkiewicz=1"),
+                counts(index.facets(null, null, null, null, 10).getAuthors()));
+        assertEquals(List.of("RESERVED_OUT=2"), counts(index.facets(null, "Bolesław Prus", RESERVED_OUT, null, 10).getAvailability()
+                .stream().filter(count -> count.getCount() > 0).collect(Collectors.toList())));
+        assertEquals(6, index.size());
+    }
+
+    @Test
+    void parsesQuantityRangesAndRejectsIdsOutOfRange() { // sprawdzenie czy przedziały ilości są rozpoznawane, a identyfikator spoza zakresu odrzucany
+        assertEquals(BookFacetIndex.QuantityRange.FEW, BookFacetIndex.QuantityRange.fromLabel("2-4"));
+        assertEquals(BookFacetIndex.QuantityRange.MANY, BookFacetIndex.QuantityRange.of(250));
+        assertEquals(BookFacetIndex.QuantityRange.NONE, BookFacetIndex.QuantityRange.of(null));
+        assertEquals("Unknown quantity range: 3-7",
+                assertThrows(IllegalArgumentException.class, () -> BookFacetIndex.QuantityRange.fromLabel("3-7")).getMessage());
+        assertThrows(IllegalArgumentException.class, () -> index.put(entry(1L + Integer.MAX_VALUE, "x", 1, 1), false));
+        assertEquals(RESERVED_OUT.name(), index.facets(RoaringBitmap.bitmapOf(2), null, null, null, 1).getAvailability().stream()
+                .filter(count -> count.getCount() > 0).findFirst().orElseThrow().getValue());
+    }
+
+    private static List<String> counts(List<BookFacetCount> counts) {
+        return counts.stream().map(count -> count.getValue() + "=" + count.getCount()).collect(Collectors.toList());
+    }
+
+    private static BookFacetEntry entry(Long id, String author, Integer quantity, Integer availableQuantity) {
+        return new BookFacetEntry() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getAuthor() {
+                return author;
+            }
+
+            @Override
+            public Integer getQuantity() {
+                return quantity;
+            }
+
+            @Override
+            public Integer getAvailableQuantity() {
+                return availableQuantity;
+            }
+        };
+    }
+}
@@ -0,0 +1,165 @@
+package org.example.search;
+
+import org.example.dto.BookFacetCount;
+import org.example.dto.BookFacets;
+import org.example.entity.Book;
+import org.example.entity.User;
+import org.example.event.BookChangedEvent;
+import org.example.repository.BookLoanRepository;
+import org.example.repository.BookRepository;
+import org.example.repository.BookReservationRepository;
+import org.example.repository.UserRepository;
+import org.example.service.BookLoanService;
+import org.example.service.BookReservationService;
+import org.example.service.BookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:facets",
+        "spring.jpa.show-sql=false",
+        "bookstore.search.index.enabled=true"
+})
+public class BookFacetIndexerTest {
+
+    @Autowired
+    private BookFacetIndexer indexer;
+
+    @Autowired
+    private BookFacetIndex index;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookLoanService bookLoanService;
+
+    @Autowired
+    private BookReservationService bookReservationService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+
+    @Autowired
+    private BookReservationRepository bookReservationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        List<Long> ids = bookRepository.findAll().stream().map(Book::getId).collect(Collectors.toList());
+        bookLoanRepository.deleteAll();
+        bookReservationRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+        if (!ids.isEmpty()) {
+            eventPublisher.publishEvent(BookChangedEvent.of(ids));
+        }
+        indexer.awaitRefresh();
+    }
+
+    @Test
+    void loadCountsBooksStoredWithoutEvents() { // sprawdzenie czy przebudowa liczników odczytuje wszystkie książki z bazy
+        assertTrue(index.isReady());
+        bookRepository.save(book("Lalka", "Bolesław Prus", 1));
+        bookRepository.save(book("Faraon", "Bolesław Prus", 12));
+
+        indexer.load();
+
+        BookFacets facets = bookService.findFacets(null, null, null, null, null, 10);
+        assertEquals(2, facets.getTotal());
+        assertEquals(List.of("Bolesław Prus=2"), counts(facets.getAuthors()));
+        assertEquals(List.of("0=0", "1=1", "2-4=0", "5-9=0", "10+=1"), counts(facets.getQuantity()));
+    }
+
+    @Test
+    void loansAndReservationsMoveBooksBetweenBuckets() throws Exception { // sprawdzenie czy wypożyczenie, rezerwacja i zwrot zmieniają liczniki dostępności
+        Book reserved = bookService.addBook(book("Dziady", "Adam Mickiewicz", 1));
+        Book loaned = bookService.addBook(book("Pan Tadeusz", "Adam Mickiewicz", 1));
+        User user = userRepository.save(User.builder()
+                .username("facet-reader")
+                .password("secret-hash")
+                .email("facet-reader@example.com")
+                .role(User.Role.USER)
+                .build());
+
+        bookReservationService.createReservation(user.getId(), reserved.getId(), LocalDateTime.now().plusDays(3));
+        Long loanId = bookLoanService.createLoan(user.getId(), loaned.getId(), LocalDateTime.now().plusDays(14)).getId();
+        indexer.awaitRefresh();
+
+        assertEquals(List.of("AVAILABLE=0", "RESERVED_OUT=1", "LOANED_OUT=1"),
+                counts(bookService.findFacets(null, null, "Adam Mickiewicz", null, null, 10).getAvailability()));
+
+        bookLoanService.returnBook(loanId);
+        indexer.awaitRefresh();
+
+        BookFacets facets = bookService.findFacets("tadeusz", "AND", null, "available", null, 10);
+        assertEquals(1, facets.getTotal());
+        assertEquals(List.of("Adam Mickiewicz=1"), counts(facets.getAuthors()));
+    }
+
+    @Test
+    void bookChangesUpdateAuthorCounts() throws Exception { // sprawdzenie czy zmiana autora i usunięcie książki aktualizuje liczniki autorów
+        Book book = bookService.addBook(book("Quo vadis", "Henryk Sienkiewicz", 3));
+
+        book.setAuthor("H. Sienkiewicz");
+        bookService.updateBook(book);
+        indexer.awaitRefresh();
+        assertEquals(List.of("H. Sienkiewicz=1"), counts(bookService.findFacets(null, null, null, null, "2-4", 10).getAuthors()));
+
+        bookService.deleteBook(book.getId());
+        indexer.awaitRefresh();
+        assertEquals(0, bookService.findFacets(null, null, null, null, null, 10).getTotal());
+    }
+
+    @Test
+    void changesDuringLoadWaitForLoadToFinish() throws Exception { // sprawdzenie czy zmiany w trakcie budowy liczników są kolejkowane i odświeżane po jej zakończeniu
+        BookFacetIndex loading = new BookFacetIndex();
+        BookFacetIndexer loadingIndexer = new BookFacetIndexer(loading, bookRepository, bookReservationRepository);
+        Book book = bookRepository.save(book("Lalka", "Bolesław Prus", 1));
+
+        loadingIndexer.onBookChanged(BookChangedEvent.stock(book.getId()));
+        assertEquals(0, loading.size());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> loadingIndexer.load());
+        loadingIndexer.awaitRefresh();
+        loadingIndexer.shutdown();
+
+        assertEquals(1, loading.size());
+        assertEquals(List.of("Bolesław Prus=1"), counts(loading.facets(null, null, null, null, 10).getAuthors()));
+    }
+
+    private static Book book(String title, String author, int quantity) {
+        return Book.builder()
+                .title(title)
+                .author(author)
+                .quantity(quantity)
+                .availableQuantity(quantity)
+                .build();
+    }
+
+    private static List<String> counts(List<BookFacetCount> counts) {
+        return counts.stream().map(count -> count.getValue() + "=" + count.getCount()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.search;
+
+import org.example.dto.BookIndexEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.example.search.BookSearchIndex.Operator.AND;
+import static org.example.search.BookSearchIndex.Operator.OR;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex();
+        index.put(entry(1L, "Lalka", "Bolesław Prus", "Powieść o Wokulskim", 2));
+        index.put(entry(2L, "Faraon", "Bolesław Prus", "Powieść historyczna", 0));
+        index.put(entry(3L, "Pan Tadeusz", "Adam Mickiewicz", null, 1));
+        index.markReady();
+    }
+
+    @Test
+    void andRequiresAllTerms() { // sprawdzenie czy operator AND wymaga wszystkich słów
+        assertArrayEquals(new int[]{1, 2}, index.search("prus", AND, false).toArray());
+        assertArrayEquals(new int[]{1}, index.search("Prus lalka", AND, false).toArray());
+        assertTrue(index.search("prus mickiewicz", AND, false).isEmpty());
+        assertTrue(index.search("nieznane", AND, false).isEmpty());
+    }
+
+    @Test
+    void orAcceptsAnyTerm() { // sprawdzenie czy operator OR wystarcza jedno słowo
+        assertArrayEquals(new int[]{1, 3}, index.search("lalka tadeusz nieznane", OR, false).toArray());
+    }
+
+    @Test
+    void wildcardMatchesPrefix() { // sprawdzenie czy słowo zakończone gwiazdką dopasowuje prefiks
+        assertArrayEquals(new int[]{1, 2}, index.search("pow*", AND, false).toArray());
+        assertArrayEquals(new int[]{2}, index.search("pow* hist*", AND, false).toArray());
+        assertTrue(index.search("pow", AND, false).isEmpty());
+    }
+
+    @Test
+    void diacriticsAreFolded() { // sprawdzenie czy polskie znaki są sprowadzane do liter podstawowych
+        assertArrayEquals(new int[]{1, 2}, index.search("BOLESLAW", AND, false).toArray());
+        assertArrayEquals(new int[]{1}, index.search("wokulskim", AND, false).toArray());
+        assertEquals(Set.of("zolc", "lodz"), BookSearchIndex.terms("Żółć, Łódź!"));
+    }
+
+    @Test
+    void availabilityFilterIntersectsInStockBooks() { // sprawdzenie czy filtr dostępności odrzuca książki bez egzemplarzy
+        assertArrayEquals(new int[]{1}, index.search("prus", AND, true).toArray());
+
+        index.put(entry(2L, "Faraon", "Bolesław Prus", "Powieść historyczna", 3));
+        index.put(entry(1L, "Lalka", "Bolesław Prus", "Powieść o Wokulskim", 0));
+
+        assertArrayEquals(new int[]{2}, index.search("prus", AND, true).toArray());
+    }
+
+    @Test
+    void updateReplacesTermsOfBook() { // sprawdzenie czy aktualizacja usuwa stare słowa książki
+        index.put(entry(3L, "Dziady", "Adam Mickiewicz", null, 1));
+
+        assertTrue(index.search("tadeusz", AND, false).isEmpty());
+        assertArrayEquals(new int[]{3}, index.search("dziady", AND, false).toArray());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void removeDropsBookAndEmptyTerms() { // sprawdzenie czy usunięcie książki czyści jej wpisy
+        int terms = index.termCount();
+
+        index.remove(3L);
+        index.remove(42L);
+
+        assertTrue(index.search("mickiewicz", OR, false).isEmpty());
+        assertEquals(2, index.size());
+        assertEquals(terms - 4, index.termCount());
+    }
+
+    @Test
+    void updateKeepsTermsSharedWithOtherBooks() { // sprawdzenie czy aktualizacja jednej książki nie usuwa wspólnych słów innych książek
+        int terms = index.termCount();
+
+        index.put(entry(2L, "Faraon", "Anonim", null, 0));
+
+        assertArrayEquals(new int[]{1}, index.search("prus", AND, false).toArray());
+        assertArrayEquals(new int[]{2}, index.search("anonim", AND, false).toArray());
+        assertTrue(index.search("historyczna", AND, false).isEmpty());
+        assertEquals(terms, index.termCount());
+    }
+
+    @Test
+    void sparseIdsAreIndexed() { // sprawdzenie czy odległe identyfikatory nie wymagają ciągłej pamięci
+        long id = Integer.MAX_VALUE;
+
+        index.put(entry(id, "Quo vadis", "Henryk Sienkiewicz", null, 1));
+        index.remove(id);
+        index.put(entry(id, "Potop", "Henryk Sienkiewicz", null, 1));
+
+        assertArrayEquals(new int[]{Integer.MAX_VALUE}, index.search("sienkiewicz", AND, true).toArray());
+        assertTrue(index.search("vadis", OR, false).isEmpty());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void resultDoesNotModifyIndex() { // sprawdzenie czy modyfikacja wyniku nie zmienia indeksu
+        index.search("prus", AND, false).clear();
+        index.search("prus", OR, false).clear();
+
+        assertEquals(2, index.search("prus", AND, false).getCardinality());
+    }
+
+    @Test
+    void rejectsEmptyQueryAndIdsOutOfRange() { // sprawdzenie czy odrzuca puste zapytanie i identyfikator spoza zakresu
+        assertEquals("Search query is empty",
+                assertThrows(IllegalArgumentException.class, () -> index.search(" * ", AND, false)).getMessage());
+        assertThrows(IllegalArgumentException.class, () -> index.put(entry(1L + Integer.MAX_VALUE, "x", "y", null, 1)));
+    }
+
+    private static BookIndexEntry entry(Long id, String title, String author, String description, int availableQuantity) {
+        return new BookIndexEntry() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getTitle() {
+                return title;
+            }
+
+            @Override
+            public String getAuthor() {
+                return author;
+            }
+
+            @Override
+            public String getDescription() {
+                return description;
+            }
+
+            @Override
+            public Integer getAvailableQuantity() {
+                return availableQuantity;
+            }
+        };
+    }
+}
@@ -0,0 +1,170 @@
+package org.example.search;
+
+import org.example.dto.BookPage;
+import org.example.entity.Book;
+import org.example.entity.User;
+import org.example.event.BookChangedEvent;
+import org.example.repository.BookLoanRepository;
+import org.example.repository.BookRepository;
+import org.example.repository.UserRepository;
+import org.example.service.BookLoanService;
+import org.example.service.BookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:search_index",
+        "spring.jpa.show-sql=false",
+        "bookstore.search.index.enabled=true"
+})
+public class BookSearchIndexerTest {
+
+    @Autowired
+    private BookSearchIndexer indexer;
+
+    @Autowired
+    private BookSearchIndex index;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookLoanService bookLoanService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @AfterEach
+    void tearDown() {
+        List<Long> ids = bookRepository.findAll().stream().map(Book::getId).collect(Collectors.toList());
+        bookLoanRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+        if (!ids.isEmpty()) {
+            eventPublisher.publishEvent(BookChangedEvent.of(ids));
+        }
+    }
+
+    @Test
+    void indexIsLoadedAtStartup() { // sprawdzenie czy indeks jest budowany przy starcie aplikacji
+        assertTrue(index.isReady());
+    }
+
+    @Test
+    void loadIndexesBooksStoredWithoutEvents() { // sprawdzenie czy przebudowa indeksu odczytuje wszystkie książki z bazy
+        Book lalka = bookRepository.save(book("Lalka", "Bolesław Prus", 1));
+        Book faraon = bookRepository.save(book("Faraon", "Bolesław Prus", 0));
+
+        indexer.load();
+
+        assertEquals(List.of(lalka.getId(), faraon.getId()), ids(bookService.searchIndex("prus", "AND", false, null, 10)));
+        assertEquals(List.of(lalka.getId()), ids(bookService.searchIndex("boles*", "AND", true, null, 10)));
+    }
+
+    @Test
+    void bookServiceChangesUpdateIndex() { // sprawdzenie czy dodanie, zmiana i usunięcie książki aktualizuje indeks
+        Book added = bookService.addBook(book("Quo vadis", "Henryk Sienkiewicz", 2));
+        assertEquals(List.of(added.getId()), ids(bookService.searchIndex("quo sienk*", "AND", false, null, 10)));
+
+        added.setTitle("Potop");
+        bookService.updateBook(added);
+        assertTrue(bookService.searchIndex("quo", "AND", false, null, 10).getBooks().isEmpty());
+        assertEquals(List.of(added.getId()), ids(bookService.searchIndex("potop", "AND", false, null, 10)));
+
+        bookService.deleteBook(added.getId());
+        assertTrue(bookService.searchIndex("sienkiewicz", "OR", false, null, 10).getBooks().isEmpty());
+    }
+
+    @Test
+    void loansUpdateAvailability() throws Exception { // sprawdzenie czy wypożyczenie i zwrot ostatniego egzemplarza zmienia filtr dostępności w tle
+        Book book = bookService.addBook(book("Dziady", "Adam Mickiewicz", 1));
+        User user = userRepository.save(User.builder()
+                .username("index-reader")
+                .password("secret-hash")
+                .email("index-reader@example.com")
+                .role(User.Role.USER)
+                .build());
+
+        Long loanId = bookLoanService.createLoan(user.getId(), book.getId(), LocalDateTime.now().plusDays(14)).getId();
+        indexer.awaitRefresh();
+        assertTrue(bookService.searchIndex("dziady", "AND", true, null, 10).getBooks().isEmpty());
+
+        bookLoanService.returnBook(loanId);
+        indexer.awaitRefresh();
+        assertEquals(List.of(book.getId()), ids(bookService.searchIndex("dziady", "AND", true, null, 10)));
+    }
+
+    @Test
+    void stockChangesAreRefreshedOffTheCallerThread() throws Exception { // sprawdzenie czy zmiana stanu egzemplarzy odświeża indeks w tle, a zmiana danych od razu
+        BookRepository repository = mock(BookRepository.class);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        when(repository.findIndexEntries(any())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return List.of();
+        });
+        BookSearchIndexer detached = new BookSearchIndexer(index, repository);
+        try {
+            detached.onBookChanged(BookChangedEvent.loaned(900_001L));
+            detached.onBookChanged(BookChangedEvent.stock(900_002L));
+            detached.awaitRefresh();
+            assertFalse(threads.isEmpty());
+            assertTrue(threads.stream().allMatch("search-indexer"::equals));
+
+            threads.clear();
+            detached.onBookChanged(BookChangedEvent.of(900_003L));
+            assertEquals(List.of(Thread.currentThread().getName()), threads);
+        } finally {
+            detached.shutdown();
+        }
+    }
+
+    @Test
+    void cursorPagesThroughMatches() { // sprawdzenie czy kursor przechodzi przez kolejne strony wyników
+        for (int i = 0; i < 5; i++) {
+            bookService.addBook(book("Tom " + i, "Autor Serii", 1));
+        }
+
+        BookPage first = bookService.searchIndex("serii", "AND", false, null, 3);
+        BookPage second = bookService.searchIndex("serii", "AND", false, first.getNextCursor(), 3);
+
+        assertEquals(3, first.getBooks().size());
+        assertNotNull(first.getNextCursor());
+        assertEquals(2, second.getBooks().size());
+        assertNull(second.getNextCursor());
+        assertTrue(first.getBooks().get(2).getId() < second.getBooks().get(0).getId());
+    }
+
+    private static Book book(String title, String author, int quantity) {
+        return Book.builder()
+                .title(title)
+                .author(author)
+                .quantity(Math.max(quantity, 1))
+                .availableQuantity(quantity)
+                .build();
+    }
+
+    private static List<Long> ids(BookPage page) {
+        return page.getBooks().stream().map(Book::getId).collect(Collectors.toList());
+    }
+}
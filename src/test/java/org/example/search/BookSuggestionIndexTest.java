@@ -0,0 +1,169 @@
+package org.example.search;
+
+import org.example.dto.BookIndexEntry;
+import org.example.dto.BookSuggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookSuggestionIndexTest {
+
+    private BookSuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSuggestionIndex();
+        index.put(entry(1L, "Lalka", "Bolesław Prus"), 5);
+        index.put(entry(2L, "Faraon", "Bolesław Prus"), 1);
+        index.put(entry(3L, "Latarnik", "Henryk Sienkiewicz"), 9);
+        index.put(entry(4L, "Lalka", "Bolesław Prus"), 2);
+        index.put(entry(5L, "Pan Tadeusz", "Adam Mickiewicz"), 0);
+        index.markReady();
+    }
+
+    @Test
+    void suggestsCompletionsByLoanCount() { // sprawdzenie czy podpowiedzi są uporządkowane według liczby wypożyczeń
+        List<BookSuggestion> suggestions = index.suggest("la", 10);
+
+        assertEquals(List.of("Latarnik", "Lalka"), texts(suggestions));
+        assertEquals(7, suggestions.get(1).getLoans());
+        assertEquals(2, suggestions.get(1).getBooks());
+        assertEquals(BookSuggestion.Type.TITLE, suggestions.get(1).getType());
+    }
+
+    @Test
+    void authorsAreSuggestedWithTitles() { // sprawdzenie czy podpowiadani są także autorzy
+        List<BookSuggestion> suggestions = index.suggest("BOLES", 10);
+
+        assertEquals(1, suggestions.size());
+        assertEquals("Bolesław Prus", suggestions.get(0).getText());
+        assertEquals(BookSuggestion.Type.AUTHOR, suggestions.get(0).getType());
+        assertEquals(8, suggestions.get(0).getLoans());
+    }
+
+    @Test
+    void queryIsNormalized() { // sprawdzenie czy zapytanie ignoruje wielkość liter, polskie znaki i interpunkcję
+        assertEquals(List.of("Bolesław Prus"), texts(index.suggest("bolesław-pr", 10)));
+        assertEquals(List.of("Pan Tadeusz"), texts(index.suggest("  pan   TAD", 10)));
+        assertTrue(index.suggest("lalkaa", 10).isEmpty());
+    }
+
+    @Test
+    void limitIsApplied() { // sprawdzenie czy liczba podpowiedzi jest ograniczona
+        for (long id = 10; id < 40; id++) {
+            index.put(entry(id, "Seria tom " + id, "Autor"), id);
+        }
+
+        List<BookSuggestion> suggestions = index.suggest("seria", 100);
+
+        assertEquals(BookSuggestionIndex.MAX_SUGGESTIONS, suggestions.size());
+        assertEquals("Seria tom 39", suggestions.get(0).getText());
+        assertEquals(List.of("Seria tom 39", "Seria tom 38"), texts(index.suggest("seria", 2)));
+    }
+
+    @Test
+    void loanChangesReorderSuggestions() { // sprawdzenie czy zmiana liczby wypożyczeń zmienia kolejność podpowiedzi
+        index.setLoans(2L, 50);
+
+        assertEquals(List.of("Faraon"), texts(index.suggest("f", 10)));
+        assertEquals(57, index.suggest("bol", 10).get(0).getLoans());
+
+        index.setLoans(1L, 20);
+        index.setLoans(4L, 0);
+
+        assertEquals(List.of("Lalka", "Latarnik"), texts(index.suggest("la", 10)));
+    }
+
+    @Test
+    void recordedLoansSurviveTextUpdates() { // sprawdzenie czy doliczone wypożyczenia są zachowane po zmianie tytułu
+        index.recordLoans(2L, 10);
+        index.recordLoans(99L, 1);
+
+        assertEquals(11, index.suggest("faraon", 10).get(0).getLoans());
+        assertEquals(18, index.suggest("bol", 10).get(0).getLoans());
+
+        index.update(entry(2L, "Faraon. Tom I", "Bolesław Prus"));
+
+        assertEquals("Faraon. Tom I", index.suggest("faraon", 10).get(0).getText());
+        assertEquals(11, index.suggest("faraon", 10).get(0).getLoans());
+        assertEquals(18, index.suggest("bol", 10).get(0).getLoans());
+    }
+
+    @Test
+    void updatesMoveBooksBetweenSuggestions() { // sprawdzenie czy zmiana tytułu i usunięcie książki aktualizuje podpowiedzi
+        index.put(entry(1L, "Emancypantki", "Bolesław Prus"), 5);
+        index.remove(4L);
+
+        assertEquals(List.of("Latarnik"), texts(index.suggest("la", 10)));
+        assertEquals(List.of("Emancypantki"), texts(index.suggest("eman", 10)));
+        assertEquals(6, index.suggest("bol", 10).get(0).getLoans());
+    }
+
+    @Test
+    void newSuggestionsAreMergedAfterRebuild() { // sprawdzenie czy nowe podpowiedzi są widoczne przed i po przebudowie
+        for (long id = 100; id < 2200; id++) {
+            index.put(entry(id, "Nowość " + id, "Autor " + id), 0);
+        }
+        index.put(entry(3L, "Lato", "Henryk Sienkiewicz"), 9);
+
+        assertEquals(List.of("Lato", "Lalka"), texts(index.suggest("la", 10)));
+        assertEquals("Nowość 2199", index.suggest("nowosc 2199", 10).get(0).getText());
+        assertEquals(7 + 2 * 2100, index.size());
+    }
+
+    @Test
+    void sparseIdsAreIndexed() { // sprawdzenie czy książka o bardzo dużym identyfikatorze jest indeksowana i usuwana
+        index.put(entry((long) Integer.MAX_VALUE, "Lalka", "Bolesław Prus"), 4);
+        index.recordLoans((long) Integer.MAX_VALUE, 1);
+
+        assertEquals(12, index.suggest("lalka", 10).get(0).getLoans());
+
+        index.remove((long) Integer.MAX_VALUE);
+
+        assertEquals(7, index.suggest("lalka", 10).get(0).getLoans());
+        assertThrows(IllegalArgumentException.class, () -> index.remove((long) Integer.MAX_VALUE + 1));
+    }
+
+    @Test
+    void rejectsEmptyQuery() { // sprawdzenie czy odrzuca puste zapytanie
+        assertEquals("Query is empty",
+                assertThrows(IllegalArgumentException.class, () -> index.suggest(" ,. ", 10)).getMessage());
+    }
+
+    private static List<String> texts(List<BookSuggestion> suggestions) {
+        return suggestions.stream().map(BookSuggestion::getText).collect(Collectors.toList());
+    }
+
+    private static BookIndexEntry entry(Long id, String title, String author) {
+        return new BookIndexEntry() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getTitle() {
+                return title;
+            }
+
+            @Override
+            public String getAuthor() {
+                return author;
+            }
+
+            @Override
+            public String getDescription() {
+                return null;
+            }
+
+            @Override
+            public Integer getAvailableQuantity() {
+                return 1;
+            }
+        };
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.search;
+
+import org.example.dto.BookSuggestion;
+import org.example.entity.Book;
+import org.example.entity.BookLoan;
+import org.example.entity.User;
+import org.example.event.BookChangedEvent;
+import org.example.repository.BookLoanRepository;
+import org.example.repository.BookRepository;
+import org.example.repository.UserRepository;
+import org.example.service.BookLoanService;
+import org.example.service.BookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:suggestions",
+        "spring.jpa.show-sql=false"
+})
+public class BookSuggestionIndexerTest {
+
+    @Autowired
+    private BookSuggestionIndexer indexer;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookLoanService bookLoanService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .username("suggest-reader")
+                .password("secret-hash")
+                .email("suggest-reader@example.com")
+                .role(User.Role.USER)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        List<Long> ids = bookRepository.findAll().stream().map(Book::getId).collect(Collectors.toList());
+        bookLoanRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+        if (!ids.isEmpty()) {
+            eventPublisher.publishEvent(BookChangedEvent.of(ids));
+        }
+    }
+
+    @Test
+    void loadRanksStoredBooksByLoanHistory() { // sprawdzenie czy przebudowa indeksu uwzględnia historię wypożyczeń
+        Book lalka = bookRepository.save(book("Lalka", "Bolesław Prus"));
+        Book latarnik = bookRepository.save(book("Latarnik", "Henryk Sienkiewicz"));
+        for (int i = 0; i < 3; i++) {
+            bookLoanRepository.save(BookLoan.builder()
+                    .user(user)
+                    .book(latarnik)
+                    .loanDate(LocalDateTime.now().minusDays(30))
+                    .dueDate(LocalDateTime.now().minusDays(16))
+                    .returnDate(LocalDateTime.now().minusDays(20))
+                    .returned(true)
+                    .build());
+        }
+
+        indexer.load();
+
+        List<BookSuggestion> suggestions = bookService.suggestBooks("la");
+        assertEquals(List.of("Latarnik", "Lalka"), texts(suggestions));
+        assertEquals(3, suggestions.get(0).getLoans());
+        assertEquals(lalka.getTitle(), suggestions.get(1).getText());
+    }
+
+    @Test
+    void bookServiceAndLoansUpdateSuggestions() { // sprawdzenie czy dodanie, wypożyczenie i usunięcie książki aktualizuje podpowiedzi
+        Book lalka = bookService.addBook(book("Lalka", "Bolesław Prus"));
+        Book latarnik = bookService.addBook(book("Latarnik", "Henryk Sienkiewicz"));
+        assertEquals(List.of("Lalka", "Latarnik"), texts(bookService.suggestBooks("la")));
+
+        bookLoanService.createLoan(user.getId(), latarnik.getId(), LocalDateTime.now().plusDays(14));
+        assertEquals(List.of("Latarnik", "Lalka"), texts(bookService.suggestBooks("la")));
+        assertEquals(1, bookService.suggestBooks("henryk").get(0).getLoans());
+
+        lalka.setTitle("Emancypantki");
+        bookService.updateBook(lalka);
+        assertEquals(List.of("Latarnik"), texts(bookService.suggestBooks("la")));
+        assertEquals(List.of("Emancypantki"), texts(bookService.suggestBooks("ema")));
+
+        bookService.deleteBook(lalka.getId());
+        assertTrue(bookService.suggestBooks("bolesław").isEmpty());
+    }
+
+    @Test
+    void returnsDoNotCountAndTextChangesKeepLoans() { // sprawdzenie czy zwrot nie zmienia liczby wypożyczeń, a zmiana tytułu ją zachowuje
+        Book latarnik = bookService.addBook(book("Latarnik", "Henryk Sienkiewicz"));
+        Long loanId = bookLoanService.createLoan(user.getId(), latarnik.getId(), LocalDateTime.now().plusDays(14)).getId();
+        bookLoanService.returnBook(loanId);
+        assertEquals(1, bookService.suggestBooks("latarnik").get(0).getLoans());
+
+        latarnik.setTitle("Latarnik morski");
+        bookService.updateBook(latarnik);
+        assertEquals(List.of("Latarnik morski"), texts(bookService.suggestBooks("latarnik")));
+        assertEquals(1, bookService.suggestBooks("latarnik").get(0).getLoans());
+    }
+
+    private static Book book(String title, String author) {
+        return Book.builder()
+                .title(title)
+                .author(author)
+                .quantity(2)
+                .availableQuantity(2)
+                .build();
+    }
+
+    private static List<String> texts(List<BookSuggestion> suggestions) {
+        return suggestions.stream().map(BookSuggestion::getText).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FuzzyMatcherTest {
+
+    @Test
+    void distanceIsMeasuredToWholeWords() { // sprawdzenie czy odległość liczona jest do całych słów tekstu
+        assertEquals(0, FuzzyMatcher.distance("sienkiewicz", "henryk sienkiewicz", 2));
+        assertEquals(1, FuzzyMatcher.distance("sienkiewic", "henryk sienkiewicz", 2));
+        assertEquals(1, FuzzyMatcher.distance("pan tadeus", "pan tadeusz", 2));
+        assertEquals(2, FuzzyMatcher.distance("ala", "kalafior", 1));
+    }
+
+    @Test
+    void distanceCountsTypos() { // sprawdzenie czy zliczane są zamiany, pominięcia i dodatkowe litery
+        assertEquals(1, FuzzyMatcher.distance("dostojewsky", "fiodor dostojewski", 2));
+        assertEquals(1, FuzzyMatcher.distance("dostojeski", "fiodor dostojewski", 2));
+        assertEquals(2, FuzzyMatcher.distance("dsotojewski", "fiodor dostojewski", 2));
+        assertEquals(3, FuzzyMatcher.distance("tolstoj", "fiodor dostojewski", 2));
+    }
+
+    @Test
+    void candidatesOutsideLengthLimitAreSkipped() { // sprawdzenie czy teksty za krótkie lub o zbyt długich słowach są odrzucane bez pełnego porównania
+        assertEquals(2, FuzzyMatcher.distance("sienkiewicz", "lalka", 1));
+        assertEquals(2, FuzzyMatcher.distance("lalka", "emancypantki przedwiosnie", 1));
+        assertEquals(1, FuzzyMatcher.distance("lalka", "emancypantki lalk", 1));
+        assertEquals(2, FuzzyMatcher.distance("ab", "", 2));
+    }
+
+    @Test
+    void buffersGrowForLongTexts() { // sprawdzenie czy długie teksty są porównywane po powiększeniu buforów
+        String longText = "slowo ".repeat(100) + "sienkiewicz";
+
+        assertEquals(1, FuzzyMatcher.distance("sienkiewic", longText, 2));
+        assertEquals(0, FuzzyMatcher.distance("slowo", "slowo", 1));
+    }
+
+    @Test
+    void normalizeFoldsDiacriticsAndPunctuation() { // sprawdzenie czy normalizacja usuwa polskie znaki i interpunkcję
+        assertEquals("lodz i okolice", FuzzyMatcher.normalize("Łódź, i okolice!"));
+        assertEquals("", FuzzyMatcher.normalize(null));
+        assertEquals(1, FuzzyMatcher.maxDistance("lodz"));
+        assertEquals(2, FuzzyMatcher.maxDistance("sienkiewic"));
+    }
+}
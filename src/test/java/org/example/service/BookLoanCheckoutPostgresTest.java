@@ -0,0 +1,117 @@
+package org.example.service;
+
+import org.example.dto.LoanBatchItem;
+import org.example.entity.Book;
+import org.example.entity.BookReservation;
+import org.example.entity.User;
+import org.example.repository.BookLoanRepository;
+import org.example.repository.BookRepository;
+import org.example.repository.BookReservationRepository;
+import org.example.repository.UserRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+        "bookstore.search.facets.enabled=false",
+        "bookstore.search.suggest.enabled=false"
+})
+public class BookLoanCheckoutPostgresTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private BookLoanService bookLoanService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+
+    @Autowired
+    private BookReservationRepository bookReservationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driver-class-name", POSTGRES::getDriverClassName);
+    }
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookLoanRepository.deleteAllInBatch();
+        bookReservationRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void batchCheckoutDeactivatesOwnReservation() { // sprawdzenie czy wypożyczenie wielu książek dezaktywuje rezerwację użytkownika i zmniejsza stan
+        User user = userRepository.save(User.builder()
+                .username("batch-reader")
+                .password("secret-hash")
+                .email("batch-reader@example.com")
+                .role(User.Role.USER)
+                .build());
+        Book reserved = bookRepository.save(book("Chłopi", 1));
+        Book free = bookRepository.save(book("Ziemia obiecana", 2));
+        BookReservation reservation = bookReservationRepository.save(BookReservation.builder()
+                .user(user)
+                .book(reserved)
+                .reservationDate(LocalDateTime.now())
+                .expirationDate(LocalDateTime.now().plusDays(3))
+                .active(true)
+                .build());
+
+        List<LoanBatchItem> result = bookLoanService.createLoans(user.getId(), List.of(reserved.getId(), free.getId()),
+                LocalDateTime.now().plusDays(14));
+
+        assertTrue(result.stream().allMatch(item -> item.getLoanId() != null), result.toString());
+        assertFalse(bookReservationRepository.findById(reservation.getId()).orElseThrow().isActive());
+        assertEquals(0, bookRepository.findById(reserved.getId()).orElseThrow().getAvailableQuantity());
+        assertEquals(1, bookRepository.findById(free.getId()).orElseThrow().getAvailableQuantity());
+    }
+
+    private static Book book(String title, int available) {
+        return Book.builder()
+                .title(title)
+                .author("Władysław Reymont")
+                .quantity(2)
+                .availableQuantity(available)
+                .build();
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.service;
+
+import org.example.entity.Book;
+import org.example.entity.BookLoan;
+import org.example.entity.BookReservation;
+import org.example.entity.User;
+import org.example.repository.BookLoanRepository;
+import org.example.repository.BookRepository;
+import org.example.repository.BookReservationRepository;
+import org.example.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:checkout",
+        "spring.jpa.show-sql=false",
+        "bookstore.search.facets.enabled=false",
+        "bookstore.search.suggest.enabled=false"
+})
+public class BookLoanCheckoutTest {
+
+    @Autowired
+    private BookLoanService bookLoanService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+
+    @Autowired
+    private BookReservationRepository bookReservationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        bookLoanRepository.deleteAll();
+        bookReservationRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void checkoutDeactivatesOwnReservation() { // sprawdzenie czy wypożyczenie zarezerwowanej książki zapisuje dezaktywację rezerwacji i zmniejsza stan
+        User user = user();
+        Book book = book();
+        BookReservation reservation = reservation(user, book);
+
+        BookLoan loan = bookLoanService.createLoan(user.getId(), book.getId(), LocalDateTime.now().plusDays(14));
+
+        assertFalse(bookReservationRepository.findById(reservation.getId()).orElseThrow().isActive());
+        assertEquals(0, bookRepository.findById(book.getId()).orElseThrow().getAvailableQuantity());
+        assertEquals(0, loan.getBook().getAvailableQuantity());
+        assertEquals(user.getId(), bookLoanRepository.findById(loan.getId()).orElseThrow().getUser().getId());
+    }
+
+    @Test
+    void stockUpdateKeepsOtherEntitiesManaged() { // sprawdzenie czy zmiana stanu książki nie odłącza pozostałych encji transakcji
+        Book book = book();
+        Long reservationId = reservation(user(), book).getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            BookReservation reservation = bookReservationRepository.findById(reservationId).orElseThrow();
+            assertEquals(1, bookRepository.decrementAvailableQuantity(book.getId()));
+            reservation.setActive(false);
+        });
+
+        assertFalse(bookReservationRepository.findById(reservationId).orElseThrow().isActive());
+        assertEquals(0, bookRepository.findById(book.getId()).orElseThrow().getAvailableQuantity());
+    }
+
+    private User user() {
+        return userRepository.save(User.builder()
+                .username("checkout-reader")
+                .password("secret-hash")
+                .email("checkout-reader@example.com")
+                .role(User.Role.USER)
+                .build());
+    }
+
+    private Book book() {
+        return bookRepository.save(Book.builder()
+                .title("Chłopi")
+                .author("Władysław Reymont")
+                .quantity(2)
+                .availableQuantity(1)
+                .build());
+    }
+
+    private BookReservation reservation(User user, Book book) {
+        return bookReservationRepository.save(BookReservation.builder()
+                .user(user)
+                .book(book)
+                .reservationDate(LocalDateTime.now())
+                .expirationDate(LocalDateTime.now().plusDays(3))
+                .active(true)
+                .build());
+    }
+}
@@ -1,29 +1,43 @@
 package org.example.service;
 
+import org.example.dto.BookLoanSummary;
+import org.example.dto.LoanBatchItem;
+import org.example.dto.LoanReturnReport;
+import org.example.dto.ReturnedLoan;
 import org.example.entity.Book;
 import org.example.entity.BookLoan;
 import org.example.entity.BookReservation;
 import org.example.entity.User;
+import org.example.event.BookChangedEvent;
 import org.example.repository.BookLoanRepository;
 import org.example.repository.BookRepository;
 import org.example.repository.BookReservationRepository;
 import org.example.repository.UserRepository;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,12 +55,16 @@ public class BookLoanServiceTest {
     @Mock
     private BookReservationRepository bookReservationRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BookLoanService bookLoanService;
 
     private User user;
     private Book book;
     private BookLoan loan;
+    private BookLoanSummary loanSummary;
     private BookReservation reservation;
     private LocalDateTime now;
     private LocalDateTime dueDate;
@@ -80,6 +98,18 @@ public class BookLoanServiceTest {
                 .returned(false)
                 .build();
 
+        loanSummary = BookLoanSummary.builder()
+                .id(1L)
+                .userId(1L)
+                .username("testUser")
+                .bookId(1L)
+                .title("Test Book")
+                .author("Test Author")
+                .loanDate(now)
+                .dueDate(dueDate)
+                .returned(false)
+                .build();
+
         reservation = BookReservation.builder()
                 .id(1L)
                 .user(user)
@@ -88,16 +118,20 @@ public class BookLoanServiceTest {
                 .expirationDate(now.plusDays(6))
                 .active(true)
                 .build();
+
+        ReflectionTestUtils.setField(bookLoanService, "checkoutMaxBooks", 50);
+        ReflectionTestUtils.setField(bookLoanService, "returnMaxLoans", 1000);
     }
 
     @Test
     void createLoan_Success() { // sprawdzenie czy tworzy wypożyczenie
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
-        when(bookLoanRepository.findByUserAndReturned(user, false)).thenReturn(Collections.emptyList());
+        when(bookLoanRepository.existsByUserAndBookAndReturnedFalse(user, book)).thenReturn(false);
         when(bookReservationRepository.findByUserAndActive(user, true)).thenReturn(Collections.emptyList());
         when(bookReservationRepository.countActiveReservationsByBook(book)).thenReturn(0L);
-        when(bookLoanRepository.save(any(BookLoan.class))).thenReturn(loan);
+        when(bookRepository.decrementAvailableQuantity(1L)).thenReturn(1);
+        when(bookLoanRepository.saveAndFlush(any(BookLoan.class))).thenReturn(loan);
 
         BookLoan result = bookLoanService.createLoan(1L, 1L, dueDate);
 
@@ -107,7 +141,9 @@ public class BookLoanServiceTest {
         assertEquals(book, result.getBook());
         assertFalse(result.isReturned());
 
-        verify(bookRepository).save(book);
+        verify(bookRepository).decrementAvailableQuantity(1L);
+        verify(bookRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(BookChangedEvent.loaned(1L));
         assertEquals(2, book.getAvailableQuantity());
     }
 
@@ -122,7 +158,7 @@ public class BookLoanServiceTest {
 
         assertEquals("User not found", exception.getMessage());
         verify(bookRepository, never()).save(any());
-        verify(bookLoanRepository, never()).save(any());
+        verify(bookLoanRepository, never()).saveAndFlush(any());
     }
 
     @Test
@@ -137,7 +173,7 @@ public class BookLoanServiceTest {
 
         assertEquals("Book not found", exception.getMessage());
         verify(bookRepository, never()).save(any());
-        verify(bookLoanRepository, never()).save(any());
+        verify(bookLoanRepository, never()).saveAndFlush(any());
     }
 
     @Test
@@ -152,6 +188,7 @@ public class BookLoanServiceTest {
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(bookRepository.findById(1L)).thenReturn(Optional.of(unavailableBook));
+        when(bookRepository.decrementAvailableQuantity(1L)).thenReturn(0);
 
         IllegalStateException exception = assertThrows(
                 IllegalStateException.class,
@@ -159,16 +196,33 @@ public class BookLoanServiceTest {
         );
 
         assertEquals("Book is not available for loan", exception.getMessage());
+        assertEquals(0, unavailableBook.getAvailableQuantity());
         verify(bookRepository, never()).save(any());
-        verify(bookLoanRepository, never()).save(any());
+        verify(bookLoanRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void createLoan_StockTakenConcurrently() { // sprawdzenie czy odrzuca wypożyczenie gdy ostatni egzemplarz został zajęty równolegle
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(bookReservationRepository.countActiveReservationsByBook(book)).thenReturn(0L);
+        when(bookRepository.decrementAvailableQuantity(1L)).thenReturn(0);
+
+        IllegalStateException exception = assertThrows(
+                IllegalStateException.class,
+                () -> bookLoanService.createLoan(1L, 1L, dueDate)
+        );
+
+        assertEquals("Book is not available for loan", exception.getMessage());
+        assertEquals(3, book.getAvailableQuantity());
+        verify(bookLoanRepository, never()).saveAndFlush(any());
     }
 
     @Test
     void createLoan_UserAlreadyHasActiveLoan() { // sprawdzenie czy obsługuje sytuację gdy użytkownik ma już aktywne wypożyczenie
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
-        when(bookLoanRepository.findByUserAndReturned(user, false)).thenReturn(List.of(loan));
-        when(bookLoanRepository.findByBookAndReturned(book, false)).thenReturn(List.of(loan));
+        when(bookLoanRepository.existsByUserAndBookAndReturnedFalse(user, book)).thenReturn(true);
 
         IllegalStateException exception = assertThrows(
                 IllegalStateException.class,
@@ -177,7 +231,38 @@ public class BookLoanServiceTest {
 
         assertEquals("User already has an active loan for this book", exception.getMessage());
         verify(bookRepository, never()).save(any());
-        verify(bookLoanRepository, never()).save(any());
+        verify(bookLoanRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void createLoan_ActiveLoanCreatedConcurrently() { // sprawdzenie czy obsługuje naruszenie unikalności aktywnego wypożyczenia
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(bookLoanRepository.existsByUserAndBookAndReturnedFalse(user, book)).thenReturn(false);
+        when(bookReservationRepository.findByUserAndActive(user, true)).thenReturn(Collections.emptyList());
+        when(bookReservationRepository.countActiveReservationsByBook(book)).thenReturn(0L);
+        when(bookRepository.decrementAvailableQuantity(1L)).thenReturn(1);
+        when(bookLoanRepository.saveAndFlush(any(BookLoan.class))).thenThrow(violation("uq_book_loans_active_user_book"));
+
+        IllegalStateException exception = assertThrows(
+                IllegalStateException.class,
+                () -> bookLoanService.createLoan(1L, 1L, dueDate)
+        );
+
+        assertEquals("User already has an active loan for this book", exception.getMessage());
+    }
+
+    @Test
+    void createLoan_OtherIntegrityViolationIsRethrown() { // sprawdzenie czy inne naruszenia integralności nie są zgłaszane jako aktywne wypożyczenie
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(bookLoanRepository.existsByUserAndBookAndReturnedFalse(user, book)).thenReturn(false);
+        when(bookReservationRepository.findByUserAndActive(user, true)).thenReturn(Collections.emptyList());
+        when(bookReservationRepository.countActiveReservationsByBook(book)).thenReturn(0L);
+        when(bookRepository.decrementAvailableQuantity(1L)).thenReturn(1);
+        when(bookLoanRepository.saveAndFlush(any(BookLoan.class))).thenThrow(violation("fk_book_loans_user"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> bookLoanService.createLoan(1L, 1L, dueDate));
     }
 
     @Test
@@ -200,7 +285,7 @@ public class BookLoanServiceTest {
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
-        when(bookLoanRepository.findByUserAndReturned(user, false)).thenReturn(Collections.emptyList());
+        when(bookLoanRepository.existsByUserAndBookAndReturnedFalse(user, book)).thenReturn(false);
         when(bookReservationRepository.findByUserAndActive(user, true)).thenReturn(Collections.emptyList());
         when(bookReservationRepository.countActiveReservationsByBook(book)).thenReturn(1L);
 
@@ -211,7 +296,7 @@ public class BookLoanServiceTest {
 
         assertEquals("Book is reserved by other users", exception.getMessage());
         verify(bookRepository, never()).save(any());
-        verify(bookLoanRepository, never()).save(any());
+        verify(bookLoanRepository, never()).saveAndFlush(any());
     }
 
     @Test
@@ -227,19 +312,108 @@ public class BookLoanServiceTest {
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
-        when(bookLoanRepository.findByUserAndReturned(user, false)).thenReturn(Collections.emptyList());
+        when(bookLoanRepository.existsByUserAndBookAndReturnedFalse(user, book)).thenReturn(false);
         when(bookReservationRepository.findByUserAndActive(user, true)).thenReturn(List.of(userReservation));
-        when(bookLoanRepository.save(any(BookLoan.class))).thenReturn(loan);
+        when(bookRepository.decrementAvailableQuantity(1L)).thenReturn(1);
+        when(bookLoanRepository.saveAndFlush(any(BookLoan.class))).thenReturn(loan);
 
         BookLoan result = bookLoanService.createLoan(1L, 1L, dueDate);
 
         assertNotNull(result);
         verify(bookReservationRepository).save(userReservation);
         assertFalse(userReservation.isActive());
-        verify(bookRepository).save(book);
+        verify(bookRepository).decrementAvailableQuantity(1L);
         assertEquals(2, book.getAvailableQuantity());
     }
 
+    @Test
+    void createLoans_ReportsResultForEveryBook() { // sprawdzenie czy wypożyczenie wielu książek zwraca wynik dla każdej pozycji
+        Book reservedBook = Book.builder().id(2L).title("Reserved").quantity(1).availableQuantity(1).build();
+        Book loanedBook = Book.builder().id(3L).title("Loaned").quantity(1).availableQuantity(0).build();
+        Book soldOutBook = Book.builder().id(4L).title("Sold out").quantity(1).availableQuantity(0).build();
+        Book ownReservedBook = Book.builder().id(5L).title("Own reservation").quantity(1).availableQuantity(0).build();
+        User otherUser = User.builder().id(2L).username("other").build();
+        BookReservation otherReservation = BookReservation.builder().id(2L).user(otherUser).book(reservedBook).active(true).build();
+        BookReservation ownReservation = BookReservation.builder().id(3L).user(user).book(ownReservedBook).active(true).build();
+        List<Long> bookIds = List.of(1L, 2L, 3L, 4L, 5L, 6L, 1L);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(bookRepository.findAllById(any())).thenReturn(List.of(book, reservedBook, loanedBook, soldOutBook, ownReservedBook));
+        when(bookLoanRepository.findActiveLoanBookIds(eq(user), any())).thenReturn(List.of(3L));
+        when(bookReservationRepository.findByBookIdInAndActiveTrue(any())).thenReturn(List.of(otherReservation, ownReservation));
+        when(bookRepository.decrementAvailableQuantities(List.of(1L, 4L, 5L))).thenReturn(List.of(1L, 5L));
+        when(bookLoanRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> {
+            List<BookLoan> saved = invocation.getArgument(0);
+            saved.forEach(created -> created.setId(created.getBook().getId() * 10));
+            return saved;
+        });
+
+        List<LoanBatchItem> result = bookLoanService.createLoans(1L, bookIds, dueDate);
+
+        assertEquals(List.of(
+                LoanBatchItem.created(1L, 10L),
+                LoanBatchItem.rejected(2L, "Book is reserved by other users"),
+                LoanBatchItem.rejected(3L, "User already has an active loan for this book"),
+                LoanBatchItem.rejected(4L, "Book is not available for loan"),
+                LoanBatchItem.created(5L, 50L),
+                LoanBatchItem.rejected(6L, "Book not found")), result);
+        assertFalse(ownReservation.isActive());
+        assertTrue(otherReservation.isActive());
+        verify(eventPublisher).publishEvent(BookChangedEvent.loaned(List.of(1L, 5L)));
+    }
+
+    @Test
+    void createLoans_NothingAvailable() { // sprawdzenie czy wypożyczenie wielu książek nie zapisuje nic gdy żadna nie jest dostępna
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(bookRepository.findAllById(any())).thenReturn(List.of(book));
+        when(bookLoanRepository.findActiveLoanBookIds(eq(user), any())).thenReturn(List.of(1L));
+        when(bookReservationRepository.findByBookIdInAndActiveTrue(any())).thenReturn(Collections.emptyList());
+
+        List<LoanBatchItem> result = bookLoanService.createLoans(1L, List.of(1L), dueDate);
+
+        assertEquals(List.of(LoanBatchItem.rejected(1L, "User already has an active loan for this book")), result);
+        verify(bookRepository, never()).decrementAvailableQuantities(any());
+        verify(bookLoanRepository, never()).saveAllAndFlush(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void createLoans_ActiveLoanCreatedConcurrently() { // sprawdzenie czy wypożyczenie wielu książek obsługuje naruszenie unikalności aktywnego wypożyczenia
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(bookRepository.findAllById(any())).thenReturn(List.of(book));
+        when(bookLoanRepository.findActiveLoanBookIds(eq(user), any())).thenReturn(Collections.emptyList());
+        when(bookReservationRepository.findByBookIdInAndActiveTrue(any())).thenReturn(Collections.emptyList());
+        when(bookRepository.decrementAvailableQuantities(List.of(1L))).thenReturn(List.of(1L));
+        when(bookLoanRepository.saveAllAndFlush(anyList())).thenThrow(violation("uq_book_loans_active_user_book"));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> bookLoanService.createLoans(1L, List.of(1L), dueDate));
+
+        assertEquals("User already has an active loan for this book", exception.getMessage());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void createLoans_UserNotFound() { // sprawdzenie czy wypożyczenie wielu książek obsługuje brak użytkownika
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> bookLoanService.createLoans(1L, List.of(1L), dueDate));
+
+        assertEquals("User not found", exception.getMessage());
+    }
+
+    @Test
+    void createLoans_InvalidBookList() { // sprawdzenie czy wypożyczenie wielu książek odrzuca pustą i zbyt długą listę
+        ReflectionTestUtils.setField(bookLoanService, "checkoutMaxBooks", 2);
+
+        assertEquals("No books to loan", assertThrows(IllegalArgumentException.class,
+                () -> bookLoanService.createLoans(1L, List.of(), dueDate)).getMessage());
+        assertEquals("Too many books in one checkout", assertThrows(IllegalArgumentException.class,
+                () -> bookLoanService.createLoans(1L, List.of(1L, 2L, 3L), dueDate)).getMessage());
+        verifyNoInteractions(userRepository);
+    }
+
     @Test
     void findById_Success() { // sprawdzenie czy znajduje wypożyczenie po ID
         when(bookLoanRepository.findById(1L)).thenReturn(Optional.of(loan));
@@ -261,81 +435,71 @@ public class BookLoanServiceTest {
 
     @Test
     void findByUser_Success() { // sprawdzenie czy znajduje wypożyczenia użytkownika
-        List<BookLoan> loans = List.of(loan);
-        when(bookLoanRepository.findByUser(user)).thenReturn(loans);
+        List<BookLoanSummary> loans = List.of(loanSummary);
+        when(bookLoanRepository.findSummariesByUser(user)).thenReturn(loans);
 
-        List<BookLoan> result = bookLoanService.findByUser(user);
+        List<BookLoanSummary> result = bookLoanService.findByUser(user);
 
         assertEquals(loans, result);
     }
 
     @Test
     void findByBook_Success() { // sprawdzenie czy znajduje wypożyczenia książki
-        List<BookLoan> loans = List.of(loan);
-        when(bookLoanRepository.findByBook(book)).thenReturn(loans);
+        List<BookLoanSummary> loans = List.of(loanSummary);
+        when(bookLoanRepository.findSummariesByBook(book)).thenReturn(loans);
 
-        List<BookLoan> result = bookLoanService.findByBook(book);
+        List<BookLoanSummary> result = bookLoanService.findByBook(book);
 
         assertEquals(loans, result);
     }
 
     @Test
     void findActiveLoans_Success() { // sprawdzenie czy znajduje aktywne wypożyczenia
-        BookLoan returnedLoan = BookLoan.builder()
-                .id(2L)
-                .user(user)
-                .book(book)
-                .loanDate(now.minusDays(20))
-                .dueDate(now.minusDays(6))
-                .returnDate(now.minusDays(7))
-                .returned(true)
-                .build();
-
-        List<BookLoan> allLoans = Arrays.asList(loan, returnedLoan);
-        when(bookLoanRepository.findAll()).thenReturn(allLoans);
+        List<BookLoanSummary> loans = List.of(loanSummary);
+        when(bookLoanRepository.findSummariesByReturned(false)).thenReturn(loans);
 
-        List<BookLoan> result = bookLoanService.findActiveLoans();
+        List<BookLoanSummary> result = bookLoanService.findActiveLoans();
 
         assertEquals(1, result.size());
-        assertEquals(loan, result.get(0));
+        assertEquals(loanSummary, result.get(0));
     }
 
     @Test
     void findActiveLoansForUser_Success() { // sprawdzenie czy znajduje aktywne wypożyczenia użytkownika
-        List<BookLoan> loans = List.of(loan);
-        when(bookLoanRepository.findByUserAndReturned(user, false)).thenReturn(loans);
+        List<BookLoanSummary> loans = List.of(loanSummary);
+        when(bookLoanRepository.findSummariesByUserAndReturned(user, false)).thenReturn(loans);
 
-        List<BookLoan> result = bookLoanService.findActiveLoansForUser(user);
+        List<BookLoanSummary> result = bookLoanService.findActiveLoansForUser(user);
 
         assertEquals(loans, result);
     }
 
     @Test
     void findActiveLoansForBook_Success() { // sprawdzenie czy znajduje aktywne wypożyczenia książki
-        List<BookLoan> loans = List.of(loan);
-        when(bookLoanRepository.findByBookAndReturned(book, false)).thenReturn(loans);
+        List<BookLoanSummary> loans = List.of(loanSummary);
+        when(bookLoanRepository.findSummariesByBookAndReturned(book, false)).thenReturn(loans);
 
-        List<BookLoan> result = bookLoanService.findActiveLoansForBook(book);
+        List<BookLoanSummary> result = bookLoanService.findActiveLoansForBook(book);
 
         assertEquals(loans, result);
     }
 
     @Test
     void findAllLoans_Success() { // sprawdzenie czy znajduje wszystkie wypożyczenia
-        List<BookLoan> loans = List.of(loan);
-        when(bookLoanRepository.findAll()).thenReturn(loans);
+        List<BookLoanSummary> loans = List.of(loanSummary);
+        when(bookLoanRepository.findAllSummaries()).thenReturn(loans);
 
-        List<BookLoan> result = bookLoanService.findAllLoans();
+        List<BookLoanSummary> result = bookLoanService.findAllLoans();
 
         assertEquals(loans, result);
     }
 
     @Test
     void findOverdueLoans_Success() { // sprawdzenie czy znajduje przeterminowane wypożyczenia
-        List<BookLoan> loans = List.of(loan);
+        List<BookLoanSummary> loans = List.of(loanSummary);
         when(bookLoanRepository.findOverdueLoans(any(LocalDateTime.class))).thenReturn(loans);
 
-        List<BookLoan> result = bookLoanService.findOverdueLoans();
+        List<BookLoanSummary> result = bookLoanService.findOverdueLoans();
 
         assertEquals(loans, result);
     }
@@ -343,17 +507,47 @@ public class BookLoanServiceTest {
     @Test
     void returnBook_Success() { // sprawdzenie czy zwraca wypożyczoną książkę
         when(bookLoanRepository.findById(1L)).thenReturn(Optional.of(loan));
-        when(bookLoanRepository.save(any(BookLoan.class))).thenReturn(loan);
+        when(bookLoanRepository.markReturned(eq(1L), any(LocalDateTime.class))).thenReturn(1);
+        when(bookRepository.incrementAvailableQuantity(1L)).thenReturn(1);
 
         BookLoan result = bookLoanService.returnBook(1L);
 
         assertNotNull(result);
         assertTrue(result.isReturned());
         assertNotNull(result.getReturnDate());
-        verify(bookRepository).save(book);
+        verify(bookRepository).incrementAvailableQuantity(1L);
+        verify(eventPublisher).publishEvent(BookChangedEvent.stock(1L));
+        verify(bookRepository, never()).save(any());
+        verify(bookLoanRepository, never()).save(any());
         assertEquals(4, book.getAvailableQuantity());
     }
 
+    @Test
+    void returnBook_ClearsOverdueFlag() { // sprawdzenie czy zwrot zdejmuje oznaczenie przeterminowania
+        loan.setOverdue(true);
+        when(bookLoanRepository.findById(1L)).thenReturn(Optional.of(loan));
+        when(bookLoanRepository.markReturned(eq(1L), any(LocalDateTime.class))).thenReturn(1);
+        when(bookRepository.incrementAvailableQuantity(1L)).thenReturn(1);
+
+        BookLoan result = bookLoanService.returnBook(1L);
+
+        assertTrue(result.isReturned());
+        assertFalse(result.isOverdue());
+    }
+
+    @Test
+    void returnBook_StockAlreadyFull() { // sprawdzenie czy zwrot nie przekracza całkowitej liczby egzemplarzy
+        when(bookLoanRepository.findById(1L)).thenReturn(Optional.of(loan));
+        when(bookLoanRepository.markReturned(eq(1L), any(LocalDateTime.class))).thenReturn(1);
+        when(bookRepository.incrementAvailableQuantity(1L)).thenReturn(0);
+
+        BookLoan result = bookLoanService.returnBook(1L);
+
+        assertTrue(result.isReturned());
+        assertEquals(3, book.getAvailableQuantity());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
     @Test
     void returnBook_NotFound() { // sprawdzenie czy obsługuje brak wypożyczenia podczas zwrotu
         when(bookLoanRepository.findById(1L)).thenReturn(Optional.empty());
@@ -364,10 +558,25 @@ public class BookLoanServiceTest {
         );
 
         assertEquals("Loan not found", exception.getMessage());
-        verify(bookRepository, never()).save(any());
+        verify(bookRepository, never()).incrementAvailableQuantity(any());
         verify(bookLoanRepository, never()).save(any());
     }
 
+    @Test
+    void returnBook_ConcurrentlyReturned() { // sprawdzenie czy równoległy zwrot tego samego wypożyczenia nie zwiększa stanu dwukrotnie
+        when(bookLoanRepository.findById(1L)).thenReturn(Optional.of(loan));
+        when(bookLoanRepository.markReturned(eq(1L), any(LocalDateTime.class))).thenReturn(0);
+
+        IllegalStateException exception = assertThrows(
+                IllegalStateException.class,
+                () -> bookLoanService.returnBook(1L)
+        );
+
+        assertEquals("Book has already been returned", exception.getMessage());
+        verify(bookRepository, never()).incrementAvailableQuantity(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
     @Test
     void returnBook_AlreadyReturned() { // sprawdzenie czy obsługuje próbę zwrotu już zwróconej książki
         BookLoan returnedLoan = BookLoan.builder()
@@ -388,33 +597,33 @@ public class BookLoanServiceTest {
         );
 
         assertEquals("Book has already been returned", exception.getMessage());
-        verify(bookRepository, never()).save(any());
-        verify(bookLoanRepository, never()).save(any());
+        verify(bookRepository, never()).incrementAvailableQuantity(any());
+        verify(bookLoanRepository, never()).markReturned(any(), any());
     }
 
     @Test
-    void hasActiveLoan_True() { // sprawdzenie czy wykrywa aktywne wypożyczenie
-        when(bookLoanRepository.findByUserAndReturned(user, false)).thenReturn(List.of(loan));
-        when(bookLoanRepository.findByBookAndReturned(book, false)).thenReturn(List.of(loan));
+    void flagOverdueLoans_Success() { // sprawdzenie czy oznacza przeterminowane wypożyczenia partiami
+        ReflectionTestUtils.setField(bookLoanService, "overdueBatchSize", 2);
+        when(bookLoanRepository.flagOverdueLoans(now, 2)).thenReturn(2, 0);
 
-        boolean result = bookLoanService.hasActiveLoan(user, book);
+        int result = bookLoanService.flagOverdueLoans(now);
 
-        assertTrue(result);
+        assertEquals(2, result);
+        verify(bookLoanRepository, times(2)).flagOverdueLoans(now, 2);
     }
 
     @Test
-    void hasActiveLoan_False_NoUserLoans() { // sprawdzenie czy obsługuje brak aktywnych wypożyczeń użytkownika
-        when(bookLoanRepository.findByUserAndReturned(user, false)).thenReturn(Collections.emptyList());
+    void hasActiveLoan_True() { // sprawdzenie czy wykrywa aktywne wypożyczenie
+        when(bookLoanRepository.existsByUserAndBookAndReturnedFalse(user, book)).thenReturn(true);
 
         boolean result = bookLoanService.hasActiveLoan(user, book);
 
-        assertFalse(result);
+        assertTrue(result);
     }
 
     @Test
-    void hasActiveLoan_False_NoBookLoans() { // sprawdzenie czy obsługuje brak aktywnych wypożyczeń książki
-        when(bookLoanRepository.findByUserAndReturned(user, false)).thenReturn(List.of(loan));
-        when(bookLoanRepository.findByBookAndReturned(book, false)).thenReturn(Collections.emptyList());
+    void hasActiveLoan_False() { // sprawdzenie czy obsługuje brak aktywnego wypożyczenia tej książki przez użytkownika
+        when(bookLoanRepository.existsByUserAndBookAndReturnedFalse(user, book)).thenReturn(false);
 
         boolean result = bookLoanService.hasActiveLoan(user, book);
 
@@ -429,4 +638,81 @@ public class BookLoanServiceTest {
 
         assertEquals(3L, result);
     }
+
+    @Test
+    void exportAllLoans_Success() { // sprawdzenie czy eksportuje wszystkie wypożyczenia strumieniowo jako podsumowania
+        when(bookLoanRepository.streamAllSummaries()).thenReturn(Stream.of(loanSummary));
+        List<BookLoanSummary> exported = new ArrayList<>();
+
+        bookLoanService.exportAllLoans(exported::add);
+
+        assertEquals(List.of(loanSummary), exported);
+    }
+
+    @Test
+    void returnBooks_ReportsReturnedAlreadyReturnedAndMissing() { // sprawdzenie czy zwrot wielu książek raportuje zwrócone, wcześniej zwrócone i nieistniejące wypożyczenia
+        when(bookLoanRepository.returnLoans(eq(Set.of(1L, 2L, 3L, 4L)), any(LocalDateTime.class)))
+                .thenReturn(List.of(returnedLoan(1L, 10L), returnedLoan(3L, 10L)));
+        when(bookLoanRepository.findExistingIds(List.of(2L, 4L))).thenReturn(List.of(2L));
+
+        LoanReturnReport result = bookLoanService.returnBooks(List.of(1L, 2L, 3L, 4L, 1L));
+
+        assertEquals(List.of(1L, 3L), result.getReturned());
+        assertEquals(List.of(2L), result.getAlreadyReturned());
+        assertEquals(List.of(4L), result.getNotFound());
+        verify(eventPublisher).publishEvent(BookChangedEvent.stock(10L));
+    }
+
+    @Test
+    void returnBooks_NothingReturned() { // sprawdzenie czy zwrot wielu książek nie publikuje zdarzenia gdy nic nie zwrócono
+        when(bookLoanRepository.returnLoans(eq(Set.of(2L)), any(LocalDateTime.class))).thenReturn(List.of());
+        when(bookLoanRepository.findExistingIds(List.of(2L))).thenReturn(List.of(2L));
+
+        LoanReturnReport result = bookLoanService.returnBooks(List.of(2L));
+
+        assertEquals(List.of(), result.getReturned());
+        assertEquals(List.of(2L), result.getAlreadyReturned());
+        assertEquals(List.of(), result.getNotFound());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void returnBooks_AllReturned() { // sprawdzenie czy zwrot wielu książek pomija sprawdzanie istnienia gdy wszystkie zostały zwrócone
+        when(bookLoanRepository.returnLoans(eq(Set.of(1L)), any(LocalDateTime.class))).thenReturn(List.of(returnedLoan(1L, 10L)));
+
+        LoanReturnReport result = bookLoanService.returnBooks(List.of(1L));
+
+        assertEquals(List.of(1L), result.getReturned());
+        verify(bookLoanRepository, never()).findExistingIds(any());
+    }
+
+    @Test
+    void returnBooks_InvalidLoanList() { // sprawdzenie czy zwrot wielu książek odrzuca pustą i zbyt długą listę
+        ReflectionTestUtils.setField(bookLoanService, "returnMaxLoans", 2);
+
+        assertEquals("No loans to return", assertThrows(IllegalArgumentException.class,
+                () -> bookLoanService.returnBooks(List.of())).getMessage());
+        assertEquals("Too many loans in one return", assertThrows(IllegalArgumentException.class,
+                () -> bookLoanService.returnBooks(List.of(1L, 2L, 3L))).getMessage());
+        verifyNoInteractions(bookLoanRepository);
+    }
+
+    private static ReturnedLoan returnedLoan(Long loanId, Long bookId) {
+        return new ReturnedLoan() {
+            @Override
+            public Long getLoanId() {
+                return loanId;
+            }
+
+            @Override
+            public Long getBookId() {
+                return bookId;
+            }
+        };
+    }
+
+    private static DataIntegrityViolationException violation(String constraint) {
+        return new DataIntegrityViolationException("constraint violation",
+                new ConstraintViolationException("constraint violation", null, constraint));
+    }
 }
@@ -1,25 +1,39 @@
 package org.example.service;
 
+import org.example.dto.BookReservationSummary;
+import org.example.dto.ReleasedStock;
 import org.example.entity.Book;
 import org.example.entity.BookReservation;
 import org.example.entity.User;
+import org.example.event.BookChangedEvent;
 import org.example.repository.BookRepository;
 import org.example.repository.BookReservationRepository;
 import org.example.repository.UserRepository;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,12 +48,19 @@ public class BookReservationServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransactionOperations transactionOperations;
+
     @InjectMocks
     private BookReservationService bookReservationService;
 
     private User user;
     private Book book;
     private BookReservation reservation;
+    private BookReservationSummary reservationSummary;
     private LocalDateTime now;
     private LocalDateTime expirationDate;
 
@@ -71,14 +92,27 @@ public class BookReservationServiceTest {
                 .expirationDate(expirationDate)
                 .active(true)
                 .build();
+
+        reservationSummary = BookReservationSummary.builder()
+                .id(1L)
+                .userId(1L)
+                .username("testUser")
+                .bookId(1L)
+                .title("Test Book")
+                .author("Test Author")
+                .reservationDate(now)
+                .expirationDate(expirationDate)
+                .active(true)
+                .build();
     }
 
     @Test
     void createReservation_Success() { // sprawdzenie czy tworzy rezerwację
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
-        when(bookReservationRepository.findByUserAndActive(user, true)).thenReturn(List.of());
-        when(bookReservationRepository.save(any(BookReservation.class))).thenReturn(reservation);
+        when(bookReservationRepository.existsByUserAndBookAndActiveTrue(user, book)).thenReturn(false);
+        when(bookRepository.decrementAvailableQuantity(1L)).thenReturn(1);
+        when(bookReservationRepository.saveAndFlush(any(BookReservation.class))).thenReturn(reservation);
 
         BookReservation result = bookReservationService.createReservation(1L, 1L, expirationDate);
 
@@ -88,7 +122,9 @@ public class BookReservationServiceTest {
         assertEquals(book, result.getBook());
         assertTrue(result.isActive());
 
-        verify(bookRepository).save(book);
+        verify(bookRepository).decrementAvailableQuantity(1L);
+        verify(bookRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(BookChangedEvent.stock(1L));
         assertEquals(2, book.getAvailableQuantity());
     }
 
@@ -103,7 +139,7 @@ public class BookReservationServiceTest {
 
         assertEquals("User not found", exception.getMessage());
         verify(bookRepository, never()).save(any());
-        verify(bookReservationRepository, never()).save(any());
+        verify(bookReservationRepository, never()).saveAndFlush(any());
     }
 
     @Test
@@ -118,7 +154,7 @@ public class BookReservationServiceTest {
 
         assertEquals("Book not found", exception.getMessage());
         verify(bookRepository, never()).save(any());
-        verify(bookReservationRepository, never()).save(any());
+        verify(bookReservationRepository, never()).saveAndFlush(any());
     }
 
     @Test
@@ -133,6 +169,7 @@ public class BookReservationServiceTest {
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(bookRepository.findById(1L)).thenReturn(Optional.of(unavailableBook));
+        when(bookRepository.decrementAvailableQuantity(1L)).thenReturn(0);
 
         IllegalStateException exception = assertThrows(
                 IllegalStateException.class,
@@ -141,15 +178,30 @@ public class BookReservationServiceTest {
 
         assertEquals("Book is not available for reservation", exception.getMessage());
         verify(bookRepository, never()).save(any());
-        verify(bookReservationRepository, never()).save(any());
+        verify(bookReservationRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void createReservation_ActiveReservationCreatedConcurrently() { // sprawdzenie czy obsługuje naruszenie unikalności aktywnej rezerwacji
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(bookReservationRepository.existsByUserAndBookAndActiveTrue(user, book)).thenReturn(false);
+        when(bookRepository.decrementAvailableQuantity(1L)).thenReturn(1);
+        when(bookReservationRepository.saveAndFlush(any(BookReservation.class))).thenThrow(violation("uq_book_reservations_active_user_book"));
+
+        IllegalStateException exception = assertThrows(
+                IllegalStateException.class,
+                () -> bookReservationService.createReservation(1L, 1L, expirationDate)
+        );
+
+        assertEquals("User already has an active reservation for this book", exception.getMessage());
     }
 
     @Test
     void createReservation_UserAlreadyHasActiveReservation() { // sprawdzenie czy obsługuje sytuację gdy użytkownik ma już aktywną rezerwację
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
-        when(bookReservationRepository.findByUserAndActive(user, true)).thenReturn(List.of(reservation));
-        when(bookReservationRepository.findByBookAndActive(book, true)).thenReturn(List.of(reservation));
+        when(bookReservationRepository.existsByUserAndBookAndActiveTrue(user, book)).thenReturn(true);
 
         IllegalStateException exception = assertThrows(
                 IllegalStateException.class,
@@ -158,7 +210,7 @@ public class BookReservationServiceTest {
 
         assertEquals("User already has an active reservation for this book", exception.getMessage());
         verify(bookRepository, never()).save(any());
-        verify(bookReservationRepository, never()).save(any());
+        verify(bookReservationRepository, never()).saveAndFlush(any());
     }
 
     @Test
@@ -182,60 +234,70 @@ public class BookReservationServiceTest {
 
     @Test
     void findByUser_Success() { // sprawdzenie czy znajduje rezerwacje użytkownika
-        List<BookReservation> reservations = List.of(reservation);
-        when(bookReservationRepository.findByUser(user)).thenReturn(reservations);
+        List<BookReservationSummary> reservations = List.of(reservationSummary);
+        when(bookReservationRepository.findSummariesByUser(user)).thenReturn(reservations);
 
-        List<BookReservation> result = bookReservationService.findByUser(user);
+        List<BookReservationSummary> result = bookReservationService.findByUser(user);
 
         assertEquals(reservations, result);
     }
 
     @Test
     void findByBook_Success() { // sprawdzenie czy znajduje rezerwacje książki
-        List<BookReservation> reservations = List.of(reservation);
-        when(bookReservationRepository.findByBook(book)).thenReturn(reservations);
+        List<BookReservationSummary> reservations = List.of(reservationSummary);
+        when(bookReservationRepository.findSummariesByBook(book)).thenReturn(reservations);
 
-        List<BookReservation> result = bookReservationService.findByBook(book);
+        List<BookReservationSummary> result = bookReservationService.findByBook(book);
 
         assertEquals(reservations, result);
     }
 
     @Test
     void findActiveReservationsByUser_Success() { // sprawdzenie czy znajduje aktywne rezerwacje użytkownika
-        List<BookReservation> reservations = List.of(reservation);
-        when(bookReservationRepository.findByUserAndActive(user, true)).thenReturn(reservations);
+        List<BookReservationSummary> reservations = List.of(reservationSummary);
+        when(bookReservationRepository.findSummariesByUserAndActive(user, true)).thenReturn(reservations);
 
-        List<BookReservation> result = bookReservationService.findActiveReservationsByUser(user);
+        List<BookReservationSummary> result = bookReservationService.findActiveReservationsByUser(user);
 
         assertEquals(reservations, result);
     }
 
     @Test
     void findActiveReservationsByBook_Success() { // sprawdzenie czy znajduje aktywne rezerwacje książki
-        List<BookReservation> reservations = List.of(reservation);
-        when(bookReservationRepository.findByBookAndActive(book, true)).thenReturn(reservations);
+        List<BookReservationSummary> reservations = List.of(reservationSummary);
+        when(bookReservationRepository.findSummariesByBookAndActive(book, true)).thenReturn(reservations);
 
-        List<BookReservation> result = bookReservationService.findActiveReservationsByBook(book);
+        List<BookReservationSummary> result = bookReservationService.findActiveReservationsByBook(book);
+
+        assertEquals(reservations, result);
+    }
+
+    @Test
+    void findActiveReservations_Success() { // sprawdzenie czy znajduje wszystkie aktywne rezerwacje
+        List<BookReservationSummary> reservations = List.of(reservationSummary);
+        when(bookReservationRepository.findSummariesByActive(true)).thenReturn(reservations);
+
+        List<BookReservationSummary> result = bookReservationService.findActiveReservations();
 
         assertEquals(reservations, result);
     }
 
     @Test
     void findAllReservations_Success() { // sprawdzenie czy znajduje wszystkie rezerwacje
-        List<BookReservation> reservations = List.of(reservation);
-        when(bookReservationRepository.findAll()).thenReturn(reservations);
+        List<BookReservationSummary> reservations = List.of(reservationSummary);
+        when(bookReservationRepository.findAllSummaries()).thenReturn(reservations);
 
-        List<BookReservation> result = bookReservationService.findAllReservations();
+        List<BookReservationSummary> result = bookReservationService.findAllReservations();
 
         assertEquals(reservations, result);
     }
 
     @Test
     void findExpiredReservations_Success() { // sprawdzenie czy znajduje wygasłe rezerwacje
-        List<BookReservation> reservations = List.of(reservation);
+        List<BookReservationSummary> reservations = List.of(reservationSummary);
         when(bookReservationRepository.findExpiredReservations(any(LocalDateTime.class))).thenReturn(reservations);
 
-        List<BookReservation> result = bookReservationService.findExpiredReservations();
+        List<BookReservationSummary> result = bookReservationService.findExpiredReservations();
 
         assertEquals(reservations, result);
     }
@@ -243,15 +305,33 @@ public class BookReservationServiceTest {
     @Test
     void cancelReservation_Success() { // sprawdzenie czy anuluje rezerwację
         when(bookReservationRepository.findById(1L)).thenReturn(Optional.of(reservation));
+        when(bookReservationRepository.deactivate(1L)).thenReturn(1);
+        when(bookRepository.incrementAvailableQuantity(1L)).thenReturn(1);
 
         bookReservationService.cancelReservation(1L);
 
         assertFalse(reservation.isActive());
-        verify(bookReservationRepository).save(reservation);
-        verify(bookRepository).save(book);
+        verify(bookReservationRepository).deactivate(1L);
+        verify(bookReservationRepository, never()).save(any());
+        verify(bookRepository).incrementAvailableQuantity(1L);
+        verify(bookRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(BookChangedEvent.stock(1L));
         assertEquals(4, book.getAvailableQuantity());
     }
 
+    @Test
+    void cancelReservation_StockAlreadyFull() { // sprawdzenie czy anulowanie nie przekracza całkowitej liczby egzemplarzy
+        when(bookReservationRepository.findById(1L)).thenReturn(Optional.of(reservation));
+        when(bookReservationRepository.deactivate(1L)).thenReturn(1);
+        when(bookRepository.incrementAvailableQuantity(1L)).thenReturn(0);
+
+        bookReservationService.cancelReservation(1L);
+
+        assertFalse(reservation.isActive());
+        assertEquals(3, book.getAvailableQuantity());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
     @Test
     void cancelReservation_NotFound() { // sprawdzenie czy obsługuje brak rezerwacji podczas anulowania
         when(bookReservationRepository.findById(1L)).thenReturn(Optional.empty());
@@ -262,8 +342,23 @@ public class BookReservationServiceTest {
         );
 
         assertEquals("Reservation not found", exception.getMessage());
-        verify(bookReservationRepository, never()).save(any());
-        verify(bookRepository, never()).save(any());
+        verify(bookReservationRepository, never()).deactivate(any());
+        verify(bookRepository, never()).incrementAvailableQuantity(any());
+    }
+
+    @Test
+    void cancelReservation_ConcurrentlyCancelled() { // sprawdzenie czy równoległe anulowanie tej samej rezerwacji nie zwiększa stanu dwukrotnie
+        when(bookReservationRepository.findById(1L)).thenReturn(Optional.of(reservation));
+        when(bookReservationRepository.deactivate(1L)).thenReturn(0);
+
+        IllegalStateException exception = assertThrows(
+                IllegalStateException.class,
+                () -> bookReservationService.cancelReservation(1L)
+        );
+
+        assertEquals("Reservation is not active", exception.getMessage());
+        verify(bookRepository, never()).incrementAvailableQuantity(any());
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -285,65 +380,66 @@ public class BookReservationServiceTest {
         );
 
         assertEquals("Reservation is not active", exception.getMessage());
-        verify(bookReservationRepository, never()).save(any());
-        verify(bookRepository, never()).save(any());
+        verify(bookReservationRepository, never()).deactivate(any());
+        verify(bookRepository, never()).incrementAvailableQuantity(any());
     }
 
     @Test
-    void processExpiredReservations_Success() { // sprawdzenie czy przetwarza wygasłe rezerwacje
-        BookReservation expiredReservation1 = BookReservation.builder()
-                .id(1L)
-                .user(user)
-                .book(book)
-                .reservationDate(now.minusDays(10))
-                .expirationDate(now.minusDays(3))
-                .active(true)
-                .build();
+    void processExpiredReservations_Success() { // sprawdzenie czy wygasza rezerwacje partiami aż do wyczerpania zaległości
+        ReflectionTestUtils.setField(bookReservationService, "expiryBatchSize", 2);
+        runInTransaction();
+        when(bookReservationRepository.expireReservations(any(LocalDateTime.class), eq(2))).thenReturn(List.of(released(1L, 2)))
+                .thenReturn(List.of(released(1L, 1), released(2L, 1)))
+                .thenReturn(List.of(released(3L, 1)));
 
-        BookReservation expiredReservation2 = BookReservation.builder()
-                .id(2L)
-                .user(user)
-                .book(book)
-                .reservationDate(now.minusDays(8))
-                .expirationDate(now.minusDays(1))
-                .active(true)
-                .build();
+        int result = bookReservationService.processExpiredReservations();
 
-        List<BookReservation> expiredReservations = Arrays.asList(expiredReservation1, expiredReservation2);
+        assertEquals(5, result);
+        verify(bookReservationRepository, times(3)).expireReservations(any(LocalDateTime.class), eq(2));
+        verify(bookReservationRepository, never()).save(any());
+        verify(bookRepository, never()).incrementAvailableQuantity(any());
+        verify(eventPublisher).publishEvent(BookChangedEvent.stock(Set.of(1L, 2L)));
+        verify(eventPublisher).publishEvent(BookChangedEvent.stock(Set.of(3L)));
+        verify(bookRepository).lockCachedBooks(List.of(1L, 2L));
+    }
 
-        when(bookReservationRepository.findExpiredReservations(any(LocalDateTime.class))).thenReturn(expiredReservations);
-        when(bookReservationRepository.findById(1L)).thenReturn(Optional.of(expiredReservation1));
-        when(bookReservationRepository.findById(2L)).thenReturn(Optional.of(expiredReservation2));
+    @Test
+    void processExpiredReservations_NothingExpired() { // sprawdzenie czy kończy po pierwszej pustej partii
+        ReflectionTestUtils.setField(bookReservationService, "expiryBatchSize", 2);
+        runInTransaction();
+        when(bookReservationRepository.expireReservations(any(LocalDateTime.class), eq(2))).thenReturn(List.of());
 
-        bookReservationService.processExpiredReservations();
+        int result = bookReservationService.processExpiredReservations();
 
-        verify(bookReservationRepository, times(2)).save(any(BookReservation.class));
-        verify(bookRepository, times(2)).save(book);
+        assertEquals(0, result);
+        verify(bookReservationRepository).expireReservations(any(LocalDateTime.class), eq(2));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
-    void hasActiveReservation_True() { // sprawdzenie czy wykrywa aktywną rezerwację
-        when(bookReservationRepository.findByUserAndActive(user, true)).thenReturn(List.of(reservation));
-        when(bookReservationRepository.findByBookAndActive(book, true)).thenReturn(List.of(reservation));
+    void processExpiredReservations_Until() { // sprawdzenie czy wygasza rezerwacje wygasłe przed podaną chwilą
+        ReflectionTestUtils.setField(bookReservationService, "expiryBatchSize", 2);
+        runInTransaction();
+        when(bookReservationRepository.expireReservations(now, 2)).thenReturn(List.of(released(1L, 1)));
 
-        boolean result = bookReservationService.hasActiveReservation(user, book);
+        int result = bookReservationService.processExpiredReservations(now);
 
-        assertTrue(result);
+        assertEquals(1, result);
+        verify(bookReservationRepository).expireReservations(now, 2);
     }
 
     @Test
-    void hasActiveReservation_False_NoUserReservations() { // sprawdzenie czy obsługuje brak aktywnych rezerwacji użytkownika
-        when(bookReservationRepository.findByUserAndActive(user, true)).thenReturn(List.of());
+    void hasActiveReservation_True() { // sprawdzenie czy wykrywa aktywną rezerwację
+        when(bookReservationRepository.existsByUserAndBookAndActiveTrue(user, book)).thenReturn(true);
 
         boolean result = bookReservationService.hasActiveReservation(user, book);
 
-        assertFalse(result);
+        assertTrue(result);
     }
 
     @Test
-    void hasActiveReservation_False_NoBookReservations() { // sprawdzenie czy obsługuje brak aktywnych rezerwacji książki
-        when(bookReservationRepository.findByUserAndActive(user, true)).thenReturn(List.of(reservation));
-        when(bookReservationRepository.findByBookAndActive(book, true)).thenReturn(List.of());
+    void hasActiveReservation_False() { // sprawdzenie czy obsługuje brak aktywnej rezerwacji tej książki przez użytkownika
+        when(bookReservationRepository.existsByUserAndBookAndActiveTrue(user, book)).thenReturn(false);
 
         boolean result = bookReservationService.hasActiveReservation(user, book);
 
@@ -358,4 +454,38 @@ public class BookReservationServiceTest {
 
         assertEquals(3L, result);
     }
+
+    @Test
+    void exportAllReservations_Success() { // sprawdzenie czy eksportuje wszystkie rezerwacje strumieniowo jako podsumowania
+        when(bookReservationRepository.streamAllSummaries()).thenReturn(Stream.of(reservationSummary));
+        List<BookReservationSummary> exported = new ArrayList<>();
+
+        bookReservationService.exportAllReservations(exported::add);
+
+        assertEquals(List.of(reservationSummary), exported);
+    }
+
+    private void runInTransaction() {
+        when(transactionOperations.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    private static ReleasedStock released(Long bookId, int count) {
+        return new ReleasedStock() {
+            @Override
+            public Long getBookId() {
+                return bookId;
+            }
+
+            @Override
+            public Integer getReleased() {
+                return count;
+            }
+        };
+    }
+
+    private static DataIntegrityViolationException violation(String constraint) {
+        return new DataIntegrityViolationException("constraint violation",
+                new ConstraintViolationException("constraint violation", null, constraint));
+    }
 }
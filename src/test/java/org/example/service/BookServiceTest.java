@@ -1,15 +1,30 @@
 package org.example.service;
 
+import org.example.dto.BookFacets;
+import org.example.dto.BookFuzzyMatch;
+import org.example.dto.BookPage;
+import org.example.dto.BookSearchHit;
+import org.example.dto.BookSearchPage;
+import org.example.dto.BookSnapshot;
+import org.example.dto.BookSuggestion;
 import org.example.entity.Book;
+import org.example.event.BookChangedEvent;
 import org.example.repository.BookLoanRepository;
 import org.example.repository.BookRepository;
 import org.example.repository.BookReservationRepository;
+import org.example.search.BookFacetIndex;
+import org.example.search.BookSearchIndex;
+import org.example.search.BookSuggestionIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Arrays;
 import java.util.List;
@@ -17,6 +32,8 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,13 +48,26 @@ public class BookServiceTest {
     @Mock
     private BookReservationRepository bookReservationRepository;
 
-    @InjectMocks
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ObjectProvider<BookSearchIndex> bookSearchIndex;
+
+    @Mock
+    private ObjectProvider<BookSuggestionIndex> bookSuggestionIndex;
+
+    @Mock
+    private ObjectProvider<BookFacetIndex> bookFacetIndex;
+
     private BookService bookService;
 
     private Book book;
 
     @BeforeEach
     void setUp() {
+        bookService = new BookService(bookRepository, bookLoanRepository, bookReservationRepository,
+                eventPublisher, bookSearchIndex, bookSuggestionIndex, bookFacetIndex);
         book = Book.builder()
                 .id(1L)
                 .title("Test Book")
@@ -57,6 +87,7 @@ public class BookServiceTest {
         assertNotNull(result);
         assertEquals(book, result);
         assertEquals(3, result.getAvailableQuantity());
+        verify(eventPublisher).publishEvent(BookChangedEvent.of(1L));
     }
 
     @Test
@@ -108,23 +139,303 @@ public class BookServiceTest {
     }
 
     @Test
-    void findAllBooks_Success() { // sprawdzenie czy pobiera wszystkie książki
-        List<Book> books = Arrays.asList(
-                book,
-                Book.builder()
-                        .id(2L)
-                        .title("Another Book")
-                        .author("Another Author")
-                        .quantity(3)
-                        .availableQuantity(2)
-                        .build()
+    void findSnapshotById_CopiesBook() { // sprawdzenie czy zwraca niezależną kopię książki
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+
+        Optional<BookSnapshot> result = bookService.findSnapshotById(1L);
+        book.setAvailableQuantity(0);
+
+        assertTrue(result.isPresent());
+        assertEquals(book.getId(), result.get().getId());
+        assertEquals(book.getTitle(), result.get().getTitle());
+        assertEquals(3, result.get().getAvailableQuantity());
+    }
+
+    @Test
+    void findBooksPage_FirstPage() { // sprawdzenie czy pobiera pierwszą stronę książek i zwraca kursor
+        Book book2 = Book.builder()
+                .id(2L)
+                .title("Another Book")
+                .author("Another Author")
+                .quantity(3)
+                .availableQuantity(2)
+                .build();
+        when(bookRepository.findPageAfter(0L, PageRequest.of(0, 2))).thenReturn(Arrays.asList(book, book2));
+
+        BookPage result = bookService.findBooksPage(null, 2);
+
+        assertEquals(2, result.getBooks().size());
+        assertNotNull(result.getNextCursor());
+    }
+
+    @Test
+    void findBooksPage_NextPageFromCursor() { // sprawdzenie czy kursor wskazuje na książki po ostatnim identyfikatorze
+        Book book2 = Book.builder().id(2L).title("Another Book").build();
+        Book book3 = Book.builder().id(3L).title("Third Book").build();
+        when(bookRepository.findPageAfter(0L, PageRequest.of(0, 2))).thenReturn(Arrays.asList(book, book2));
+        when(bookRepository.findPageAfter(2L, PageRequest.of(0, 2))).thenReturn(List.of(book3));
+
+        String cursor = bookService.findBooksPage(null, 2).getNextCursor();
+        BookPage result = bookService.findBooksPage(cursor, 2);
+
+        assertEquals(List.of(book3), result.getBooks());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void findBooksPage_LimitsPageSize() { // sprawdzenie czy ogranicza rozmiar strony
+        when(bookRepository.findPageAfter(0L, PageRequest.of(0, BookService.MAX_PAGE_SIZE))).thenReturn(List.of(book));
+
+        BookPage result = bookService.findBooksPage("", 10_000);
+
+        assertEquals(1, result.getBooks().size());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void findBooksPage_InvalidSize() { // sprawdzenie czy odrzuca niepoprawny rozmiar strony
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> bookService.findBooksPage(null, 0)
         );
-        when(bookRepository.findAll()).thenReturn(books);
 
-        List<Book> result = bookService.findAllBooks();
+        assertEquals("Page size must be positive", exception.getMessage());
+        verify(bookRepository, never()).findPageAfter(any(), any());
+    }
+
+    @Test
+    void findBooksPage_InvalidCursor() { // sprawdzenie czy odrzuca niepoprawny kursor
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> bookService.findBooksPage("not-a-cursor!", 10)
+        );
+
+        assertEquals("Invalid cursor", exception.getMessage());
+    }
+
+    @Test
+    void searchBooks_BuildsPrefixQuery() { // sprawdzenie czy zapytanie jest zamieniane na koniunkcję słów z prefiksem ostatniego
+        when(bookRepository.search("lalka & prus:*", 1.0f, 0L, 20)).thenReturn(List.of(hit(1L, 0.5f)));
+
+        BookSearchPage result = bookService.searchBooks("  Lalka, PRUS! ", null, 20);
+
+        assertEquals(1, result.getHits().size());
+        assertEquals("Lalka", result.getHits().get(0).getTitle());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void searchBooks_KeepsPolishLettersAndLimitsTerms() { // sprawdzenie czy zachowuje polskie litery i ogranicza liczbę słów
+        when(bookRepository.search("żółć & a & b & c & d & e & f & g:*", 1.0f, 0L, BookService.MAX_PAGE_SIZE)).thenReturn(List.of());
+
+        BookSearchPage result = bookService.searchBooks("Żółć a b c d e f g h i", null, 10_000);
+
+        assertTrue(result.getHits().isEmpty());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void searchBooks_NextPageFromCursor() { // sprawdzenie czy kursor przenosi wynik i identyfikator ostatniej książki
+        when(bookRepository.search("prus:*", 1.0f, 0L, 2)).thenReturn(List.of(hit(7L, 0.25f), hit(3L, 0.125f)));
+        when(bookRepository.search("prus:*", 0.125f, 3L, 2)).thenReturn(List.of(hit(9L, 0.125f)));
+
+        String cursor = bookService.searchBooks("prus", null, 2).getNextCursor();
+        BookSearchPage result = bookService.searchBooks("prus", cursor, 2);
+
+        assertNotNull(cursor);
+        assertEquals(9L, result.getHits().get(0).getId());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void searchBooks_EmptyQuery() { // sprawdzenie czy odrzuca zapytanie bez słów
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> bookService.searchBooks(" &!: ", null, 20)
+        );
+
+        assertEquals("Search query is empty", exception.getMessage());
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void searchBooks_InvalidCursor() { // sprawdzenie czy odrzuca kursor listy książek i niepoprawny kursor
+        assertEquals("Invalid cursor", assertThrows(IllegalArgumentException.class,
+                () -> bookService.searchBooks("prus", "not-a-cursor!", 20)).getMessage());
+        assertEquals("Invalid cursor", assertThrows(IllegalArgumentException.class,
+                () -> bookService.searchBooks("prus", "Ym9vazoy", 20)).getMessage());
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void searchIndex_PagesMatchesFromIndex() { // sprawdzenie czy wyniki indeksu są stronicowane po identyfikatorze
+        BookSearchIndex index = mock(BookSearchIndex.class);
+        Book book2 = Book.builder().id(2L).title("Another Book").build();
+        Book book4 = Book.builder().id(4L).title("Fourth Book").build();
+        when(bookSearchIndex.getIfAvailable()).thenReturn(index);
+        when(index.isReady()).thenReturn(true);
+        when(index.search("book", BookSearchIndex.Operator.OR, true)).thenReturn(RoaringBitmap.bitmapOf(1, 2, 4));
+        when(bookRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(book2, book));
+        when(bookRepository.findAllById(List.of(4L))).thenReturn(List.of(book4));
+
+        BookPage first = bookService.searchIndex("book", "or", true, null, 2);
+        BookPage second = bookService.searchIndex("book", "OR", true, first.getNextCursor(), 2);
+
+        assertEquals(List.of(book, book2), first.getBooks());
+        assertNotNull(first.getNextCursor());
+        assertEquals(List.of(book4), second.getBooks());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void searchIndex_Disabled() { // sprawdzenie czy zgłasza błąd gdy indeks w pamięci jest wyłączony
+        IllegalStateException exception = assertThrows(
+                IllegalStateException.class,
+                () -> bookService.searchIndex("prus", "AND", false, null, 20)
+        );
+
+        assertEquals("Search index is disabled", exception.getMessage());
+    }
+
+    @Test
+    void searchIndex_UnknownOperator() { // sprawdzenie czy odrzuca nieznany operator
+        BookSearchIndex index = mock(BookSearchIndex.class);
+        when(bookSearchIndex.getIfAvailable()).thenReturn(index);
+        when(index.isReady()).thenReturn(true);
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> bookService.searchIndex("prus", "XOR", false, null, 20)
+        );
+
+        assertEquals("Unknown operator: XOR", exception.getMessage());
+        verify(index, never()).search(any(), any(), anyBoolean());
+    }
+
+    @Test
+    void suggestBooks_UsesSuggestionIndex() { // sprawdzenie czy podpowiedzi pochodzą z indeksu podpowiedzi
+        BookSuggestionIndex index = mock(BookSuggestionIndex.class);
+        BookSuggestion suggestion = BookSuggestion.builder().text("Lalka").type(BookSuggestion.Type.TITLE).books(1).loans(3).build();
+        when(bookSuggestionIndex.getIfAvailable()).thenReturn(index);
+        when(index.isReady()).thenReturn(true);
+        when(index.suggest("la", BookSuggestionIndex.MAX_SUGGESTIONS)).thenReturn(List.of(suggestion));
+
+        assertEquals(List.of(suggestion), bookService.suggestBooks("la"));
+        verifyNoInteractions(bookSearchIndex);
+    }
+
+    @Test
+    void suggestBooks_NotReady() { // sprawdzenie czy zgłasza błąd przed zbudowaniem indeksu podpowiedzi
+        BookSuggestionIndex index = mock(BookSuggestionIndex.class);
+        when(bookSuggestionIndex.getIfAvailable()).thenReturn(index);
+
+        IllegalStateException exception = assertThrows(
+                IllegalStateException.class,
+                () -> bookService.suggestBooks("la")
+        );
+
+        assertEquals("Suggestions are not ready", exception.getMessage());
+    }
+
+    @Test
+    void findSimilar_RanksByEditDistance() { // sprawdzenie czy podobne książki są filtrowane i sortowane według liczby literówek
+        ReflectionTestUtils.setField(bookService, "searchMaxCandidates", 2000);
+        ReflectionTestUtils.setField(bookService, "fuzzySimilarityThreshold", 0.4);
+        when(bookRepository.findSimilar("sienkiewic", 2000)).thenReturn(List.of(
+                hit(3L, "Siekiera", "Anna Kot", 0.45f),
+                hit(2L, "Ulica Sienkiewicza", "Jan Nowak", 0.8f),
+                hit(1L, "Potop", "Henryk Sienkiewicz", 0.9f)));
+
+        List<BookFuzzyMatch> result = bookService.findSimilar("Sienkiewic", 20);
 
         assertEquals(2, result.size());
-        assertEquals(books, result);
+        assertEquals(1L, result.get(0).getId());
+        assertEquals(BookFuzzyMatch.Field.AUTHOR, result.get(0).getField());
+        assertEquals(1, result.get(0).getDistance());
+        assertEquals(2L, result.get(1).getId());
+        assertEquals(BookFuzzyMatch.Field.TITLE, result.get(1).getField());
+        assertEquals(2, result.get(1).getDistance());
+        verify(bookRepository).setSimilarityThreshold("0.4");
+    }
+
+    @Test
+    void findSimilar_FoldsPolishLettersAndLimitsSize() { // sprawdzenie czy zapytanie bez polskich znaków znajduje tytuł i czy wynik jest przycięty
+        when(bookRepository.findSimilar("lodz", 0)).thenReturn(List.of(
+                hit(5L, "Łódź nocą", "Jan Nowak", 0.6f),
+                hit(4L, "Lodzi", "Anna Kot", 0.5f)));
+
+        List<BookFuzzyMatch> result = bookService.findSimilar("LODZ!", 1);
+
+        assertEquals(1, result.size());
+        assertEquals(5L, result.get(0).getId());
+        assertEquals(0, result.get(0).getDistance());
+    }
+
+    @Test
+    void findSimilar_ShortQuery() { // sprawdzenie czy odrzuca zbyt krótkie zapytanie
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> bookService.findSimilar(" a! ", 20)
+        );
+
+        assertEquals("Query must have at least 3 characters", exception.getMessage());
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void findFacets_IntersectsSearchMatches() { // sprawdzenie czy liczniki są liczone dla wyniku wyszukiwania i wybranych wartości
+        BookFacetIndex facetIndex = mock(BookFacetIndex.class);
+        BookSearchIndex searchIndex = mock(BookSearchIndex.class);
+        RoaringBitmap matches = RoaringBitmap.bitmapOf(1, 2);
+        BookFacets facets = BookFacets.builder().total(1).build();
+        when(bookFacetIndex.getIfAvailable()).thenReturn(facetIndex);
+        when(facetIndex.isReady()).thenReturn(true);
+        when(bookSearchIndex.getIfAvailable()).thenReturn(searchIndex);
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.search("prus", BookSearchIndex.Operator.OR, false)).thenReturn(matches);
+        when(facetIndex.facets(matches, "Bolesław Prus", BookFacetIndex.Availability.RESERVED_OUT,
+                BookFacetIndex.QuantityRange.FEW, BookFacetIndex.MAX_AUTHORS)).thenReturn(facets);
+
+        BookFacets result = bookService.findFacets("prus", "or", "Bolesław Prus", "reserved_out", "2-4", 500);
+
+        assertSame(facets, result);
+    }
+
+    @Test
+    void findFacets_WithoutQuerySkipsSearchIndex() { // sprawdzenie czy bez zapytania liczniki nie wymagają indeksu wyszukiwania
+        BookFacetIndex facetIndex = mock(BookFacetIndex.class);
+        when(bookFacetIndex.getIfAvailable()).thenReturn(facetIndex);
+        when(facetIndex.isReady()).thenReturn(true);
+        when(facetIndex.facets(null, null, null, null, 20)).thenReturn(BookFacets.builder().total(7).build());
+
+        assertEquals(7, bookService.findFacets(" ", "AND", "", null, " ", 20).getTotal());
+        verifyNoInteractions(bookSearchIndex);
+    }
+
+    @Test
+    void findFacets_RejectsUnknownValues() { // sprawdzenie czy odrzuca nieznaną dostępność i wyłączone liczniki
+        BookFacetIndex facetIndex = mock(BookFacetIndex.class);
+        assertEquals("Facets are disabled", assertThrows(IllegalStateException.class,
+                () -> bookService.findFacets(null, null, null, null, null, 20)).getMessage());
+
+        when(bookFacetIndex.getIfAvailable()).thenReturn(facetIndex);
+        when(facetIndex.isReady()).thenReturn(true);
+
+        assertEquals("Unknown availability: lost", assertThrows(IllegalArgumentException.class,
+                () -> bookService.findFacets(null, null, null, "lost", null, 20)).getMessage());
+        assertEquals("Search index is disabled", assertThrows(IllegalStateException.class,
+                () -> bookService.findFacets("prus", "AND", null, null, null, 20)).getMessage());
+        verify(facetIndex, never()).facets(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void searchBooks_InvalidSize() { // sprawdzenie czy odrzuca niepoprawny rozmiar strony wyszukiwania
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> bookService.searchBooks("prus", null, 0)
+        );
+
+        assertEquals("Page size must be positive", exception.getMessage());
     }
 
     @Test
@@ -171,20 +482,46 @@ public class BookServiceTest {
                 .availableQuantity(3)
                 .build();
 
-        when(bookRepository.existsById(1L)).thenReturn(true);
-        when(bookRepository.save(any(Book.class))).thenReturn(updatedBook);
+        book.setVersion(7L);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         Book result = bookService.updateBook(updatedBook);
 
         assertNotNull(result);
-        assertEquals(updatedBook, result);
+        assertSame(book, result);
         assertEquals("Updated Title", result.getTitle());
         assertEquals("Updated Author", result.getAuthor());
+        assertEquals("Updated Description", result.getDescription());
+        assertEquals(7L, result.getVersion());
+        verify(eventPublisher).publishEvent(BookChangedEvent.of(1L));
+    }
+
+    @Test
+    void updateBook_KeepsConcurrentStockChanges() { // sprawdzenie czy aktualizacja nie nadpisuje dostępnej ilości nieaktualną wartością klienta
+        Book staleBook = Book.builder()
+                .id(1L)
+                .title("Test Book")
+                .quantity(7)
+                .availableQuantity(5)
+                .version(2L)
+                .build();
+
+        book.setAvailableQuantity(1);
+        book.setVersion(5L);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Book result = bookService.updateBook(staleBook);
+
+        assertEquals(7, result.getQuantity());
+        assertEquals(3, result.getAvailableQuantity());
+        assertEquals(5L, result.getVersion());
     }
 
     @Test
     void updateBook_NotFound() { // sprawdzenie czy obsługuje brak książki podczas aktualizacji
-        when(bookRepository.existsById(1L)).thenReturn(false);
+        when(bookRepository.findById(1L)).thenReturn(Optional.empty());
 
         IllegalArgumentException exception = assertThrows(
                 IllegalArgumentException.class,
@@ -196,33 +533,24 @@ public class BookServiceTest {
     }
 
     @Test
-    void updateBook_AdjustAvailableQuantity() { // sprawdzenie czy dostosowuje dostępną ilość podczas aktualizacji
-        Book bookWithExcessiveAvailableQuantity = Book.builder()
+    void updateBook_AdjustAvailableQuantity() { // sprawdzenie czy dostosowuje dostępną ilość podczas zmniejszenia nakładu
+        Book reducedBook = Book.builder()
                 .id(1L)
                 .title("Test Book")
                 .author("Test Author")
                 .description("Test Description")
-                .quantity(5)
+                .quantity(1)
                 .availableQuantity(10)
                 .build();
 
-        Book adjustedBook = Book.builder()
-                .id(1L)
-                .title("Test Book")
-                .author("Test Author")
-                .description("Test Description")
-                .quantity(5)
-                .availableQuantity(5)
-                .build();
-
-        when(bookRepository.existsById(1L)).thenReturn(true);
-        when(bookRepository.save(any(Book.class))).thenReturn(adjustedBook);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        Book result = bookService.updateBook(bookWithExcessiveAvailableQuantity);
+        Book result = bookService.updateBook(reducedBook);
 
         assertNotNull(result);
-        assertEquals(adjustedBook, result);
-        assertEquals(5, result.getAvailableQuantity());
+        assertEquals(1, result.getQuantity());
+        assertEquals(0, result.getAvailableQuantity());
     }
 
     @Test
@@ -232,6 +560,7 @@ public class BookServiceTest {
         bookService.deleteBook(1L);
 
         verify(bookRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(BookChangedEvent.of(1L));
     }
 
     @Test
@@ -293,4 +622,37 @@ public class BookServiceTest {
 
         assertEquals("Book not found", exception.getMessage());
     }
+
+    private static BookSearchHit hit(Long id, float score) {
+        return hit(id, "Lalka", "Bolesław Prus", score);
+    }
+
+    private static BookSearchHit hit(Long id, String title, String author, float score) {
+        return new BookSearchHit() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getTitle() {
+                return title;
+            }
+
+            @Override
+            public String getAuthor() {
+                return author;
+            }
+
+            @Override
+            public Integer getAvailableQuantity() {
+                return 1;
+            }
+
+            @Override
+            public Float getScore() {
+                return score;
+            }
+        };
+    }
 }
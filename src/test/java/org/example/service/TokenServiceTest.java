@@ -0,0 +1,151 @@
+package org.example.service;
+
+import org.example.dto.TokenResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+    @Mock
+    private AuthenticationManager authenticationManager;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    private TokenService tokenService;
+    private User reader;
+
+    @BeforeEach
+    void setUp() {
+        tokenService = tokenService(SECRET, Duration.ofMinutes(15));
+        reader = new User("reader", "$2a$10$hash", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    @Test
+    void issuedAccessTokenAuthenticatesWithoutLookup() { // sprawdzenie czy wydany token dostępu uwierzytelnia bez odczytu z bazy
+        when(userDetailsService.loadUserByUsername("reader")).thenReturn(reader);
+
+        TokenResponse tokens = tokenService.issueTokens("reader", "secret");
+        Authentication authentication = tokenService.authenticate(tokens.getAccessToken());
+
+        assertEquals("Bearer", tokens.getTokenType());
+        assertEquals(900, tokens.getExpiresIn());
+        assertNotEquals(tokens.getAccessToken(), tokens.getRefreshToken());
+        assertTrue(authentication.isAuthenticated());
+        assertEquals("reader", authentication.getName());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_USER")), List.copyOf(authentication.getAuthorities()));
+        verify(authenticationManager).authenticate(any());
+        verify(userDetailsService, times(1)).loadUserByUsername("reader");
+    }
+
+    @Test
+    void wrongPasswordIsRejected() { // sprawdzenie czy błędne hasło nie wydaje tokenów
+        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        assertThrows(BadCredentialsException.class, () -> tokenService.issueTokens("reader", "guess"));
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void tamperedTokenIsRejected() { // sprawdzenie czy zmodyfikowany token jest odrzucany
+        when(userDetailsService.loadUserByUsername("reader")).thenReturn(reader);
+        String token = tokenService.issueTokens("reader", "secret").getAccessToken();
+        String forged = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("access\n9999999999\n\nROLE_ADMIN\nreader".getBytes()) + token.substring(token.indexOf('.'));
+
+        assertThrows(BadCredentialsException.class, () -> tokenService.authenticate(forged));
+        assertThrows(BadCredentialsException.class, () -> tokenService.authenticate("not-a-token"));
+        assertThrows(BadCredentialsException.class, () -> tokenService.authenticate(token + "x"));
+    }
+
+    @Test
+    void tokenSignedWithOtherSecretIsRejected() { // sprawdzenie czy token podpisany innym kluczem jest odrzucany
+        when(userDetailsService.loadUserByUsername("reader")).thenReturn(reader);
+        byte[] otherKey = new byte[32];
+        otherKey[0] = 1;
+        String token = tokenService(Base64.getEncoder().encodeToString(otherKey), Duration.ofMinutes(15))
+                .issueTokens("reader", "secret").getAccessToken();
+
+        assertThrows(BadCredentialsException.class, () -> tokenService.authenticate(token));
+    }
+
+    @Test
+    void expiredTokenIsRejected() { // sprawdzenie czy wygasły token jest odrzucany
+        when(userDetailsService.loadUserByUsername("reader")).thenReturn(reader);
+        String token = tokenService(SECRET, Duration.ofSeconds(-1)).issueTokens("reader", "secret").getAccessToken();
+
+        BadCredentialsException exception = assertThrows(BadCredentialsException.class, () -> tokenService.authenticate(token));
+        assertEquals("Token expired", exception.getMessage());
+    }
+
+    @Test
+    void tokenTypesAreNotInterchangeable() { // sprawdzenie czy tokenu odświeżania nie można użyć jako tokenu dostępu i odwrotnie
+        when(userDetailsService.loadUserByUsername("reader")).thenReturn(reader);
+        TokenResponse tokens = tokenService.issueTokens("reader", "secret");
+
+        assertThrows(BadCredentialsException.class, () -> tokenService.authenticate(tokens.getRefreshToken()));
+        assertThrows(BadCredentialsException.class, () -> tokenService.refreshTokens(tokens.getAccessToken()));
+    }
+
+    @Test
+    void refreshIssuesNewTokens() { // sprawdzenie czy token odświeżania wydaje nowe tokeny
+        when(userDetailsService.loadUserByUsername("reader")).thenReturn(reader);
+        TokenResponse tokens = tokenService.issueTokens("reader", "secret");
+
+        TokenResponse refreshed = tokenService.refreshTokens(tokens.getRefreshToken());
+
+        assertEquals("reader", tokenService.authenticate(refreshed.getAccessToken()).getName());
+        verify(authenticationManager, times(1)).authenticate(any());
+    }
+
+    @Test
+    void refreshAfterPasswordChangeIsRejected() { // sprawdzenie czy zmiana hasła unieważnia token odświeżania
+        User changed = new User("reader", "$2a$10$other", reader.getAuthorities());
+        when(userDetailsService.loadUserByUsername("reader")).thenReturn(reader, changed);
+        String refreshToken = tokenService.issueTokens("reader", "secret").getRefreshToken();
+
+        assertThrows(BadCredentialsException.class, () -> tokenService.refreshTokens(refreshToken));
+    }
+
+    @Test
+    void refreshForDeletedUserIsRejected() { // sprawdzenie czy token odświeżania usuniętego użytkownika jest odrzucany
+        when(userDetailsService.loadUserByUsername("reader"))
+                .thenReturn(reader)
+                .thenThrow(new UsernameNotFoundException("User not found with username: reader"));
+        String refreshToken = tokenService.issueTokens("reader", "secret").getRefreshToken();
+
+        assertThrows(BadCredentialsException.class, () -> tokenService.refreshTokens(refreshToken));
+    }
+
+    @Test
+    void secretMustBeLongEnough() { // sprawdzenie czy zbyt krótki klucz jest odrzucany, a pusty zastępowany losowym
+        String shortSecret = Base64.getEncoder().encodeToString(new byte[16]);
+
+        assertThrows(IllegalStateException.class, () -> tokenService(shortSecret, Duration.ofMinutes(15)));
+        assertNotNull(tokenService("", Duration.ofMinutes(15)));
+    }
+
+    private TokenService tokenService(String secret, Duration accessTokenTtl) {
+        return new TokenService(authenticationManager, userDetailsService, secret, accessTokenTtl, Duration.ofDays(7));
+    }
+}
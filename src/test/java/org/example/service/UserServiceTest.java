@@ -1,6 +1,7 @@
 package org.example.service;
 
 import org.example.entity.User;
+import org.example.event.UserCredentialsChangedEvent;
 import org.example.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,6 +9,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Arrays;
@@ -28,6 +30,9 @@ public class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UserService userService;
 
@@ -174,7 +179,7 @@ public class UserServiceTest {
                 .role(User.Role.ADMIN)
                 .build();
 
-        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(passwordEncoder.encode("newPassword")).thenReturn("encodedNewPassword");
         when(userRepository.save(any(User.class))).thenReturn(userToUpdate);
 
@@ -183,6 +188,7 @@ public class UserServiceTest {
         assertNotNull(result);
         assertEquals(userToUpdate, result);
         assertEquals("encodedNewPassword", userToUpdate.getPassword());
+        verify(eventPublisher).publishEvent(UserCredentialsChangedEvent.of("testUser"));
     }
 
     @Test
@@ -203,7 +209,6 @@ public class UserServiceTest {
                 .role(User.Role.USER)
                 .build();
 
-        when(userRepository.existsById(1L)).thenReturn(true);
         when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
         when(userRepository.save(any(User.class))).thenReturn(userToUpdate);
 
@@ -232,7 +237,6 @@ public class UserServiceTest {
                 .role(User.Role.USER)
                 .build();
 
-        when(userRepository.existsById(1L)).thenReturn(true);
         when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
         when(userRepository.save(any(User.class))).thenReturn(userToUpdate);
 
@@ -245,7 +249,7 @@ public class UserServiceTest {
 
     @Test
     void updateUser_NotFound() { // sprawdzenie czy obsługuje brak użytkownika podczas aktualizacji
-        when(userRepository.existsById(1L)).thenReturn(false);
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
 
         IllegalArgumentException exception = assertThrows(
                 IllegalArgumentException.class,
@@ -254,15 +258,18 @@ public class UserServiceTest {
 
         assertEquals("User not found", exception.getMessage());
         verify(userRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
     void deleteUser_Success() { // sprawdzenie czy usuwa użytkownika
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         doNothing().when(userRepository).deleteById(1L);
 
         userService.deleteUser(1L);
 
         verify(userRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(UserCredentialsChangedEvent.of("testUser"));
     }
 
     @Test